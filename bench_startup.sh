@@ -0,0 +1,43 @@
+#!/bin/sh
+# Startup benchmark: wall time from process start until the outputs for input.txt are written.
+#
+# Compares three launch configurations, RUNS times each (default 10):
+#   parse     : plain JVM, inst.data parsed as text
+#   snapshot  : plain JVM, instruction table loaded from inst.data.snap (-snapshot)
+#   cds       : AppCDS archive created by run.sh + snapshot
+#
+# Usage: ./bench_startup.sh [RUNS]
+
+cd "$(dirname "$0")" || exit 1
+
+RUNS=${1:-10}
+APP_JAR=out/assembler.jar
+
+# run.sh compiles the classes and creates the CDS archive on its first run
+./run.sh -snapshot > /dev/null || exit 1
+./run.sh -snapshot > /dev/null || exit 1
+
+now_ms() {
+	echo $(($(date +%s%N) / 1000000))
+}
+
+measure() {
+	name=$1
+	shift
+	total=0
+	i=0
+	while [ $i -lt "$RUNS" ]; do
+		rm -f output_20171281.txt
+		start=$(now_ms)
+		"$@" > /dev/null
+		end=$(now_ms)
+		[ -f output_20171281.txt ] || { echo "$name: no output"; exit 1; }
+		total=$((total + end - start))
+		i=$((i + 1))
+	done
+	echo "$name: $((total / RUNS)) ms average over $RUNS runs"
+}
+
+measure parse java -XX:TieredStopAtLevel=1 -cp "$APP_JAR" Assembler
+measure snapshot java -XX:TieredStopAtLevel=1 -cp "$APP_JAR" Assembler -snapshot
+measure cds java -XX:TieredStopAtLevel=1 -XX:SharedArchiveFile=out/assembler.jsa -cp "$APP_JAR" Assembler -snapshot
@@ -0,0 +1,39 @@
+#!/bin/sh
+# SIC/XE assembler launcher with class-data sharing (AppCDS).
+#
+# 1) Compiles src/*.java and packs the classes into out/assembler.jar when a
+#    source file is newer than the jar (CDS only archives classes from jars).
+#    TokenTable uses org.jetbrains.annotations; point ANNOTATIONS_JAR at that jar
+#    (default: lib/annotations.jar).
+# 2) On the first run, records the loaded classes into out/assembler.jsa
+#    (-XX:ArchiveClassesAtExit, JDK 13 or later).
+# 3) Later runs map that archive instead of loading and verifying the classes again.
+#
+# All arguments are passed to Assembler (e.g. ./run.sh -snapshot -parallel).
+# Set CDS=off to run without the archive.
+
+cd "$(dirname "$0")" || exit 1
+
+OUT=out
+CLASSES=$OUT/classes
+APP_JAR=$OUT/assembler.jar
+ARCHIVE=$OUT/assembler.jsa
+ANNOTATIONS_JAR=${ANNOTATIONS_JAR:-lib/annotations.jar}
+JAVA=${JAVA:-java}
+JAVAC=${JAVAC:-javac}
+JAR=${JAR:-jar}
+
+if [ ! -f "$APP_JAR" ] || [ -n "$(find src -name '*.java' -newer "$APP_JAR")" ]; then
+	rm -rf "$CLASSES" "$ARCHIVE"
+	mkdir -p "$CLASSES" || exit 1
+	"$JAVAC" -nowarn -encoding UTF-8 -cp "$ANNOTATIONS_JAR" -d "$CLASSES" src/*.java || exit 1
+	"$JAR" cf "$APP_JAR" -C "$CLASSES" . || exit 1
+fi
+
+if [ "$CDS" = "off" ]; then
+	exec "$JAVA" -XX:TieredStopAtLevel=1 -cp "$APP_JAR" Assembler "$@"
+elif [ -f "$ARCHIVE" ]; then
+	exec "$JAVA" -XX:TieredStopAtLevel=1 -XX:SharedArchiveFile="$ARCHIVE" -cp "$APP_JAR" Assembler "$@"
+else
+	exec "$JAVA" -XX:TieredStopAtLevel=1 -XX:ArchiveClassesAtExit="$ARCHIVE" -cp "$APP_JAR" Assembler "$@"
+fi
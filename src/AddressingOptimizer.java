@@ -0,0 +1,306 @@
+import java.util.ArrayList;
+
+/**
+ * section 하나의 명령어마다 가장 짧은 format과 addressing mode를 고르는 optimizer. pass1과 pass2 사이에 사용한다.
+ *
+ * operand를 가진 format 3/4 명령어는 PC-relative, BASE-relative(BASE/NOBASE 지시어를 따름), format 4 순서로 가능한
+ * 것을 선택한다. 명령어의 크기가 바뀌면 주소가 바뀌므로, location counter와 symbol, literal 주소를 다시 계산하면서 더 이상
+ * 바뀌는 명령어가 없을 때까지 반복한다. format 4로 바뀐 명령어는 다시 줄어들지 않으므로 반복은 반드시 끝난다.
+ * '+'로 format 4를 지정한 명령어도 format 3으로 표현할 수 있으면 format 3으로 줄인다. section 안의 주소를 사용하는
+ * format 4 명령어에는 pass2에서 TokenTable.operandField()가 M 레코드를 표시하고, absolute EQU symbol은 상수처럼
+ * 다룬다.
+ */
+public class AddressingOptimizer {
+	/* 명령어별로 선택된 addressing mode */
+	static final int MODE_NONE = 0; //format 3/4 명령어가 아님
+	static final int MODE_PC = 1;
+	static final int MODE_BASE = 2;
+	static final int MODE_DIRECT = 3; //operand가 없거나 4095 이하의 상수
+	static final int MODE_EXTENDED = 4; //format 4
+
+	TokenTable table;
+	/** token별 addressing mode */
+	int[] mode;
+	/** BASE-relative인 token이 사용하는 base register 값 */
+	int[] baseAddress;
+	/** token 위치에서 유효한 BASE symbol. NOBASE 이후에는 null */
+	String[] baseSymbol;
+
+	AddressingOptimizer(TokenTable table) {
+		this.table = table;
+		int size = table.tokenList.size();
+		mode = new int[size];
+		baseAddress = new int[size];
+		baseSymbol = new String[size];
+	}
+
+	/**
+	 * section 하나의 addressing mode를 정하고 Token의 operator, nixbpe, location과 symbol/literal 주소를 갱신한다.
+	 *
+	 * @param table : pass1이 끝난 section
+	 * @return : layout을 계산한 횟수
+	 */
+	public static int optimize(TokenTable table) {
+		AddressingOptimizer optimizer = new AddressingOptimizer(table);
+		optimizer.init();
+		int passes = 0;
+		do {
+			optimizer.layout();
+			passes++;
+		} while(optimizer.select());
+		optimizer.apply();
+		return passes;
+	}
+
+	/**
+	 * format 3/4 명령어를 찾아 초기 mode를 정한다. 처음에는 모두 format 3으로 가정한다.
+	 */
+	void init() {
+		String base = null;
+		for(int i = 0; i < table.tokenList.size(); i++) {
+			Token token = table.getToken(i);
+			if(token.operator.equals("BASE")) {
+				base = token.operand[0];
+			}
+			else if(token.operator.equals("NOBASE")) {
+				base = null;
+			}
+			baseSymbol[i] = base;
+			Instruction inst = instruction(token);
+			if(inst != null && inst.format == 3) {
+				mode[i] = MODE_DIRECT;
+			}
+		}
+	}
+
+	/**
+	 * 현재 선택된 명령어 크기로 location counter를 다시 계산하고 symbol table과 literal table을 갱신한다.
+	 */
+	void layout() {
+		int loc = 0;
+		ArrayList<String> pending = new ArrayList<String>(); //아직 위치가 정해지지 않은 literal
+		ArrayList<String> placed = new ArrayList<String>();
+		for(int i = 0; i < table.tokenList.size(); i++) {
+			Token token = table.getToken(i);
+			String operator = token.operator;
+			if(operator.equals("START")) {
+				loc = Integer.parseInt(token.operand[0], 16);
+			}
+			token.location = loc;
+			if(operator.equals("EQU")) {
+				int value = evaluate(token.operand[0], loc);
+				putSymbol(token.label, value);
+				continue;
+			}
+			if(!token.label.isEmpty()) {
+				putSymbol(token.label, loc);
+			}
+			if(token.operand != null && token.operand[0] != null && token.operand[0].startsWith("=")) {
+				String literal = token.operand[0].split("'")[1];
+				if(!pending.contains(literal) && !placed.contains(literal)) {
+					pending.add(literal);
+				}
+			}
+			if(operator.equals("LTORG") || operator.equals("END")) {
+				for(String literal : pending) {
+					put(table.literalTab, literal, loc);
+					loc += literalSize(literal);
+					placed.add(literal);
+				}
+				pending.clear();
+				continue;
+			}
+			loc += size(token, i);
+		}
+	}
+
+	void putSymbol(String label, int location) {
+		put(table.symTab, label, location);
+	}
+
+	static void put(LabelTable tab, String label, int location) {
+		if(tab.label.contains(label)) {
+			tab.modifyName(label, location);
+		}
+		else {
+			tab.putName(label, location);
+		}
+	}
+
+	/**
+	 * 현재 layout에서 각 명령어에 가능한 가장 짧은 mode를 고른다.
+	 *
+	 * @return : format 4로 바뀐 명령어가 있으면 true
+	 */
+	boolean select() {
+		boolean changed = false;
+		for(int i = 0; i < table.tokenList.size(); i++) {
+			if(mode[i] == MODE_NONE || mode[i] == MODE_EXTENDED) {
+				continue;
+			}
+			Token token = table.getToken(i);
+			int selected = choose(token, i);
+			if(selected == MODE_EXTENDED) {
+				changed = true;
+			}
+			mode[i] = selected;
+		}
+		return changed;
+	}
+
+	/**
+	 * 명령어 하나의 mode를 정한다.
+	 */
+	int choose(Token token, int index) {
+		String operand = token.operand == null ? null : token.operand[0];
+		if(operand == null || operand.isEmpty()) {
+			return MODE_DIRECT;
+		}
+		boolean immediate = operand.charAt(0) == '#';
+		String name = (immediate || operand.charAt(0) == '@') ? operand.substring(1) : operand;
+		int target = table.findAddress(name);
+		if(target >= 0 && table.isAbsolute(name)) { //absolute symbol은 상수와 같다
+			return target <= 0xFFF ? MODE_DIRECT : MODE_EXTENDED;
+		}
+		if(target < 0) {
+			try {
+				int value = Integer.parseInt(name);
+				return (value >= 0 && value <= 0xFFF) ? MODE_DIRECT : MODE_EXTENDED;
+			}
+			catch(NumberFormatException e) {
+				return MODE_EXTENDED; //external symbol은 format 4로 수정되어야 한다
+			}
+		}
+		int disp = target - (token.location + 3);
+		if(disp >= -2048 && disp <= 2047) {
+			return MODE_PC;
+		}
+		if(baseSymbol[index] != null) {
+			int base = table.findAddress(baseSymbol[index]);
+			if(base >= 0 && target - base >= 0 && target - base <= 0xFFF) {
+				baseAddress[index] = base;
+				return MODE_BASE;
+			}
+		}
+		return MODE_EXTENDED;
+	}
+
+	/**
+	 * 선택된 mode를 Token의 operator와 nixbpe에 반영한다.
+	 */
+	void apply() {
+		for(int i = 0; i < table.tokenList.size(); i++) {
+			if(mode[i] == MODE_NONE) {
+				continue;
+			}
+			Token token = table.getToken(i);
+			Instruction inst = instruction(token);
+			String operand = token.operand == null ? null : token.operand[0];
+			token.nixbpe = 0;
+			if(operand != null && operand.startsWith("#")) {
+				token.setFlag(TokenTable.iFlag, 1);
+			}
+			else if(operand != null && operand.startsWith("@")) {
+				token.setFlag(TokenTable.nFlag, 1);
+			}
+			else {
+				token.setFlag(TokenTable.nFlag, 1);
+				token.setFlag(TokenTable.iFlag, 1);
+			}
+			if(token.operand != null && token.operand.length > 1 && "X".equals(token.operand[1])) {
+				token.setFlag(TokenTable.xFlag, 1);
+			}
+			if(mode[i] == MODE_PC) {
+				token.setFlag(TokenTable.pFlag, 1);
+			}
+			else if(mode[i] == MODE_BASE) {
+				token.setFlag(TokenTable.bFlag, 1);
+				token.baseAddress = baseAddress[i];
+			}
+			else if(mode[i] == MODE_EXTENDED) {
+				token.setFlag(TokenTable.eFlag, 1);
+			}
+			token.operator = (mode[i] == MODE_EXTENDED ? "+" : "") + inst.inst;
+		}
+	}
+
+	/**
+	 * token이 차지하는 byte 수를 구한다.
+	 */
+	int size(Token token, int index) {
+		if(mode[index] != MODE_NONE) {
+			return mode[index] == MODE_EXTENDED ? 4 : 3;
+		}
+		Instruction inst = instruction(token);
+		if(inst != null) {
+			return inst.format;
+		}
+		String operator = token.operator;
+		if(operator.equals("RESW")) {
+			return Integer.parseInt(token.operand[0]) * 3;
+		}
+		if(operator.equals("RESB")) {
+			return Integer.parseInt(token.operand[0]);
+		}
+		if(operator.equals("WORD")) {
+			return 3;
+		}
+		if(operator.equals("BYTE")) {
+			return constantSize(token.operand[0]);
+		}
+		return 0;
+	}
+
+	/**
+	 * C'..' 또는 X'..' 상수의 byte 수
+	 */
+	static int constantSize(String constant) {
+		String value = constant.split("'")[1];
+		return constant.charAt(0) == 'X' ? value.length() / 2 : value.length();
+	}
+
+	/**
+	 * literal의 byte 수. literal table에는 따옴표 안의 내용만 저장되어 있으므로 section에서 원래 표기를 찾는다.
+	 */
+	int literalSize(String literal) {
+		for(int i = 0; i < table.tokenList.size(); i++) {
+			Token token = table.getToken(i);
+			if(token.operand != null && token.operand[0] != null && token.operand[0].startsWith("=")
+					&& token.operand[0].split("'")[1].equals(literal)) {
+				return constantSize(token.operand[0].substring(1));
+			}
+		}
+		return literal.length();
+	}
+
+	/**
+	 * EQU의 operand를 계산한다. (*, 숫자, symbol, symbol-symbol)
+	 */
+	int evaluate(String expr, int loc) {
+		if(expr.equals("*")) {
+			return loc;
+		}
+		int minus = expr.indexOf('-');
+		if(minus > 0) {
+			return evaluate(expr.substring(0, minus), loc) - evaluate(expr.substring(minus + 1), loc);
+		}
+		int address = table.symTab.label.indexOf(expr);
+		if(address >= 0) {
+			return table.symTab.locationList.get(address);
+		}
+		return Integer.parseInt(expr);
+	}
+
+	/**
+	 * operator에 해당하는 명령어 정보. '+'는 무시한다.
+	 *
+	 * @return : 명령어가 아니면 null
+	 */
+	Instruction instruction(Token token) {
+		String operator = token.operator;
+		if(operator.startsWith("+")) {
+			operator = operator.substring(1);
+		}
+		return table.instTab.instMap.get(operator);
+	}
+}
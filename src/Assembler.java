@@ -1,5 +1,6 @@
 import java.io.*;
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Assembler: 이 프로그램은 SIC/XE 머신을 위한 Assembler 프로그램의 메인루틴이다. 프로그램의 수행 작업은 다음과 같다.
@@ -32,6 +33,8 @@ public class Assembler {
 	InstTable instTable;
 	/** 읽어들인 input 파일의 내용을 한 줄 씩 저장하는 공간. */
 	ArrayList<String> lineList;
+	/** lineList의 각 줄에 해당하는 SourceCache의 Token 원본. INCLUDE된 파일의 줄이 아니면 null */
+	ArrayList<Token> prototypeList;
 	/** 프로그램의 section별로 symbol table을 저장하는 공간 */
 	ArrayList<LabelTable> symtabList;
 	/** 프로그램의 section별로 literal table을 저장하는 공간 */
@@ -40,9 +43,34 @@ public class Assembler {
 	ArrayList<TokenTable> TokenList;
 	/**
 	 * Token, 또는 지시어에 따라 만들어진 오브젝트 코드들을 출력 형태로 저장하는 공간. 필요한 경우 String 대신 별도의 클래스를
-	 * 선언하여 ArrayList를 교체해도 무방함.
+	 * 선언하여 ArrayList를 교체해도 무방함. codeBuffer에 조립된 명령어와 literal은 null이며, 문자열이 필요하면
+	 * TokenTable.getObjectCode()를 사용한다.
 	 */
 	ArrayList<String> codeList;
+	/** input 파일을 읽어들일 때 MACRO 정의와 호출을 처리하는 macro 처리 단계 */
+	MacroProcessor macroProcessor;
+	/** INCLUDE된 파일을 읽어들일 때 사용하는 cache. 기본적으로 process 전체에서 공유된다. */
+	SourceCache sourceCache;
+	/** 어셈블 중 INCLUDE된 파일 목록 */
+	ArrayList<File> includeList;
+	/** pass1 뒤에 AddressingOptimizer로 format과 addressing mode를 다시 고를지 여부 */
+	boolean optimize;
+	/** T 레코드 하나의 최대 길이 (byte) */
+	int textRecordLength = TextRecordPacker.DEFAULT_LENGTH;
+	/** T 레코드를 명령어 경계에서만 나눌지 여부. false이면 레코드를 최대 길이까지 채운다. */
+	boolean textRecordBoundary;
+	/** pass2가 끝낸 줄을 기록하는 listing 출력기. listing을 만들지 않으면 null */
+	ListingWriter listing;
+	/** loadMappedFile()이 lineList 없이 바로 분석한 Token들. lineList를 사용했으면 null */
+	List<Token> lexedTokens;
+	/** pass1이 section마다 채우는 symbol cross-reference 색인. 만들지 않으면 null */
+	CrossReference xref;
+	/** pass2가 section을 끝낼 때마다 external symbol을 등록하고 조회하는 공용 ESTAB. 사용하지 않으면 null */
+	ExternalSymbolTable estab;
+	/** estab에 등록할 때 사용하는 module(input 파일) 이름 */
+	String module;
+	/** estab에 등록한 section 수 */
+	int publishedSections;
 
 	/**
 	 * 클래스 초기화. instruction Table을 초기화와 동시에 세팅한다.
@@ -50,44 +78,227 @@ public class Assembler {
 	 * @param instFile : instruction 명세를 작성한 파일 이름.
 	 */
 	public Assembler(String instFile) {
-		instTable = new InstTable(instFile);
+		this(new InstTable(instFile));
+	}
+
+	/**
+	 * 이미 읽어들인 instruction Table을 사용하여 클래스를 초기화한다. 같은 process 안에서 여러 번 어셈블할 때 사용한다.
+	 * 
+	 * @param instTable : instruction 명세가 저장된 instTable
+	 */
+	public Assembler(InstTable instTable) {
+		this.instTable = instTable;
 		lineList = new ArrayList<String>();
+		prototypeList = new ArrayList<Token>();
 		symtabList = new ArrayList<LabelTable>();
 		literaltabList = new ArrayList<LabelTable>();
 		TokenList = new ArrayList<TokenTable>();
 		codeList = new ArrayList<String>();
+		macroProcessor = new MacroProcessor();
+		sourceCache = SourceCache.shared();
+		includeList = new ArrayList<File>();
 	}
 
 	/**
 	 * 어셈블러의 메인 루틴
 	 */
 	public static void main(String[] args) {
-		Assembler assembler = new Assembler("inst.data");
-		assembler.loadInputFile("input.txt");
-		assembler.pass1();
-
-		assembler.printSymbolTable("symtab_20171281.txt");
-		assembler.printLiteralTable("literaltab_20171281.txt");
-		assembler.pass2();
-		assembler.printObjectCode("output_20171281.txt");
+		boolean binary = false; //-binary : binary object 파일을 함께 출력
+		boolean parallel = false; //-parallel : 출력 파일들을 OutputStage로 병렬 출력
+		boolean watch = false; //-watch : 파일이 바뀔 때마다 다시 어셈블
+		boolean batch = false; //-batch 파일... : 여러 파일을 병렬로 어셈블하고 ESTAB 출력
+		boolean pipeline = false; //-pipeline : 읽기, pass1, pass2, 출력을 section 단위 pipeline으로 수행
+		boolean listing = false; //-listing : listing_20171281.txt에 주소, 소스, object code를 함께 출력
+		boolean optimize = false; //-optimize : 가장 짧은 format과 addressing mode를 자동으로 선택
+		boolean mmap = false; //-mmap : input 파일을 memory-map 하여 줄을 String으로 만들지 않고 분석
+		boolean xref = false; //-xref : xref_20171281.txt에 section별 symbol 정의, 사용 줄 번호를 출력
+		boolean snapshot = false; //-snapshot : inst.data.snap이 inst.data와 맞으면 파싱 없이 읽고, 아니면 새로 저장
+		int textRecordLength = TextRecordPacker.DEFAULT_LENGTH; //-tlen 길이 : T 레코드 최대 길이 (1 ~ 255 byte)
+		boolean textRecordBoundary = false; //-tboundary : T 레코드를 명령어 경계에서만 나눔
+		ArrayList<String> inputList = new ArrayList<String>();
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-binary")) {
+				binary = true;
+			}
+			else if (args[i].equals("-parallel")) {
+				parallel = true;
+			}
+			else if (args[i].equals("-snapshot")) {
+				snapshot = true;
+			}
+			else if (args[i].equals("-watch")) {
+				watch = true;
+			}
+			else if (args[i].equals("-batch")) {
+				batch = true;
+			}
+			else if (args[i].equals("-pipeline")) {
+				pipeline = true;
+			}
+			else if (args[i].equals("-listing")) {
+				listing = true;
+			}
+			else if (args[i].equals("-optimize")) {
+				optimize = true;
+			}
+			else if (args[i].equals("-mmap")) {
+				mmap = true;
+			}
+			else if (args[i].equals("-xref")) {
+				xref = true;
+			}
+			else if (args[i].equals("-tlen")) {
+				textRecordLength = -1;
+				if (i + 1 < args.length) {
+					try {
+						textRecordLength = Integer.parseInt(args[++i]);
+					}
+					catch (NumberFormatException e) {
+						textRecordLength = -1;
+					}
+				}
+				if (textRecordLength < 1 || textRecordLength > TextRecordPacker.LIMIT) {
+					System.out.println("Error: -tlen needs a T record length of 1 ~ " + TextRecordPacker.LIMIT);
+					return;
+				}
+			}
+			else if (args[i].equals("-tboundary")) {
+				textRecordBoundary = true;
+			}
+			else if (!args[i].startsWith("-")) {
+				inputList.add(args[i]);
+			}
+		}
+
+		if (batch) {
+			if (inputList.isEmpty()) {
+				inputList.add("input.txt");
+			}
+			try {
+				new BatchAssembler(new InstTable("inst.data", snapshot)).run(inputList, "estab_20171281.txt");
+			}
+			catch (InterruptedException e) {
+				System.out.println("Error: " + e);
+			}
+			return;
+		}
+
+		if (watch) {
+			try {
+				WatchMode watchMode = new WatchMode("inst.data", "input.txt", "output_20171281.txt", "symtab_20171281.txt", "literaltab_20171281.txt");
+				watchMode.optimize = optimize;
+				watchMode.textRecordLength = textRecordLength;
+				watchMode.textRecordBoundary = textRecordBoundary;
+				watchMode.listingFile = listing ? "listing_20171281.txt" : null;
+				watchMode.xrefFile = xref ? "xref_20171281.txt" : null;
+				watchMode.run();
+			}
+			catch (IOException | InterruptedException e) {
+				System.out.println("Error: " + e);
+			}
+			return;
+		}
+
+		Assembler assembler = new Assembler(new InstTable("inst.data", snapshot));
+		assembler.optimize = optimize;
+		assembler.textRecordLength = textRecordLength;
+		assembler.textRecordBoundary = textRecordBoundary;
+		if (listing) {
+			try {
+				assembler.listing = new ListingWriter("listing_20171281.txt");
+			}
+			catch (IOException e) {
+				System.out.println("Error: " + e);
+			}
+		}
+		if (xref) {
+			assembler.xref = new CrossReference(assembler.instTable);
+		}
+		boolean assembled = true;
+		if (pipeline) {
+			try {
+				assembled = new PipelineAssembler(assembler).run("input.txt", "output_20171281.txt", "symtab_20171281.txt", "literaltab_20171281.txt");
+			}
+			catch (InterruptedException e) {
+				System.out.println("Error: " + e);
+				assembled = false;
+			}
+		}
+		else {
+			if (mmap) {
+				assembler.loadMappedFile("input.txt");
+			}
+			else {
+				assembler.loadInputFile("input.txt");
+			}
+			assembler.pass1();
+			if (optimize) {
+				assembler.optimizeAddressing();
+			}
+
+			if (parallel) {
+				assembler.pass2();
+				new OutputStage(assembler).printAll("output_20171281.txt", "symtab_20171281.txt", "literaltab_20171281.txt");
+			}
+			else {
+				assembler.printSymbolTable("symtab_20171281.txt");
+				assembler.printLiteralTable("literaltab_20171281.txt");
+				assembler.pass2();
+				assembler.printObjectCode("output_20171281.txt");
+			}
+		}
+		if (assembler.listing != null) {
+			assembler.listing.close();
+		}
+		if (assembler.xref != null && assembled) {
+			assembler.xref.print("xref_20171281.txt");
+		}
+		if (binary && assembled) {
+			assembler.printBinaryObjectCode("output_20171281.obj");
+		}
+	}
+
+	/**
+	 * input 파일을 읽어들여 pass1, pass2까지 수행한다. 출력은 하지 않는다.
+	 * 
+	 * @param inputFile : input 파일 이름.
+	 */
+	void assemble(String inputFile) {
+		loadInputFile(inputFile);
+		pass1();
+		if(optimize) {
+			optimizeAddressing();
+		}
+		pass2();
 	}
 
 	/**
-	 * inputFile을 읽어들여서 lineList에 저장한다.
+	 * section마다 명령어의 format과 addressing mode를 가장 짧은 것으로 다시 고르고, location과 symbol, literal 주소를
+	 * 갱신한다. pass1과 pass2 사이에 호출한다.
+	 */
+	void optimizeAddressing() {
+		for(TokenTable tokenTable : TokenList) {
+			AddressingOptimizer.optimize(tokenTable);
+		}
+	}
+
+	/**
+	 * inputFile을 읽어들여서 lineList에 저장한다. macro 정의는 저장되지 않으며 macro 호출은 펼쳐진 줄들로 저장된다.
+	 * INCLUDE 지시어가 있는 줄은 해당 파일의 내용으로 대체된다.
 	 * 
 	 * @param inputFile : input 파일 이름.
 	 */
 	int line_num = 0;
 	private void loadInputFile(String inputFile) {
-		try {
-			File file = new File(inputFile);
-			FileReader filereader = new FileReader(file);
-			BufferedReader bufReader = new BufferedReader(filereader);
+		File file = new File(inputFile);
+		try(BufferedReader bufReader = new BufferedReader(new FileReader(file))) {
+			ArrayList<String> includeStack = new ArrayList<String>();
+			includeStack.add(file.getCanonicalPath());
 			String line = "";
 			while((line = bufReader.readLine()) != null){
-				lineList.add(line);
-				line_num++;
+				loadLine(line, null, file, includeStack);
 			}
+			line_num = lineList.size();
 		}
 		catch(IOException e){
 			System.out.println("There is errer" + e);
@@ -95,6 +306,96 @@ public class Assembler {
 
 	}
 
+	/**
+	 * inputFile을 memory-map 하여 lineList를 거치지 않고 바로 Token으로 분석한다. 결과는 lexedTokens에 저장되며
+	 * pass1()이 이를 사용한다. MACRO나 INCLUDE가 있는 파일은 loadInputFile()로 읽는다.
+	 * 
+	 * @param inputFile : input 파일 이름.
+	 */
+	void loadMappedFile(String inputFile) {
+		try {
+			MappedSource source = MappedSource.open(inputFile);
+			if(source == null) {
+				loadInputFile(inputFile);
+				return;
+			}
+			lexedTokens = ParallelLexer.lex(source);
+			line_num = lexedTokens.size();
+		}
+		catch(IOException e) {
+			System.out.println("Error: " + e);
+		}
+	}
+
+	/**
+	 * 읽어들인 한 줄을 처리한다. INCLUDE 지시어이면 파일을 포함시키고, 아니면 macro 처리 단계로 넘긴다.
+	 * 
+	 * @param line         : 읽어들인 한 줄
+	 * @param prototype    : SourceCache에서 이 줄을 분석해 둔 Token 원본. 없으면 null
+	 * @param from         : 이 줄이 들어있는 파일. INCLUDE의 상대 경로는 이 파일의 위치를 기준으로 한다.
+	 * @param includeStack : 현재 포함 중인 파일들의 경로 (순환 포함 검사용)
+	 */
+	void loadLine(String line, Token prototype, File from, ArrayList<String> includeStack) {
+		if(macroProcessor.defining == null && line.contains("INCLUDE")) {
+			String[] field = line.split("\t");
+			if(field.length > 2 && field[1].equals("INCLUDE")) {
+				includeFile(new File(from.getAbsoluteFile().getParentFile(), field[2]), includeStack);
+				return;
+			}
+		}
+		int first = lineList.size();
+		macroProcessor.processLine(line, lineList, prototypeList);
+		//macro 처리 단계를 그대로 통과한 줄은 SourceCache의 원본 Token을, 펼친 줄은 expansion의 원본 Token을 사용한다
+		if(lineList.size() == first + 1 && lineList.get(first) == line) {
+			prototypeList.set(first, prototype);
+		}
+	}
+
+	/**
+	 * lineList의 한 줄을 Token으로 분석한다. SourceCache에 Token 원본이 있으면 다시 분석하지 않고 복사한다. 형식이
+	 * 잘못된 줄의 오류는 Token.lex()가 출력한다.
+	 * 
+	 * @param index : lineList 안에서의 위치
+	 * @return : 새 Token. line은 index + 1이다.
+	 */
+	Token lexLine(int index) {
+		Token prototype = prototypeList.get(index);
+		if(prototype == null) {
+			String line = lineList.get(index);
+			return Token.lex(line, 0, line.length(), index + 1);
+		}
+		Token token = prototype.copy();
+		token.line = index + 1;
+		return token;
+	}
+
+	/**
+	 * INCLUDE된 파일의 줄들을 읽어들인다. 파일 내용과 줄마다 분석한 Token 원본은 sourceCache에서 가져오므로 같은 파일은
+	 * 한 번만 읽고 분석한다.
+	 * 
+	 * @param file         : 포함할 파일
+	 * @param includeStack : 현재 포함 중인 파일들의 경로
+	 */
+	private void includeFile(File file, ArrayList<String> includeStack) {
+		try {
+			String path = file.getCanonicalPath();
+			if(includeStack.contains(path)) {
+				System.out.println("Error: recursive INCLUDE of " + file);
+				return;
+			}
+			includeList.add(file);
+			includeStack.add(path);
+			SourceEntry entry = sourceCache.getEntry(file);
+			for(int i = 0; i < entry.lines.size(); i++) {
+				loadLine(entry.lines.get(i), entry.tokens[i], file, includeStack);
+			}
+			includeStack.remove(includeStack.size() - 1);
+		}
+		catch(IOException e){
+			System.out.println("Error: " + e);
+		}
+	}
+
 	/**
 	 * pass1 과정을 수행한다.
 	 * 
@@ -107,300 +408,310 @@ public class Assembler {
 	 */
 	int pro_num;
 	private void pass1() {
-		//프로그램을 나누기 위해 필요
-		LabelTable ST_for_pronum  = new LabelTable();
-		LabelTable LT_for_pronum  = new LabelTable();
-		TokenTable TT_for_pronum = new TokenTable(ST_for_pronum , LT_for_pronum , instTable);
-		for (int i = 0; i < lineList.size(); i++) {
-			TT_for_pronum.putToken(lineList.get(i));
-		}
-		//프로그램 나누기 위해 필요한 변수들
-		int first[] = new int[10];
-		int j = 0;
-		pro_num = 0;
-
 		//전체를 돌며 프로그램을 start, csect, end기준으로 구역을 나눔(input.txt의 경우 3개로 나뉨)
+		//모든 줄을 한 번만 분석해 두고, section 나누기와 location 계산에 같은 Token을 사용함
+		List<Token> tokens = lexedTokens != null ? lexedTokens : ParallelLexer.lex(this, line_num);
+		SectionSplitter splitter = new SectionSplitter();
+		ArrayList<int[]> sections = new ArrayList<int[]>();
 		for (int i = 0; i < line_num; i++) {
-			if(!TT_for_pronum.getToken(i).operator.equals(null)) {
-				if (TT_for_pronum.getToken(i).operator.equals("START")) {
-					first[0] = i;
-					j++;
-				}
-				if (TT_for_pronum.getToken(i).operator.equals("CSECT")) {
-					pro_num++;
-					first[j] = i;
-					j++;
-				}
-				if (TT_for_pronum.getToken(i).operator.equals("END")) {
-					first[j] = i+1;
-					j++;
-					first[j+1] =0;
-				}
+			int[] range = splitter.next(tokens.get(i), i);
+			if (range != null) {
+				sections.add(range);
 			}
 		}
+		int[] last = splitter.finish();
+		if (last != null) {
+			sections.add(last);
+		}
+		pro_num = sections.size() - 1;
 
-		for(int a = 0; a < pro_num +1; a++) { //프로그램 객수만큼 돌아 섹션 별로 저장해줌
-			int loc = 0;
-			LabelTable symtab = new LabelTable();
-			LabelTable littab = new LabelTable();
-			TokenTable TT = new TokenTable(symtab, littab, instTable);
+		for(int[] range : sections) { //프로그램 객수만큼 돌아 섹션 별로 저장해줌
+			TokenTable TT = pass1Tokens(tokens.subList(range[0], range[1]));
+			TokenList.add(TT);
+			symtabList.add(TT.symTab);
+			literaltabList.add(TT.literalTab);
+		}
+	}
 
-			TT.symTab.label = new ArrayList();
-			TT.symTab.locationList = new ArrayList();
-			TT.literalTab.label = new ArrayList();
-			TT.literalTab.locationList = new ArrayList();
+	/**
+	 * section 하나의 pass1 과정을 수행한다. location, symbol, literal, nixbpe, EXTDEF/EXTREF를 해당 section의
+	 * TokenTable에 저장한다. 다른 section의 정보는 사용하지 않으므로 section마다 독립적으로 호출할 수 있다.
+	 * 
+	 * @param lines : section에 속한 줄들 (START 또는 CSECT부터 다음 section 직전까지)
+	 * @return : 분석이 끝난 section의 TokenTable
+	 */
+	TokenTable pass1Section(List<String> lines) {
+		return pass1Tokens(ParallelLexer.lex(lines));
+	}
 
-			//TokenTable에 tokenList 더해주는 부분
-			for(int i = first[a]; i < first[a+1]; i++) {
-				TT.putToken(lineList.get(i));
-			}
+	/**
+	 * 이미 Token으로 분석된 section 하나의 pass1 과정을 수행한다. Token들은 section의 TokenTable에 그대로 저장된다.
+	 * 
+	 * @param tokens : section에 속한 줄들을 분석한 Token들
+	 * @return : 분석이 끝난 section의 TokenTable
+	 */
+	TokenTable pass1Tokens(List<Token> tokens) {
+		LabelTable symtab = new LabelTable();
+		LabelTable littab = new LabelTable();
+		TokenTable TT = new TokenTable(symtab, littab, instTable);
 
-			//location 구해서 저장하고, literalTable 저장해주는 부분
-			for(int i = 0; i < first[a+1]-first[a]; i++) {
-				if(!TT.getToken(i).operator.isEmpty()) { //주석 부분은 걸러줌
-					if(TT.getToken(i).operator.equals("RESW")) {
-						loc += Integer.parseInt(TT.getToken(i).operand[0]) * 3;
-						TT.getToken(i+1).location = loc;
+		TT.symTab.label = new ArrayList();
+		TT.symTab.locationList = new ArrayList();
+		TT.literalTab.label = new ArrayList();
+		TT.literalTab.locationList = new ArrayList();
+
+		int loc = 0;
+		//TokenTable에 tokenList 더해주는 부분
+		for(Token token : tokens) {
+			TT.putToken(token);
+		}
+
+		//location 구해서 저장하고, literalTable 저장해주는 부분
+		for(int i = 0; i < tokens.size(); i++) {
+			if(!TT.getToken(i).operator.isEmpty()) { //주석 부분은 걸러줌
+				if(TT.getToken(i).operator.equals("RESW")) {
+					loc += Integer.parseInt(TT.getToken(i).operand[0]) * 3;
+					TT.getToken(i+1).location = loc;
 
+				}
+				if(TT.getToken(i).operator.equals("RESB")) {
+					loc += Integer.parseInt(TT.getToken(i).operand[0]);
+					TT.getToken(i+1).location = loc;
+				}
+				if(TT.getToken(i).operator.equals("BYTE")) {
+					if (TT.getToken(i).operand[0].contains("C")) { //char형인 경우
+						String tmp = TT.getToken(i).operand[0].split("'")[1];
+						loc += tmp.length();
+						TT.getToken(i+1).location = loc;
 					}
-					if(TT.getToken(i).operator.equals("RESB")) {
-						loc += Integer.parseInt(TT.getToken(i).operand[0]);
+					else if (TT.getToken(i).operand[0].contains("X")) { //16진수인 경우
+						String tmp = TT.getToken(i).operand[0].split("'")[1];
+						loc += tmp.length() / 2; //X는 두글자가 한바이트
 						TT.getToken(i+1).location = loc;
 					}
-					if(TT.getToken(i).operator.equals("BYTE")) {
-						if (TT.getToken(i).operand[0].contains("C")) { //char형인 경우
-							String tmp = TT.getToken(i).operand[0].split("'")[1];
+				}
+				int lit_last = 0;
+				if (TT.getToken(i).operator.equals("LTORG")) { //LTORG인 경우
+					for (int p = 0; p < i ; p++) {
+						if (TT.getToken(p).operand[0].contains("=C")) { //char형인 경우
+							lit_last = i; //다음에 LTORG나 END나오면 이 찾은거 다음부터 해야해서
+							String tmp = TT.getToken(p).operand[0].split("'")[1];
 							loc += tmp.length();
 							TT.getToken(i+1).location = loc;
+							TT.literalTab.putName(TT.getToken(p).operand[0].split("'")[1], TT.getToken(i).location);
 						}
-						else if (TT.getToken(i).operand[0].contains("X")) { //16진수인 경우
-							String tmp = TT.getToken(i).operand[0].split("'")[1];
+						else if (TT.getToken(p).operand[0].contains("=X")) { //16진수인 경우
+							lit_last = i; //다음에 LTORG나 END나오면 이 찾은거 다음부터 해야해서
+							String tmp = TT.getToken(p).operand[0].split("'")[1];
 							loc += tmp.length() / 2; //X는 두글자가 한바이트
 							TT.getToken(i+1).location = loc;
+							TT.literalTab.putName(TT.getToken(p).operand[0].split("'")[1], TT.getToken(i).location);
 						}
 					}
-					int lit_last = 0;
-					if (TT.getToken(i).operator.equals("LTORG")) { //LTORG인 경우
-						for (int p = 0; p < i ; p++) {
-							if (TT.getToken(p).operand[0].contains("=C")) { //char형인 경우
-								lit_last = i; //다음에 LTORG나 END나오면 이 찾은거 다음부터 해야해서
-								String tmp = TT.getToken(p).operand[0].split("'")[1];
-								loc += tmp.length();
-								TT.getToken(i+1).location = loc;
-								TT.literalTab.putName(TT.getToken(p).operand[0].split("'")[1], TT.getToken(i).location);
-							}
-							else if (TT.getToken(p).operand[0].contains("=X")) { //16진수인 경우
-								lit_last = i; //다음에 LTORG나 END나오면 이 찾은거 다음부터 해야해서
-								String tmp = TT.getToken(p).operand[0].split("'")[1];
-								loc += tmp.length() / 2; //X는 두글자가 한바이트
-								TT.getToken(i+1).location = loc;
-								TT.literalTab.putName(TT.getToken(p).operand[0].split("'")[1], TT.getToken(i).location);
-							}
-						}
-					}
-					if (TT.getToken(i).operator.equals("END")) { //END인 경우
-						for (int p = lit_last + 1; p < i; p++) { //LTORG가 찾은 이후부터
-							if ((TT.getToken(p).operand != null && TT.getToken(p).operand[0] != null) &&TT.getToken(p).operand[0].contains("=C")) {
-								String tmp = TT.getToken(p).operand[0].split("'")[1];
-								loc += tmp.length();
-								int count =0;
-								if(TT.literalTab.label != null) { //label가 비어있지 않던 경우
-									for(int k=0; k<TT.literalTab.label.size(); k++) {  //중복된 literal 검사
-										if(TT.getToken(p).operand[0].equals(TT.literalTab.label.get(k))) {
-											count = 1;
-										}
-									}
-									if (count == 0) {
-										TT.literalTab.putName(TT.getToken(p).operand[0].split("'")[1], TT.getToken(i).location);
+				}
+				if (TT.getToken(i).operator.equals("END")) { //END인 경우
+					for (int p = lit_last + 1; p < i; p++) { //LTORG가 찾은 이후부터
+						if ((TT.getToken(p).operand != null && TT.getToken(p).operand[0] != null) &&TT.getToken(p).operand[0].contains("=C")) {
+							String tmp = TT.getToken(p).operand[0].split("'")[1];
+							loc += tmp.length();
+							int count =0;
+							if(TT.literalTab.label != null) { //label가 비어있지 않던 경우
+								for(int k=0; k<TT.literalTab.label.size(); k++) {  //중복된 literal 검사
+									if(TT.getToken(p).operand[0].equals(TT.literalTab.label.get(k))) {
+										count = 1;
 									}
 								}
-								else if (TT.literalTab.label == null) { //label가 비어있던 초기의 경우
+								if (count == 0) {
 									TT.literalTab.putName(TT.getToken(p).operand[0].split("'")[1], TT.getToken(i).location);
 								}
 							}
-							else if (TT.getToken(p).operand != null && (TT.getToken(p).operand[0] != null) && TT.getToken(p).operand[0].contains("=X")) { //16진수인 경우
-								String tmp = TT.getToken(p).operand[0].split("'")[1];
-								loc += tmp.length() / 2; //X는 두글자가 한바이트
-								int count = 0;
-								if(TT.literalTab.label != null) { //label가 비어있지 않던 경우
-									for(int k=0; k<TT.literalTab.label.size(); k++) {  //중복된 literal 검사
-										if(TT.getToken(p).operand[0].split("'")[1].equals(TT.literalTab.label.get(k))) {
-											count = 1;
-										}
-									}
-									if (count == 0) {
-										TT.literalTab.putName(TT.getToken(p).operand[0].split("'")[1], TT.getToken(i).location);
+							else if (TT.literalTab.label == null) { //label가 비어있던 초기의 경우
+								TT.literalTab.putName(TT.getToken(p).operand[0].split("'")[1], TT.getToken(i).location);
+							}
+						}
+						else if (TT.getToken(p).operand != null && (TT.getToken(p).operand[0] != null) && TT.getToken(p).operand[0].contains("=X")) { //16진수인 경우
+							String tmp = TT.getToken(p).operand[0].split("'")[1];
+							loc += tmp.length() / 2; //X는 두글자가 한바이트
+							int count = 0;
+							if(TT.literalTab.label != null) { //label가 비어있지 않던 경우
+								for(int k=0; k<TT.literalTab.label.size(); k++) {  //중복된 literal 검사
+									if(TT.getToken(p).operand[0].split("'")[1].equals(TT.literalTab.label.get(k))) {
+										count = 1;
 									}
 								}
-								else if (TT.literalTab.label == null) { //label가 비어있던 초기의 경우
+								if (count == 0) {
 									TT.literalTab.putName(TT.getToken(p).operand[0].split("'")[1], TT.getToken(i).location);
 								}
 							}
+							else if (TT.literalTab.label == null) { //label가 비어있던 초기의 경우
+								TT.literalTab.putName(TT.getToken(p).operand[0].split("'")[1], TT.getToken(i).location);
+							}
 						}
 					}
-					if(instTable.instMap.containsKey(TT.getToken(i).operator)) { //inst.data에 있는 경우
-						Instruction temp = instTable.instMap.get(TT.getToken(i).operator);
-						int type = temp.format;
-						loc += type;
-						TT.getToken(i+1).location = loc;
-					}
-					else if(instTable.instMap.containsKey(TT.getToken(i).operator.substring(1))) { //+, 4형식인 경우
-						Instruction temp = instTable.instMap.get(TT.getToken(i).operator.substring(1));
-						int type = temp.format + 1;
-						loc += type;
-						TT.getToken(i+1).location = loc;
-					}
+				}
+				if(instTable.instMap.containsKey(TT.getToken(i).operator)) { //inst.data에 있는 경우
+					Instruction temp = instTable.instMap.get(TT.getToken(i).operator);
+					int type = temp.format;
+					loc += type;
+					TT.getToken(i+1).location = loc;
+				}
+				else if(instTable.instMap.containsKey(TT.getToken(i).operator.substring(1))) { //+, 4형식인 경우
+					Instruction temp = instTable.instMap.get(TT.getToken(i).operator.substring(1));
+					int type = temp.format + 1;
+					loc += type;
+					TT.getToken(i+1).location = loc;
 				}
 			}
+		}
 
-			//label유무 찾아서 symbolTable에 더해주는 부분
-			for(int i = 0; i < first[a+1]-first[a]; i++) {
-				if(TT.getToken(i).label.isEmpty()) {
-				}
-				else {
-					int count = 0; //중복 검사 위한 변수
-					if(TT.symTab.label != null) { //label가 비어있지 않던 경우
-						for(int k=0; k<TT.symTab.label.size(); k++) {  //중복된 symbol 검사
-							if(TT.getToken(i).operand[0].equals(TT.symTab.label.get(k))) {
-								count = 1;
-							}
-						}
-						if(count == 0) { //중복이 아닌경우에만 넣어줌
-							TT.symTab.putName(TT.getToken(i).label, TT.getToken(i).location);
+		//label유무 찾아서 symbolTable에 더해주는 부분
+		for(int i = 0; i < tokens.size(); i++) {
+			if(TT.getToken(i).label.isEmpty()) {
+			}
+			else {
+				int count = 0; //중복 검사 위한 변수
+				if(TT.symTab.label != null) { //label가 비어있지 않던 경우
+					for(int k=0; k<TT.symTab.label.size(); k++) {  //중복된 symbol 검사
+						if(TT.getToken(i).operand[0].equals(TT.symTab.label.get(k))) {
+							count = 1;
 						}
 					}
-					else if (TT.symTab.label == null) { //label가 비어있던 초기의 경우
+					if(count == 0) { //중복이 아닌경우에만 넣어줌
 						TT.symTab.putName(TT.getToken(i).label, TT.getToken(i).location);
 					}
 				}
-				if(TT.getToken(i).operator.equals("EQU")) {
-					int m = 0, n = 0;
-					if(TT.getToken(i-1).operator.equals("EQU")) {
-						for(int k=0; k < TT.symTab.label.size(); k++) {
-							if(TT.symTab.label.get(k).equals(TT.getToken(i).operand[0].split("-")[0])) {
-								m = k;
-							}
-							else if(TT.symTab.label.get(k).equals(TT.getToken(i).operand[0].split("-")[1])) {
-								n = k;
-							}
+				else if (TT.symTab.label == null) { //label가 비어있던 초기의 경우
+					TT.symTab.putName(TT.getToken(i).label, TT.getToken(i).location);
+				}
+			}
+			if(TT.getToken(i).operator.equals("EQU")) {
+				int m = 0, n = 0;
+				if(TT.getToken(i-1).operator.equals("EQU")) {
+					for(int k=0; k < TT.symTab.label.size(); k++) {
+						if(TT.symTab.label.get(k).equals(TT.getToken(i).operand[0].split("-")[0])) {
+							m = k;
+						}
+						else if(TT.symTab.label.get(k).equals(TT.getToken(i).operand[0].split("-")[1])) {
+							n = k;
 						}
-						loc = TT.symTab.locationList.get(m) - TT.symTab.locationList.get(n);
-						TT.symTab.modifyName(TT.getToken(i).label, loc);
 					}
+					loc = TT.symTab.locationList.get(m) - TT.symTab.locationList.get(n);
+					TT.symTab.modifyName(TT.getToken(i).label, loc);
 				}
 			}
-			TokenList.add(TT);
-			symtabList.add(symtab);
-			literaltabList.add(littab);
 		}
 
 		//nixbpe저장하는 부분
-		for (int i = 0; i < TokenList.size() ; i++) {
-			for(int k = 0; k < first[i+1]-first[i]; k++) {
-				if(!TokenList.get(i).tokenList.get(k).operator.isEmpty()) {
-					if(TokenList.get(i).instTab.instMap.containsKey(TokenList.get(i).tokenList.get(k).operator)) {
-						int count = 0;
-						if(TokenList.get(i).tokenList.get(k).operand[0] != null) {
-							if(instTable.instMap.get(TokenList.get(i).tokenList.get(k).operator).numberOfOperand == 0) {
-								count++;
-							}
-							if (TokenList.get(i).tokenList.get(k).operand[0].contains("#")) { //immediate addressing인 경우
-								TokenList.get(i).tokenList.get(k).setFlag(TokenTable.nFlag, 0);
-								TokenList.get(i).tokenList.get(k).setFlag(TokenTable.iFlag, 1);
-								TokenList.get(i).tokenList.get(k).setFlag(TokenTable.xFlag, 0);
-								TokenList.get(i).tokenList.get(k).setFlag(TokenTable.bFlag, 0);
-								TokenList.get(i).tokenList.get(k).setFlag(TokenTable.pFlag, 0);
-								TokenList.get(i).tokenList.get(k).setFlag(TokenTable.eFlag, 0);
-								count++;
-							}
-							else if (TokenList.get(i).tokenList.get(k).operand[0].contains("@")) { //indirect addressing인 경우
-								TokenList.get(i).tokenList.get(k).setFlag(TokenTable.nFlag, 1);
-								TokenList.get(i).tokenList.get(k).setFlag(TokenTable.iFlag, 0);
-								TokenList.get(i).tokenList.get(k).setFlag(TokenTable.xFlag, 0);
-								TokenList.get(i).tokenList.get(k).setFlag(TokenTable.bFlag, 0);
-								TokenList.get(i).tokenList.get(k).setFlag(TokenTable.pFlag, 1);
-								TokenList.get(i).tokenList.get(k).setFlag(TokenTable.eFlag, 0);
-								count++;
-							}
-							else { //보통의 경우
-								TokenList.get(i).tokenList.get(k).setFlag(TokenTable.nFlag, 1);
-								TokenList.get(i).tokenList.get(k).setFlag(TokenTable.iFlag, 1);
-							}
-							if(TokenList.get(i).tokenList.get(k).operator.contains("+")) { //4형식인 경우
-								TokenList.get(i).tokenList.get(k).setFlag(TokenTable.bFlag, 0);
-								TokenList.get(i).tokenList.get(k).setFlag(TokenTable.pFlag, 0);
-								TokenList.get(i).tokenList.get(k).setFlag(TokenTable.eFlag, 1);
-								count++;
-							}
+		for(int k = 0; k < TT.tokenList.size(); k++) {
+			if(!TT.tokenList.get(k).operator.isEmpty()) {
+				if(TT.instTab.instMap.containsKey(TT.tokenList.get(k).operator)) {
+					int count = 0;
+					if(TT.tokenList.get(k).operand[0] != null) {
+						if(instTable.instMap.get(TT.tokenList.get(k).operator).numberOfOperand == 0) {
+							count++;
 						}
-						if (count == 0){ //보통의 경우
-							TokenList.get(i).tokenList.get(k).setFlag(TokenTable.bFlag, 0);
-							TokenList.get(i).tokenList.get(k).setFlag(TokenTable.pFlag, 1);
-							TokenList.get(i).tokenList.get(k).setFlag(TokenTable.eFlag, 0);
+						if (TT.tokenList.get(k).operand[0].contains("#")) { //immediate addressing인 경우
+							TT.tokenList.get(k).setFlag(TokenTable.nFlag, 0);
+							TT.tokenList.get(k).setFlag(TokenTable.iFlag, 1);
+							TT.tokenList.get(k).setFlag(TokenTable.xFlag, 0);
+							TT.tokenList.get(k).setFlag(TokenTable.bFlag, 0);
+							TT.tokenList.get(k).setFlag(TokenTable.pFlag, 0);
+							TT.tokenList.get(k).setFlag(TokenTable.eFlag, 0);
+							count++;
+						}
+						else if (TT.tokenList.get(k).operand[0].contains("@")) { //indirect addressing인 경우
+							TT.tokenList.get(k).setFlag(TokenTable.nFlag, 1);
+							TT.tokenList.get(k).setFlag(TokenTable.iFlag, 0);
+							TT.tokenList.get(k).setFlag(TokenTable.xFlag, 0);
+							TT.tokenList.get(k).setFlag(TokenTable.bFlag, 0);
+							TT.tokenList.get(k).setFlag(TokenTable.pFlag, 1);
+							TT.tokenList.get(k).setFlag(TokenTable.eFlag, 0);
+							count++;
+						}
+						else { //보통의 경우
+							TT.tokenList.get(k).setFlag(TokenTable.nFlag, 1);
+							TT.tokenList.get(k).setFlag(TokenTable.iFlag, 1);
+						}
+						if(TT.tokenList.get(k).operator.contains("+")) { //4형식인 경우
+							TT.tokenList.get(k).setFlag(TokenTable.bFlag, 0);
+							TT.tokenList.get(k).setFlag(TokenTable.pFlag, 0);
+							TT.tokenList.get(k).setFlag(TokenTable.eFlag, 1);
+							count++;
 						}
 					}
-					else if (TokenList.get(i).instTab.instMap.containsKey(TokenList.get(i).tokenList.get(k).operator.substring(1))) {
-						int count = 0;
-						if(TokenList.get(i).tokenList.get(k).operand[0] != null) {
-							if (TokenList.get(i).tokenList.get(k).operand[0].contains("#")) { //immediate addressing인 경우
-								TokenList.get(i).tokenList.get(k).setFlag(TokenTable.nFlag, 0);
-								TokenList.get(i).tokenList.get(k).setFlag(TokenTable.iFlag, 1);
-								TokenList.get(i).tokenList.get(k).setFlag(TokenTable.xFlag, 0);
-								TokenList.get(i).tokenList.get(k).setFlag(TokenTable.bFlag, 0);
-								TokenList.get(i).tokenList.get(k).setFlag(TokenTable.pFlag, 0);
-								TokenList.get(i).tokenList.get(k).setFlag(TokenTable.eFlag, 0);
-								count++;
-							}
-							else if (TokenList.get(i).tokenList.get(k).operand[0].contains("@")) { //indirect addressing인 경우
-								TokenList.get(i).tokenList.get(k).setFlag(TokenTable.nFlag, 1);
-								TokenList.get(i).tokenList.get(k).setFlag(TokenTable.iFlag, 0);
-								TokenList.get(i).tokenList.get(k).setFlag(TokenTable.xFlag, 0);
-								TokenList.get(i).tokenList.get(k).setFlag(TokenTable.bFlag, 0);
-								TokenList.get(i).tokenList.get(k).setFlag(TokenTable.pFlag, 1);
-								TokenList.get(i).tokenList.get(k).setFlag(TokenTable.eFlag, 0);
-								count++;
-							}
-							else { //보통의 경우
-								TokenList.get(i).tokenList.get(k).setFlag(TokenTable.nFlag, 1);
-								TokenList.get(i).tokenList.get(k).setFlag(TokenTable.iFlag, 1);
-							}
-							if(TokenList.get(i).tokenList.get(k).operator.contains("+")) { //4형식인 경우
-								TokenList.get(i).tokenList.get(k).setFlag(TokenTable.bFlag, 0);
-								TokenList.get(i).tokenList.get(k).setFlag(TokenTable.pFlag, 0);
-								TokenList.get(i).tokenList.get(k).setFlag(TokenTable.eFlag, 1);
-								if(TokenList.get(i).tokenList.get(k).operand[0].equals("BUFFER")) {
-									TokenList.get(i).tokenList.get(k).setFlag(TokenTable.xFlag, 1);
-								}
-								count++;
-							}
+					if (count == 0){ //보통의 경우
+						TT.tokenList.get(k).setFlag(TokenTable.bFlag, 0);
+						TT.tokenList.get(k).setFlag(TokenTable.pFlag, 1);
+						TT.tokenList.get(k).setFlag(TokenTable.eFlag, 0);
+					}
+				}
+				else if (TT.instTab.instMap.containsKey(TT.tokenList.get(k).operator.substring(1))) {
+					int count = 0;
+					if(TT.tokenList.get(k).operand[0] != null) {
+						if (TT.tokenList.get(k).operand[0].contains("#")) { //immediate addressing인 경우
+							TT.tokenList.get(k).setFlag(TokenTable.nFlag, 0);
+							TT.tokenList.get(k).setFlag(TokenTable.iFlag, 1);
+							TT.tokenList.get(k).setFlag(TokenTable.xFlag, 0);
+							TT.tokenList.get(k).setFlag(TokenTable.bFlag, 0);
+							TT.tokenList.get(k).setFlag(TokenTable.pFlag, 0);
+							TT.tokenList.get(k).setFlag(TokenTable.eFlag, 0);
+							count++;
+						}
+						else if (TT.tokenList.get(k).operand[0].contains("@")) { //indirect addressing인 경우
+							TT.tokenList.get(k).setFlag(TokenTable.nFlag, 1);
+							TT.tokenList.get(k).setFlag(TokenTable.iFlag, 0);
+							TT.tokenList.get(k).setFlag(TokenTable.xFlag, 0);
+							TT.tokenList.get(k).setFlag(TokenTable.bFlag, 0);
+							TT.tokenList.get(k).setFlag(TokenTable.pFlag, 1);
+							TT.tokenList.get(k).setFlag(TokenTable.eFlag, 0);
+							count++;
 						}
-						if (count == 0){ //보통의 경우
-							TokenList.get(i).tokenList.get(k).setFlag(TokenTable.bFlag, 0);
-							TokenList.get(i).tokenList.get(k).setFlag(TokenTable.pFlag, 1);
-							TokenList.get(i).tokenList.get(k).setFlag(TokenTable.eFlag, 0);
+						else { //보통의 경우
+							TT.tokenList.get(k).setFlag(TokenTable.nFlag, 1);
+							TT.tokenList.get(k).setFlag(TokenTable.iFlag, 1);
 						}
+						if(TT.tokenList.get(k).operator.contains("+")) { //4형식인 경우
+							TT.tokenList.get(k).setFlag(TokenTable.bFlag, 0);
+							TT.tokenList.get(k).setFlag(TokenTable.pFlag, 0);
+							TT.tokenList.get(k).setFlag(TokenTable.eFlag, 1);
+							count++;
+						}
+					}
+					if (count == 0){ //보통의 경우
+						TT.tokenList.get(k).setFlag(TokenTable.bFlag, 0);
+						TT.tokenList.get(k).setFlag(TokenTable.pFlag, 1);
+						TT.tokenList.get(k).setFlag(TokenTable.eFlag, 0);
 					}
 				}
+				//format 3, 4 명령어의 operand가 ",X"로 끝나면 index addressing (TokenTable.makeObjectCode()와 같은 규칙)
+				Token token = TT.tokenList.get(k);
+				Instruction inst = TT.instTab.instMap.get(token.operator.startsWith("+") ? token.operator.substring(1) : token.operator);
+				if(inst != null && inst.format == 3 && token.operand != null && token.operand.length > 1
+						&& "X".equals(token.operand[1])) {
+					token.setFlag(TokenTable.xFlag, 1);
+				}
 			}
 		}
 
 		//EXTDEF, EXTREF 등 external 선언을 처리한다 (extdefList, extrefList에 저장)
-		for(int i = 0; i < TokenList.size(); i++) {
-			TokenList.get(i).symTab.extdefList = new ArrayList();
-			TokenList.get(i).symTab.extrefList = new ArrayList();
-			for(int k = 0; k < TokenList.get(i).tokenList.size(); k++){
-				if(TokenList.get(i).tokenList.get(k).operator.equals("EXTREF")) {
-					TokenList.get(i).symTab.extrefList.add(TokenList.get(i).tokenList.get(k).operand[0]);
-					TokenList.get(i).symTab.extrefList.add(TokenList.get(i).tokenList.get(k).operand[1]);
-					TokenList.get(i).symTab.extrefList.add(TokenList.get(i).tokenList.get(k).operand[2]);
-				}
-				else if(TokenList.get(i).tokenList.get(k).operator.equals("EXTDEF")) {
-					TokenList.get(i).symTab.extdefList.add(TokenList.get(i).tokenList.get(k).operand[0]);
-					TokenList.get(i).symTab.extdefList.add(TokenList.get(i).tokenList.get(k).operand[1]);
-					TokenList.get(i).symTab.extdefList.add(TokenList.get(i).tokenList.get(k).operand[2]);
-				}
+		TT.symTab.extdefList = new ArrayList();
+		TT.symTab.extrefList = new ArrayList();
+		for(int k = 0; k < TT.tokenList.size(); k++){
+			if(TT.tokenList.get(k).operator.equals("EXTREF")) {
+				TT.symTab.extrefList.add(TT.tokenList.get(k).operand[0]);
+				TT.symTab.extrefList.add(TT.tokenList.get(k).operand[1]);
+				TT.symTab.extrefList.add(TT.tokenList.get(k).operand[2]);
+			}
+			else if(TT.tokenList.get(k).operator.equals("EXTDEF")) {
+				TT.symTab.extdefList.add(TT.tokenList.get(k).operand[0]);
+				TT.symTab.extdefList.add(TT.tokenList.get(k).operand[1]);
+				TT.symTab.extdefList.add(TT.tokenList.get(k).operand[2]);
 			}
 		}
+		if(xref != null) {
+			xref.addSection(TT);
+		}
+		return TT;
 	}
 
 	/**
@@ -412,16 +723,13 @@ public class Assembler {
 		try{
 			File file = new File(fileName);
 
-            FileWriter fw = new FileWriter(file, false) ; 
+            FileOutputStream fw = new FileOutputStream(file, false) ; 
+            RecordBuffer rb = new RecordBuffer();
              
             for (int i = 0; i < TokenList.size(); i++) {
-            	for(int j = 0; j < symtabList.get(i).label.size(); j++) {
-            		fw.write(TokenList.get(i).symTab.label.get(j) + "\t" + 
-					Integer.toHexString(TokenList.get(i).symTab.locationList.get(j)).toUpperCase() + "\n");
-                	fw.flush();
-            	}
-            	fw.write("\n");
-            	fw.flush();
+            	rb.clear();
+            	makeSymbolSection(i, rb);
+            	rb.writeTo(fw);
             }
             fw.close();
         }catch(IOException e){
@@ -430,20 +738,38 @@ public class Assembler {
 
 	}
 
+	/**
+	 * section 번호로 makeSymbolSection(TokenTable, ...)을 호출한다.
+	 */
+	void makeSymbolSection(int i, RecordBuffer rb) {
+		makeSymbolSection(TokenList.get(i), rb);
+	}
+
+	/**
+	 * section 하나의 symbol table을 printSymbolTable()의 출력 형태로 만든다.
+	 * 
+	 * @param TT : pass1이 끝난 section
+	 * @param rb : 출력 내용을 기록할 버퍼
+	 */
+	void makeSymbolSection(TokenTable TT, RecordBuffer rb) {
+		for(int j = 0; j < TT.symTab.label.size(); j++) {
+			rb.append(TT.symTab.label.get(j)).append('\t')
+			.appendHex(TT.symTab.locationList.get(j), 1).append('\n');
+		}
+		rb.append('\n');
+	}
+
 	private void printLiteralTable(String fileName) {
 		try{
 			File file = new File(fileName);
 
-			FileWriter fw = new FileWriter(file, false) ;
+			FileOutputStream fw = new FileOutputStream(file, false) ;
+			RecordBuffer rb = new RecordBuffer();
 
 			for (int i = 0; i < TokenList.size(); i++) {
-				for(int j = 0; j < literaltabList.get(i).label.size(); j++) {
-					fw.write(TokenList.get(i).literalTab.label.get(j) + "\t" +
-							Integer.toHexString(TokenList.get(i).literalTab.locationList.get(j)).toUpperCase() + "\n");
-					fw.flush();
-				}
-				fw.write("\n");
-				fw.flush();
+				rb.clear();
+				makeLiteralSection(i, rb);
+				rb.writeTo(fw);
 			}
 			fw.close();
 		}catch(IOException e){
@@ -452,94 +778,104 @@ public class Assembler {
 
 	}
 
+	/**
+	 * section 번호로 makeLiteralSection(TokenTable, ...)을 호출한다.
+	 */
+	void makeLiteralSection(int i, RecordBuffer rb) {
+		makeLiteralSection(TokenList.get(i), rb);
+	}
+
+	/**
+	 * section 하나의 literal table을 printLiteralTable()의 출력 형태로 만든다.
+	 * 
+	 * @param TT : pass1이 끝난 section
+	 * @param rb : 출력 내용을 기록할 버퍼
+	 */
+	void makeLiteralSection(TokenTable TT, RecordBuffer rb) {
+		for(int j = 0; j < TT.literalTab.label.size(); j++) {
+			rb.append(TT.literalTab.label.get(j)).append('\t')
+					.appendHex(TT.literalTab.locationList.get(j), 1).append('\n');
+		}
+		rb.append('\n');
+	}
+
 	/**
 	 * pass2 과정을 수행한다.
 	 * 
 	 * 1) 분석된 내용을 바탕으로 object code를 생성하여 codeList에 저장.
 	 */
 	private void pass2() {
-		String a = null;
-
 		//objectCode와 byteSize를 저장하는 부분
 		//분석한 objectCode를 codeList에 저장해줌
 		for (int i = 0; i < TokenList.size() ; i++) { //프로그램 갯수만큼
-			for(int k = 0; k < TokenList.get(i).tokenList.size(); k++) { //각 프로그램의 줄 수 만큼 돔
-				if(!TokenList.get(i).tokenList.get(k).operator.isEmpty()) { //명령어가 있는 경우 (즉, 주석 제외)
-					if(TokenList.get(i).instTab.instMap.containsKey(TokenList.get(i).tokenList.get(k).operator)) { //명령어가 inst.data파일에 있는 경우
-						if(instTable.instMap.get(TokenList.get(i).tokenList.get(k).operator).format == 2) { //2형식인 경우
-							TokenList.get(i).tokenList.get(k).byteSize = 2;
-							int tmp = instTable.instMap.get(TokenList.get(i).tokenList.get(k).operator).opcode << 8;
-							if(TokenList.get(i).tokenList.get(k).operand[0].equals("A")) {
-								tmp += 0 << 4;
-								if(lineList.get(k+1+TokenList.get(i).tokenList.size()).contains(",S")) {
-									tmp += 4;
-								}
-							}
-							else if(TokenList.get(i).tokenList.get(k).operand[0].equals("X")) {
-								tmp += 1 << 4;
-							}
-							else if(TokenList.get(i).tokenList.get(k).operand[0].equals("S")) {
-								tmp += 4 << 4;
-							}
-							else if(TokenList.get(i).tokenList.get(k).operand[0].equals("T")) {
-								tmp += 5 << 4;
-							}
-							a = String.format("%04X", tmp);
-							TokenList.get(i).tokenList.get(k).objectCode = a;
-						}
-						else{
-							TokenList.get(i).tokenList.get(k).byteSize = 3;
-							TokenList.get(i).makeObjectCode(k);
-						}
-					}
-					else if(TokenList.get(i).tokenList.get(k).operator.contains("+")) { //4형식인 경우
-						TokenList.get(i).tokenList.get(k).byteSize = 4;
-						String b = TokenList.get(i).tokenList.get(k).operator.substring(1);
-						int ob_code = instTable.instMap.get(b).opcode << 24;
-						ob_code += TokenList.get(i).tokenList.get(k).nixbpe << 20;
-						TokenList.get(i).tokenList.get(k).objectCode = String.format("%08X",ob_code);
-					}
-					if(TokenList.get(i).tokenList.get(k).operator.equals("LTORG")) {
-						TokenList.get(i).tokenList.get(k).byteSize = 3;
-						String tmp = TokenList.get(i).literalTab.label.get(0);
-						byte[] byte_str = new byte[tmp.length()];
-						for(int n = 0; n < tmp.length(); n++) {
-							byte_str[n] = (byte)tmp.charAt(n);
-						}
-						int g = byte_str[0] << 16;
-						g += byte_str[1] << 8;
-						g += byte_str[2];
-						TokenList.get(i).tokenList.get(k).objectCode = String.format("%06X", g);
-					}
-					if(TokenList.get(i).tokenList.get(k).operator.equals("BYTE")) {
-						TokenList.get(i).tokenList.get(k).byteSize = 1;
-						a = TokenList.get(i).tokenList.get(k).operand[0].split("'")[1];
-						TokenList.get(i).tokenList.get(k).objectCode = a;
+			pass2Section(TokenList.get(i));
+		}
+	}
+
+	/**
+	 * section 하나의 pass2 과정을 수행한다. section 안의 정보만 사용하므로 pass1Section()이 끝난 section부터 바로
+	 * 호출할 수 있다. section들은 순서대로 호출해야 codeList의 순서가 유지된다.
+	 * 
+	 * @param TT : pass1이 끝난 section
+	 */
+	void pass2Section(TokenTable TT) {
+		String a = null;
+		if(listing != null) {
+			listing.beginSection();
+		}
+
+		for(int k = 0; k < TT.tokenList.size(); k++) { //각 프로그램의 줄 수 만큼 돔
+			if(!TT.tokenList.get(k).operator.isEmpty()) { //명령어가 있는 경우 (즉, 주석 제외)
+				if(TT.instTab.instMap.containsKey(TT.tokenList.get(k).operator) //명령어가 inst.data파일에 있는 경우
+						|| TT.tokenList.get(k).operator.startsWith("+")) { //4형식인 경우
+					TT.makeObjectCode(k); //format 1~4 모두 InstructionEncoder로 조립
+				}
+				if(TT.tokenList.get(k).operator.equals("LTORG")) {
+					TT.tokenList.get(k).byteSize = 3;
+					String tmp = TT.literalTab.label.get(0);
+					byte[] byte_str = new byte[tmp.length()];
+					for(int n = 0; n < tmp.length(); n++) {
+						byte_str[n] = (byte)tmp.charAt(n);
 					}
-					if(TokenList.get(i).tokenList.get(k).operator.equals("WORD")) {
-						TokenList.get(i).tokenList.get(k).byteSize = 3;
-						int count = 0;
-						for(int j=0; j < TokenList.get(i).symTab.label.size(); j++) {
-							if(TokenList.get(i).symTab.label.get(j).equals(TokenList.get(i).tokenList.get(k).operand[0].split("-")[0])) {
-								count++;
-							}
-							else if(TokenList.get(i).symTab.label.get(j).equals(TokenList.get(i).tokenList.get(k).operand[0].split("-")[1])) {
-								count++;
-							}
+					int g = byte_str[0] << 16;
+					g += byte_str[1] << 8;
+					g += byte_str[2];
+					TT.tokenList.get(k).codeOffset = TT.putCode(g, 3);
+				}
+				if(TT.tokenList.get(k).operator.equals("BYTE")) {
+					a = TokenTable.constantHex(TT.tokenList.get(k).operand[0]); //C'..'는 문자 코드로 바꾼다
+					TT.tokenList.get(k).byteSize = a.length() / 2;
+					TT.tokenList.get(k).objectCode = a;
+				}
+				if(TT.tokenList.get(k).operator.equals("WORD")) {
+					TT.tokenList.get(k).byteSize = 3;
+					int count = 0;
+					for(int j=0; j < TT.symTab.label.size(); j++) {
+						if(TT.symTab.label.get(j).equals(TT.tokenList.get(k).operand[0].split("-")[0])) {
+							count++;
 						}
-						if(count == 0) { //오퍼랜드가 프로그램에 없는 경우
-							a = "000000";
-							TokenList.get(i).tokenList.get(k).objectCode = a;
+						else if(TT.symTab.label.get(j).equals(TT.tokenList.get(k).operand[0].split("-")[1])) {
+							count++;
 						}
 					}
-					if(TokenList.get(i).tokenList.get(k).operator.equals("END")) {
-						TokenList.get(i).tokenList.get(k).byteSize = 1;
-						a = TokenList.get(i).literalTab.label.get(0);
-						TokenList.get(i).tokenList.get(k).objectCode = a;
+					if(count == 0) { //오퍼랜드가 프로그램에 없는 경우
+						a = "000000";
+						TT.tokenList.get(k).objectCode = a;
 					}
 				}
-				codeList.add(TokenList.get(i).tokenList.get(k).objectCode);
+				if(TT.tokenList.get(k).operator.equals("END")) {
+					a = TT.literalHex(TT.literalTab.label.get(0));
+					TT.tokenList.get(k).byteSize = a.length() / 2;
+					TT.tokenList.get(k).objectCode = a;
+				}
 			}
+			codeList.add(TT.tokenList.get(k).objectCode);
+			if(listing != null) {
+				listing.write(TT, TT.tokenList.get(k));
+			}
+		}
+		if(estab != null) {
+			publishExternals(TT);
 		}
 	}
 
@@ -549,152 +885,194 @@ public class Assembler {
 	 * @param fileName : 저장되는 파일 이름
 	 */
 	private void printObjectCode(String fileName) {
-		int [] length = new int[TokenList.size()]; //각 프로그램별 길이 저장
 		try{
 			File file = new File(fileName);
 
-			FileWriter fw = new FileWriter(file, false) ; //파일 내용 지우고 새로 작성
+			FileOutputStream fw = new FileOutputStream(file, false) ; //파일 내용 지우고 새로 작성
+			RecordBuffer rb = new RecordBuffer();
 
 			for (int i = 0; i < TokenList.size() ; i++) {
-				//H, D, R출력 부분
-				if(TokenList.get(i).tokenList.get(TokenList.get(i).tokenList.size()-1).operator.equals("EQU")) { //프로그램 별 길이 구하기
-					length[i] = TokenList.get(i).tokenList.get(TokenList.get(i).tokenList.size()-2).location + TokenList.get(i).tokenList.get(TokenList.get(i).tokenList.size()-1).byteSize;
-				}
+				rb.clear();
+				makeObjectSection(i, rb);
+				rb.writeTo(fw);
+			}
 
-				else {
-					length[i] = TokenList.get(i).tokenList.get(TokenList.get(i).tokenList.size()-1).location + TokenList.get(i).tokenList.get(TokenList.get(i).tokenList.size()-1).byteSize;
-				}
-				fw.write("H" + String.format("%-6s", TokenList.get(i).tokenList.get(0).label) + String.format("%06X", TokenList.get(i).tokenList.get(0).location) + String.format("%06X", length[i]) + "\n");
-				fw.flush();
-				if(TokenList.get(i).symTab.extdefList.size() != 0) {
-					fw.write("D");
-					int idx = 0;
-					for(int j = 0; j < TokenList.get(i).symTab.extdefList.size(); j++) {
-						for(int k=0; k < TokenList.get(i).symTab.label.size(); k++) {
-							if(TokenList.get(i).symTab.extdefList.get(j).equals(TokenList.get(i).symTab.label.get(k))) {
-								idx = k;
-							}
-						}
-						fw.write(TokenList.get(i).symTab.extdefList.get(j) + String.format("%06X", TokenList.get(i).symTab.locationList.get(idx)));
-					}
-					fw.write("\n");
-					fw.flush();
-				}
+			fw.close();
+		}catch(Exception e){
+			e.printStackTrace();
+		}
 
-				if(TokenList.get(i).symTab.extrefList.size() != 0) {
-					fw.write("R");
-					for(int j = 0; j < TokenList.get(i).symTab.extrefList.size(); j++) {
-						if(TokenList.get(i).symTab.extrefList.get(j) != null)
-							fw.write( String.format("%-6s", TokenList.get(i).symTab.extrefList.get(j)));
-					}
-					fw.write("\n");
-				}
-				fw.flush();
-
-				//T 출력 부분
-				int line = 0;
-				int count = 0;
-				for(int j = 0; j < TokenList.get(i).tokenList.size(); j++) {
-					if(TokenList.get(i).tokenList.get(j).objectCode != null) {
-						line += TokenList.get(i).tokenList.get(j).objectCode.length();
-						if(line > 60) {
-							count++;
-							line = 0;
-							fw.write("T");
-							fw.write(String.format("%06X%02X", TokenList.get(i).tokenList.get(0).location, TokenList.get(i).tokenList.get(j).location));
-							for(int k = 0; k < j; k++) {
-								if(TokenList.get(i).tokenList.get(k).objectCode != null) {
-									if(!TokenList.get(i).tokenList.get(k).operator.equals("LTORG")) {
-										if( i == 0)
-											fw.write(String.format("%s",codeList.get(k)));
-										else
-											fw.write(String.format("%s",codeList.get(TokenList.get(i-1).tokenList.size() + k)));
-									}
-								}
-							}
-						}
-						if(count == 1) {
-							count = 2;
-							for(int k = j; k < TokenList.get(i).tokenList.size(); k++) {
-								if(TokenList.get(i).tokenList.get(k).objectCode != null)
-									if(!TokenList.get(i).tokenList.get(k).operator.equals("LTORG"))
-										line += TokenList.get(i).tokenList.get(k).objectCode.length();
-							}
-							fw.write("\nT");
-							fw.write(String.format("%06X%02X", TokenList.get(i).tokenList.get(j).location, line / 2));
-							for(int k = j; k < TokenList.get(i).tokenList.size(); k++) {
-								if(TokenList.get(i).tokenList.get(k).objectCode != null)
-									if(!TokenList.get(i).tokenList.get(k).operator.equals("LTORG")) {
-										if( i == 0)
-											fw.write(String.format("%s",codeList.get(k)));
-										else
-											fw.write(String.format("%s",codeList.get(TokenList.get(i-1).tokenList.size() + k)));
-									}
-							}
-						}
-					}
-					if(TokenList.get(i).tokenList.get(j).operator.equals("LTORG")) {
-						fw.write(String.format("\nT%06X%02X%s", TokenList.get(i).tokenList.get(j).location, TokenList.get(i).tokenList.get(j).byteSize, codeList.get(j)));
-					}
-				}
-				if(count == 0) {
-					fw.write("T");
-					fw.write(String.format("%06X%02X", TokenList.get(i).tokenList.get(0).location, line / 2));
-					for(int k = 0; k < TokenList.get(i).tokenList.size(); k++) {
-						if(TokenList.get(i).tokenList.get(k).objectCode != null) {
-							int tmp = 0;
-							for(int l = 0 ; l < i + 1; l++) {
-								tmp +=TokenList.get(i).tokenList.size();
-							}
-							tmp -= 2;
-							fw.write(String.format("%s",codeList.get(tmp + k)));
-						}
-					}
-				}
-				fw.write("\n");
-
-				//M 출력 부분
-				for(int j = 0; j < TokenList.get(i).tokenList.size(); j++) {
-					if(TokenList.get(i).tokenList.get(j).operand != null && TokenList.get(i).tokenList.get(j).operand[0] != null) {
-						for(int k = 0; k < TokenList.get(i).symTab.extrefList.size(); k++) {
-							if(TokenList.get(i).symTab.extrefList.get(k) != null) {
-								if(TokenList.get(i).tokenList.get(j).operand[0].split("-")[0].equals(TokenList.get(i).symTab.extrefList.get(k))) {
-									if(!TokenList.get(i).tokenList.get(j).operator.equals("EXTREF")) {
-										if(TokenList.get(i).tokenList.get(j).operand[0].contains("-")) {
-											if(TokenList.get(i).tokenList.get(j).operator.equals("WORD")) {
-												fw.write("M");
-												fw.write(String.format("%06X", TokenList.get(i).tokenList.get(j).location) + String.format("%02X", 06) + String.format("+%s", TokenList.get(i).tokenList.get(j).operand[0].split("-")[0]) + "\n");
-												fw.write("M");
-												fw.write(String.format("%06X", TokenList.get(i).tokenList.get(j).location) + String.format("%02X", 06) + String.format("-%s", TokenList.get(i).tokenList.get(j).operand[0].split("-")[1]) + "\n");
-												fw.flush();
-											}
-										}
-										else {
-											fw.write("M");
-											fw.write(String.format("%06X", TokenList.get(i).tokenList.get(j).location+1) + String.format("%02X", 05) + String.format("+%s", TokenList.get(i).tokenList.get(j).operand[0]) + "\n");
-										}
-									}
-								}
-							}
-						}
-					}
-				}
+	}
 
-				//E 출력 부분
-				fw.write("E");
-				for(int j = 0; j < TokenList.get(i).tokenList.size(); j++) {
-					if(TokenList.get(i).tokenList.get(j).operator.equals("START")) {
-						fw.write(String.format("%06X", TokenList.get(i).tokenList.get(j).location));
-					}
+	/**
+	 * section 번호로 getSectionLength(TokenTable, ...)을 호출한다.
+	 */
+	int getSectionLength(int i) {
+		return getSectionLength(TokenList.get(i));
+	}
+
+	/**
+	 * section의 프로그램 길이를 구한다.
+	 * 
+	 * @param TT : pass2가 끝난 section
+	 * @return : H 레코드에 기록되는 프로그램 길이
+	 */
+	int getSectionLength(TokenTable TT) {
+		if(TT.tokenList.get(TT.tokenList.size()-1).operator.equals("EQU")) { //프로그램 별 길이 구하기
+			return TT.tokenList.get(TT.tokenList.size()-2).location + TT.tokenList.get(TT.tokenList.size()-1).byteSize;
+		}
+		else {
+			return TT.tokenList.get(TT.tokenList.size()-1).location + TT.tokenList.get(TT.tokenList.size()-1).byteSize;
+		}
+	}
+
+	/**
+	 * section의 이름과 EXTDEF symbol을 공용 external symbol table에 등록하고, EXTREF symbol로 table을 조회한다.
+	 * section 길이가 필요하므로 pass2가 section을 끝낸 뒤에 호출한다. section 안에 정의가 없는 EXTDEF는 정의로 등록하지
+	 * 않고 오류로 기록한다.
+	 * 
+	 * @param TT : pass2가 끝난 section
+	 */
+	void publishExternals(TokenTable TT) {
+		String section = TT.tokenList.get(0).label;
+		estab.defineSection(module, publishedSections++, section, getSectionLength(TT));
+		for(String name : TT.symTab.extdefList) {
+			if(name == null) {
+				continue;
+			}
+			if(TT.symTab.label.contains(name)) {
+				estab.define(module, section, name, TT.symTab.search(name));
+			}
+			else {
+				estab.undefined(module, section, name);
+			}
+		}
+		for(String name : TT.symTab.extrefList) {
+			if(name != null) {
+				estab.reference(module, section, name);
+			}
+		}
+	}
+
+	/**
+	 * section 번호로 makeObjectSection(TokenTable, ...)을 호출한다.
+	 */
+	void makeObjectSection(int i, RecordBuffer sb) {
+		makeObjectSection(TokenList.get(i), sb);
+	}
+
+	/**
+	 * section 하나의 H, D, R, T, M, E 레코드를 printObjectCode()의 출력 형태로 만든다.
+	 * pass2가 끝난 뒤에는 공유 데이터를 읽기만 하므로 여러 section을 동시에 만들어도 된다.
+	 * 
+	 * @param TT : pass2가 끝난 section
+	 * @param sb : 출력 내용을 기록할 버퍼
+	 */
+	void makeObjectSection(TokenTable TT, RecordBuffer sb) {
+		ObjectProgram.writeSection(makeObjectSection(TT), sb);
+	}
+
+	/**
+	 * section 하나의 H, D, R, T, M, E 레코드를 ObjectSection으로 만든다. 텍스트 출력과 binary 출력이 모두 이 결과를
+	 * 사용한다.
+	 * 
+	 * @param TT : pass2가 끝난 section
+	 * @return : section의 레코드 정보
+	 */
+	ObjectSection makeObjectSection(TokenTable TT) {
+		ObjectSection section = new ObjectSection();
+		//H, D, R 부분
+		section.name = TT.tokenList.get(0).label;
+		section.start = TT.tokenList.get(0).location;
+		section.length = getSectionLength(TT); //프로그램 길이 저장
+		for(int j = 0; j < TT.symTab.extdefList.size(); j++) {
+			String name = TT.symTab.extdefList.get(j);
+			if(name != null) {
+				section.defNames.add(name);
+				section.defAddrs.add(TT.symTab.search(name));
+			}
+		}
+		for(int j = 0; j < TT.symTab.extrefList.size(); j++) {
+			if(TT.symTab.extrefList.get(j) != null) {
+				section.refNames.add(TT.symTab.extrefList.get(j));
+			}
+		}
+
+		//T 부분
+		TextRecordPacker packer = new TextRecordPacker(section, textRecordLength, textRecordBoundary);
+		for(int j = 0; j < TT.tokenList.size(); j++) {
+			Token token = TT.getToken(j);
+			if(token.codeOffset >= 0) {
+				packer.add(token.location, TT.codeBuffer, token.codeOffset, token.byteSize);
+			}
+			else if(token.objectCode != null) {
+				packer.addHex(token.location, token.objectCode);
+			}
+		}
+		packer.flush();
+
+		//M 부분
+		for(int j = 0; j < TT.tokenList.size(); j++) {
+			Token token = TT.tokenList.get(j);
+			if(token.relocate && token.codeOffset >= 0) { //section 안의 주소를 사용한 format 4 명령어
+				addModification(section, token.location + 1, 5, "+" + section.name);
+				continue;
+			}
+			if(token.operand == null || token.operand[0] == null || token.operator.equals("EXTREF")) {
+				continue;
+			}
+			String[] term = token.operand[0].split("-");
+			if(!TT.symTab.extrefList.contains(term[0])) {
+				continue;
+			}
+			if(token.operand[0].contains("-")) {
+				if(token.operator.equals("WORD")) {
+					addModification(section, token.location, 6, "+" + term[0]);
+					addModification(section, token.location, 6, "-" + term[1]);
 				}
-				fw.write("\n\n");
-				fw.flush();
 			}
+			else {
+				addModification(section, token.location + 1, 5, "+" + token.operand[0]);
+			}
+		}
 
-			fw.close();
-		}catch(Exception e){
-			e.printStackTrace();
+		//E 부분
+		for(int j = 0; j < TT.tokenList.size(); j++) {
+			if(TT.tokenList.get(j).operator.equals("START")) {
+				section.entry = TT.tokenList.get(j).location;
+			}
 		}
+		return section;
+	}
 
+	static void addModification(ObjectSection section, int address, int length, String symbol) {
+		section.modAddrs.add(address);
+		section.modLengths.add(length);
+		section.modSymbols.add(symbol);
+	}
+
+	/**
+	 * pass2가 끝난 모든 section으로 ObjectProgram을 만든다.
+	 */
+	ObjectProgram makeObjectProgram() {
+		ObjectProgram program = new ObjectProgram();
+		for(TokenTable TT : TokenList) {
+			program.sectionList.add(makeObjectSection(TT));
+		}
+		return program;
+	}
+
+	/**
+	 * pass2가 끝난 section들을 binary object 형식(BinaryObjectFile 참고)으로 출력한다. 텍스트 파일을 다시 읽지 않고
+	 * 메모리의 TokenTable과 codeBuffer에서 바로 만든다.
+	 * 
+	 * @param fileName : 저장되는 파일 이름
+	 */
+	private void printBinaryObjectCode(String fileName) {
+		try {
+			BinaryObjectFile.write(makeObjectProgram(), fileName);
+		}catch(IOException e){
+			System.out.println("Error: " + e);
+		}
 	}
 }
@@ -0,0 +1,92 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 여러 input 파일을 동시에 어셈블하는 batch 빌드.
+ *
+ * 파일마다 별도의 Assembler가 병렬로 동작하며, 같은 InstTable을 공유하고 section 하나를 끝낼 때마다 그 control
+ * section과 EXTDEF를 공용 ExternalSymbolTable에 등록하고 EXTREF로 조회한다. 모든 파일이 끝나면 해결되지 않은 참조와 중복 정의를 보고하고 ESTAB을 출력하므로,
+ * 적재 전에 object 파일들을 다시 읽어 검사할 필요가 없다.
+ *
+ * 출력 파일 이름은 input 파일과 같은 디렉토리의 output_이름.txt, symtab_이름.txt, literaltab_이름.txt 이다.
+ */
+public class BatchAssembler {
+	InstTable instTable;
+	/** 모든 어셈블 작업이 공유하는 external symbol table */
+	ExternalSymbolTable estab;
+
+	public BatchAssembler(InstTable instTable) {
+		this.instTable = instTable;
+		estab = new ExternalSymbolTable();
+	}
+
+	/**
+	 * input 파일들을 병렬로 어셈블하고 ESTAB을 출력한다.
+	 *
+	 * @param inputFiles : 어셈블할 input 파일 이름들
+	 * @param estabFile  : ESTAB을 저장할 파일 이름
+	 * @return : 발견된 external symbol 문제의 수
+	 */
+	public int run(List<String> inputFiles, String estabFile) throws InterruptedException {
+		for(String inputFile : inputFiles) {
+			estab.registerModule(inputFile);
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(inputFiles.size(), Runtime.getRuntime().availableProcessors())));
+		try {
+			ArrayList<Future<?>> futureList = new ArrayList<Future<?>>();
+			for(final String inputFile : inputFiles) {
+				futureList.add(executor.submit(() -> assembleFile(inputFile)));
+			}
+			for(int i = 0; i < futureList.size(); i++) {
+				try {
+					futureList.get(i).get();
+				}
+				catch(ExecutionException e) {
+					System.out.println("Error: " + inputFiles.get(i) + ": " + e.getCause());
+				}
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+
+		int problems = estab.report();
+		try {
+			estab.export(estabFile);
+		}
+		catch(IOException e) {
+			System.out.println("Error: " + e);
+		}
+		return problems;
+	}
+
+	/**
+	 * 파일 하나를 어셈블하고 출력한다. external symbol은 pass2가 section을 끝낼 때마다 ESTAB에 등록된다.
+	 */
+	void assembleFile(String inputFile) {
+		Assembler assembler = new Assembler(instTable);
+		assembler.estab = estab;
+		assembler.module = inputFile;
+		assembler.assemble(inputFile);
+		new OutputStage(assembler).printAll(outputName("output_", inputFile), outputName("symtab_", inputFile), outputName("literaltab_", inputFile));
+	}
+
+	/**
+	 * input 파일 이름에서 출력 파일 이름을 만든다. (예: src/copy.asm -> src/output_copy.txt)
+	 */
+	static String outputName(String prefix, String inputFile) {
+		File file = new File(inputFile);
+		String name = file.getName();
+		int dot = name.lastIndexOf('.');
+		if(dot > 0) {
+			name = name.substring(0, dot);
+		}
+		return new File(file.getParentFile(), prefix + name + ".txt").getPath();
+	}
+}
@@ -0,0 +1,429 @@
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * 텍스트 object program을 대신하는 binary object 파일 형식을 정의하고, 읽기/쓰기와 텍스트 형식과의 변환을 제공한다.
+ *
+ * 모든 값은 big-endian이며, 각 영역은 길이와 오프셋이 앞에 기록되어 있으므로 파일을 memory-map 한 뒤 파싱 없이
+ * 원하는 section, symbol에 바로 접근할 수 있다.
+ *
+ * <pre>
+ * 파일 헤더   : magic "SXOB", version(short), reserved(short), section 수, string pool 오프셋, string pool 길이,
+ *               파일 전체 길이, section 오프셋 배열(section 수 만큼)
+ * section     : section 길이, 이름 ref, 시작 주소, 프로그램 길이, 실행 시작 주소(없으면 -1),
+ *               D 개수, R 개수, T 개수, M 개수,
+ *               D 항목 (이름 ref, 주소), R 항목 (이름 ref), T 색인 (주소 << 8 | 길이, section 기준 데이터 오프셋),
+ *               M 항목 (주소 << 8 | half-byte 길이, 부호 비트 | 이름 ref), T 데이터(raw bytes)
+ * string pool : (길이 1byte, ASCII) 의 나열. 같은 이름은 한 번만 저장되며 ref는 pool 안에서의 오프셋이다.
+ * </pre>
+ */
+public class BinaryObjectFile {
+	public static final int MAGIC = 0x53584F42; // "SXOB"
+	public static final short VERSION = 1;
+
+	static final int FILE_HEADER_SIZE = 24;
+	static final int SECTION_HEADER_SIZE = 36;
+	/** M 항목에서 symbol이 없는 경우의 이름 ref */
+	static final int NO_SYMBOL = 0x7FFFFFFF;
+	static final int NEGATIVE = 0x80000000;
+
+	/** memory-map 되었거나 메모리에 올라와 있는 파일 내용 */
+	ByteBuffer buffer;
+
+	/**
+	 * 이미 메모리에 올라와 있는 binary object를 감싼다.
+	 *
+	 * @param buffer : binary object 내용
+	 */
+	public BinaryObjectFile(ByteBuffer buffer) {
+		this.buffer = buffer;
+		if(buffer.getInt(0) != MAGIC || buffer.getShort(4) != VERSION) {
+			throw new IllegalArgumentException("not a binary object file");
+		}
+	}
+
+	/**
+	 * binary object 파일을 memory-map 하여 연다.
+	 *
+	 * @param fileName : binary object 파일 이름
+	 */
+	public static BinaryObjectFile open(String fileName) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(fileName, "r");
+		try {
+			FileChannel channel = file.getChannel();
+			return new BinaryObjectFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+		finally {
+			file.close();
+		}
+	}
+
+	public int sectionCount() {
+		return buffer.getInt(8);
+	}
+
+	int sectionOffset(int section) {
+		return buffer.getInt(FILE_HEADER_SIZE + section * 4);
+	}
+
+	/**
+	 * string pool에서 ref에 해당하는 문자열을 꺼낸다.
+	 */
+	String poolString(int ref) {
+		int pos = buffer.getInt(12) + ref;
+		int len = buffer.get(pos) & 0xFF;
+		char[] chars = new char[len];
+		for(int i = 0; i < len; i++) {
+			chars[i] = (char)(buffer.get(pos + 1 + i) & 0xFF);
+		}
+		return new String(chars);
+	}
+
+	/**
+	 * string pool의 ref 위치 문자열이 name과 같은지 문자열을 만들지 않고 비교한다.
+	 */
+	boolean poolEquals(int ref, String name) {
+		int pos = buffer.getInt(12) + ref;
+		int len = buffer.get(pos) & 0xFF;
+		if(len != name.length()) {
+			return false;
+		}
+		for(int i = 0; i < len; i++) {
+			if((buffer.get(pos + 1 + i) & 0xFF) != name.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public String sectionName(int section) {
+		return poolString(buffer.getInt(sectionOffset(section) + 4));
+	}
+
+	public int sectionStart(int section) {
+		return buffer.getInt(sectionOffset(section) + 8);
+	}
+
+	public int sectionLength(int section) {
+		return buffer.getInt(sectionOffset(section) + 12);
+	}
+
+	/** @return : E 레코드의 실행 시작 주소. 없으면 -1 */
+	public int entryPoint(int section) {
+		return buffer.getInt(sectionOffset(section) + 16);
+	}
+
+	public int defCount(int section) {
+		return buffer.getInt(sectionOffset(section) + 20);
+	}
+
+	public int refCount(int section) {
+		return buffer.getInt(sectionOffset(section) + 24);
+	}
+
+	public int textCount(int section) {
+		return buffer.getInt(sectionOffset(section) + 28);
+	}
+
+	public int modCount(int section) {
+		return buffer.getInt(sectionOffset(section) + 32);
+	}
+
+	int defBase(int section) {
+		return sectionOffset(section) + SECTION_HEADER_SIZE;
+	}
+
+	int refBase(int section) {
+		return defBase(section) + defCount(section) * 8;
+	}
+
+	int textBase(int section) {
+		return refBase(section) + refCount(section) * 4;
+	}
+
+	int modBase(int section) {
+		return textBase(section) + textCount(section) * 8;
+	}
+
+	public String defName(int section, int index) {
+		return poolString(buffer.getInt(defBase(section) + index * 8));
+	}
+
+	public int defAddress(int section, int index) {
+		return buffer.getInt(defBase(section) + index * 8 + 4);
+	}
+
+	public String refName(int section, int index) {
+		return poolString(buffer.getInt(refBase(section) + index * 4));
+	}
+
+	public int textAddress(int section, int index) {
+		return buffer.getInt(textBase(section) + index * 8) >>> 8;
+	}
+
+	public int textLength(int section, int index) {
+		return buffer.getInt(textBase(section) + index * 8) & 0xFF;
+	}
+
+	/**
+	 * T 레코드의 코드 바이트를 복사 없이 돌려준다.
+	 *
+	 * @return : 해당 T 레코드의 코드만을 담은 read-only ByteBuffer
+	 */
+	public ByteBuffer textBytes(int section, int index) {
+		int pos = sectionOffset(section) + buffer.getInt(textBase(section) + index * 8 + 4);
+		ByteBuffer dup = buffer.asReadOnlyBuffer();
+		dup.position(pos);
+		dup.limit(pos + textLength(section, index));
+		return dup.slice();
+	}
+
+	public int modAddress(int section, int index) {
+		return buffer.getInt(modBase(section) + index * 8) >>> 8;
+	}
+
+	/** @return : 수정할 길이 (half-byte 단위) */
+	public int modLength(int section, int index) {
+		return buffer.getInt(modBase(section) + index * 8) & 0xFF;
+	}
+
+	public boolean modNegative(int section, int index) {
+		return (buffer.getInt(modBase(section) + index * 8 + 4) & NEGATIVE) != 0;
+	}
+
+	/** @return : 수정에 사용할 symbol 이름. 없으면 null */
+	public String modSymbol(int section, int index) {
+		int ref = buffer.getInt(modBase(section) + index * 8 + 4) & ~NEGATIVE;
+		return ref == NO_SYMBOL ? null : poolString(ref);
+	}
+
+	/**
+	 * 이름으로 section을 찾는다.
+	 *
+	 * @return : section 번호. 없으면 -1
+	 */
+	public int findSection(String name) {
+		for(int i = 0; i < sectionCount(); i++) {
+			if(poolEquals(buffer.getInt(sectionOffset(i) + 4), name)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * 모든 section의 D 레코드에서 external symbol을 찾는다.
+	 *
+	 * @return : section 안에서의 주소. 없으면 -1
+	 */
+	public int findDefinition(String name) {
+		for(int i = 0; i < sectionCount(); i++) {
+			int base = defBase(i);
+			for(int j = 0; j < defCount(i); j++) {
+				if(poolEquals(buffer.getInt(base + j * 8), name)) {
+					return buffer.getInt(base + j * 8 + 4);
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * binary object의 내용을 텍스트 형식 변환이 가능한 ObjectProgram으로 옮긴다.
+	 */
+	public ObjectProgram toObjectProgram() {
+		ObjectProgram program = new ObjectProgram();
+		for(int i = 0; i < sectionCount(); i++) {
+			ObjectSection section = new ObjectSection();
+			section.name = sectionName(i);
+			section.start = sectionStart(i);
+			section.length = sectionLength(i);
+			section.entry = entryPoint(i);
+			for(int j = 0; j < defCount(i); j++) {
+				section.defNames.add(defName(i, j));
+				section.defAddrs.add(defAddress(i, j));
+			}
+			for(int j = 0; j < refCount(i); j++) {
+				section.refNames.add(refName(i, j));
+			}
+			for(int j = 0; j < textCount(i); j++) {
+				byte[] code = new byte[textLength(i, j)];
+				textBytes(i, j).get(code);
+				section.textAddrs.add(textAddress(i, j));
+				section.textCodes.add(code);
+			}
+			for(int j = 0; j < modCount(i); j++) {
+				String symbol = modSymbol(i, j);
+				section.modAddrs.add(modAddress(i, j));
+				section.modLengths.add(modLength(i, j));
+				section.modSymbols.add(symbol == null ? "" : (modNegative(i, j) ? "-" : "+") + symbol);
+			}
+			program.sectionList.add(section);
+		}
+		return program;
+	}
+
+	/**
+	 * ObjectProgram을 binary object 형식으로 인코딩한다.
+	 *
+	 * @param program : 인코딩할 object program
+	 * @return : binary object 내용. position은 0, limit은 파일 길이이다.
+	 */
+	public static ByteBuffer encode(ObjectProgram program) {
+		// string pool 구성 : 같은 이름은 한 번만 저장한다.
+		HashMap<String, Integer> poolMap = new HashMap<String, Integer>();
+		ArrayList<String> poolList = new ArrayList<String>();
+		int poolLength = 0;
+		int[] sectionSize = new int[program.sectionList.size()];
+		for(int i = 0; i < program.sectionList.size(); i++) {
+			ObjectSection section = program.sectionList.get(i);
+			poolLength = intern(poolMap, poolList, poolLength, section.name);
+			for(String name : section.defNames) {
+				poolLength = intern(poolMap, poolList, poolLength, name);
+			}
+			for(String name : section.refNames) {
+				poolLength = intern(poolMap, poolList, poolLength, name);
+			}
+			int dataLength = 0;
+			for(byte[] code : section.textCodes) {
+				dataLength += code.length;
+			}
+			for(String symbol : section.modSymbols) {
+				if(!symbol.isEmpty()) {
+					poolLength = intern(poolMap, poolList, poolLength, modName(symbol));
+				}
+			}
+			sectionSize[i] = SECTION_HEADER_SIZE + section.defNames.size() * 8 + section.refNames.size() * 4
+					+ section.textAddrs.size() * 8 + section.modAddrs.size() * 8 + dataLength;
+		}
+
+		int offset = FILE_HEADER_SIZE + program.sectionList.size() * 4;
+		int poolOffset = offset;
+		for(int size : sectionSize) {
+			poolOffset += size;
+		}
+		ByteBuffer buf = ByteBuffer.allocate(poolOffset + poolLength);
+		buf.putInt(MAGIC).putShort(VERSION).putShort((short)0);
+		buf.putInt(program.sectionList.size()).putInt(poolOffset).putInt(poolLength).putInt(poolOffset + poolLength);
+		for(int size : sectionSize) {
+			buf.putInt(offset);
+			offset += size;
+		}
+
+		for(int i = 0; i < program.sectionList.size(); i++) {
+			ObjectSection section = program.sectionList.get(i);
+			buf.putInt(sectionSize[i]).putInt(poolMap.get(section.name)).putInt(section.start).putInt(section.length).putInt(section.entry);
+			buf.putInt(section.defNames.size()).putInt(section.refNames.size()).putInt(section.textAddrs.size()).putInt(section.modAddrs.size());
+			for(int j = 0; j < section.defNames.size(); j++) {
+				buf.putInt(poolMap.get(section.defNames.get(j))).putInt(section.defAddrs.get(j));
+			}
+			for(int j = 0; j < section.refNames.size(); j++) {
+				buf.putInt(poolMap.get(section.refNames.get(j)));
+			}
+			int dataOffset = SECTION_HEADER_SIZE + section.defNames.size() * 8 + section.refNames.size() * 4
+					+ section.textAddrs.size() * 8 + section.modAddrs.size() * 8;
+			for(int j = 0; j < section.textAddrs.size(); j++) {
+				int len = section.textCodes.get(j).length;
+				if(len > 0xFF) {
+					throw new IllegalArgumentException("T record too long: " + len);
+				}
+				buf.putInt(section.textAddrs.get(j) << 8 | len).putInt(dataOffset);
+				dataOffset += len;
+			}
+			for(int j = 0; j < section.modAddrs.size(); j++) {
+				String symbol = section.modSymbols.get(j);
+				int ref = NO_SYMBOL;
+				if(!symbol.isEmpty()) {
+					ref = poolMap.get(modName(symbol));
+					if(symbol.charAt(0) == '-') {
+						ref |= NEGATIVE;
+					}
+				}
+				buf.putInt(section.modAddrs.get(j) << 8 | section.modLengths.get(j)).putInt(ref);
+			}
+			for(byte[] code : section.textCodes) {
+				buf.put(code);
+			}
+		}
+
+		for(String name : poolList) {
+			buf.put((byte)name.length());
+			for(int i = 0; i < name.length(); i++) {
+				buf.put((byte)name.charAt(i));
+			}
+		}
+		buf.flip();
+		return buf;
+	}
+
+	/**
+	 * M 레코드의 symbol 표기("+RDREC", "-BUFFER")에서 부호를 뗀 이름을 돌려준다.
+	 */
+	static String modName(String symbol) {
+		char sign = symbol.charAt(0);
+		return (sign == '+' || sign == '-') ? symbol.substring(1) : symbol;
+	}
+
+	static int intern(HashMap<String, Integer> poolMap, ArrayList<String> poolList, int poolLength, String name) {
+		if(poolMap.containsKey(name)) {
+			return poolLength;
+		}
+		if(name.length() > 0xFF) {
+			throw new IllegalArgumentException("name too long: " + name);
+		}
+		poolMap.put(name, poolLength);
+		poolList.add(name);
+		return poolLength + 1 + name.length();
+	}
+
+	/**
+	 * ObjectProgram을 binary object 파일로 저장한다.
+	 *
+	 * @param program  : 저장할 object program
+	 * @param fileName : 저장되는 파일 이름
+	 */
+	public static void write(ObjectProgram program, String fileName) throws IOException {
+		ByteBuffer buf = encode(program);
+		RandomAccessFile file = new RandomAccessFile(fileName, "rw");
+		try {
+			file.setLength(0);
+			FileChannel channel = file.getChannel();
+			while(buf.hasRemaining()) {
+				channel.write(buf);
+			}
+		}
+		finally {
+			file.close();
+		}
+	}
+
+	/**
+	 * 텍스트 형식과 binary 형식 사이의 변환기.
+	 *
+	 * 사용 예 : java BinaryObjectFile -tobin output.txt output.obj 또는 java BinaryObjectFile -totext output.obj output.txt
+	 */
+	public static void main(String[] args) {
+		if(args.length != 3) {
+			System.out.println("usage: BinaryObjectFile -tobin|-totext <input> <output>");
+			return;
+		}
+		try {
+			if(args[0].equals("-tobin")) {
+				write(ObjectProgram.readText(args[1]), args[2]);
+			}
+			else if(args[0].equals("-totext")) {
+				open(args[1]).toObjectProgram().writeText(args[2]);
+			}
+			else {
+				System.out.println("unknown option: " + args[0]);
+			}
+		}
+		catch(IOException e) {
+			System.out.println("Error: " + e);
+		}
+	}
+}
@@ -0,0 +1,210 @@
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * section별로 각 symbol이 정의된 줄과 사용된 줄을 기록하는 cross-reference 색인.
+ *
+ * pass1이 section 하나를 끝낼 때마다 addSection()으로 그 section의 Token들을 한 번 훑어 채운다. 정의는 label이 붙은
+ * 줄과 literal이 놓이는 LTORG, END 줄이다. 사용은 명령어와 WORD, EQU, BASE, END의 operand, 그리고 EXTDEF, EXTREF에
+ * 적힌 이름이다. 줄 번호는 Token.line이며, 한 symbol의 줄 번호들은 int 배열 하나에 순서대로 쌓인다. 따라서 조회는 HashMap
+ * 검색 한 번이고 소스를 다시 읽지 않는다.
+ */
+public class CrossReference {
+	/** 순서대로 추가된 section 이름 */
+	ArrayList<String> sectionNames;
+	/** section별 symbol 색인. sectionNames와 같은 순서이다. */
+	ArrayList<HashMap<String, Posting>> sections;
+	/** section별로 symbol이 처음 나온 순서. 출력에 사용한다. */
+	ArrayList<ArrayList<Posting>> orders;
+	/** symbol이 나오는 section 이름들 */
+	HashMap<String, ArrayList<String>> sectionsBySymbol;
+	/** format 2 명령어(operand가 register)를 구분하는 데 사용한다. */
+	InstTable instTable;
+
+	public CrossReference(InstTable instTable) {
+		this.instTable = instTable;
+		sectionNames = new ArrayList<String>();
+		sections = new ArrayList<HashMap<String, Posting>>();
+		orders = new ArrayList<ArrayList<Posting>>();
+		sectionsBySymbol = new HashMap<String, ArrayList<String>>();
+	}
+
+	/**
+	 * pass1이 끝난 section 하나를 색인에 추가한다. section 순서대로 호출해야 한다.
+	 *
+	 * @param TT : pass1이 끝난 section
+	 */
+	public void addSection(TokenTable TT) {
+		String name = TT.tokenList.isEmpty() ? "" : TT.getToken(0).label;
+		sectionNames.add(name);
+		sections.add(new HashMap<String, Posting>());
+		orders.add(new ArrayList<Posting>());
+
+		ArrayList<String> pool = new ArrayList<String>(); //아직 LTORG, END를 만나지 않은 literal
+		for(Token token : TT.tokenList) {
+			if(token.operator.isEmpty()) { //주석
+				continue;
+			}
+			if(!token.label.isEmpty()) {
+				posting(token.label).define(token.line);
+			}
+			String operator = token.operator.startsWith("+") ? token.operator.substring(1) : token.operator;
+			Instruction inst = instTable.instMap.get(operator);
+			if(inst != null) {
+				if(inst.format != 2 && token.operand != null && token.operand[0] != null) {
+					String operand = token.operand[0];
+					if(operand.startsWith("#") || operand.startsWith("@")) {
+						operand = operand.substring(1);
+					}
+					if(operand.startsWith("=")) {
+						posting(operand).reference(token.line);
+						if(!pool.contains(operand)) {
+							pool.add(operand);
+						}
+					}
+					else {
+						referenceExpression(operand, token.line);
+					}
+				}
+			}
+			else if(operator.equals("EXTDEF") || operator.equals("EXTREF")) {
+				for(int i = 0; token.operand != null && i < token.operand.length && token.operand[i] != null; i++) {
+					referenceExpression(token.operand[i], token.line);
+				}
+			}
+			else if(operator.equals("WORD") || operator.equals("EQU") || operator.equals("BASE")
+					|| operator.equals("END")) {
+				if(token.operand != null && token.operand[0] != null) {
+					referenceExpression(token.operand[0], token.line);
+				}
+			}
+			if(operator.equals("LTORG") || operator.equals("END")) {
+				for(String literal : pool) {
+					posting(literal).define(token.line);
+				}
+				pool.clear();
+			}
+		}
+	}
+
+	/**
+	 * 식(예: BUFEND-BUFFER)에 들어있는 symbol들을 사용으로 기록한다. 숫자와 *는 건너뛴다.
+	 */
+	void referenceExpression(String expression, int line) {
+		int start = 0;
+		for(int i = 0; i <= expression.length(); i++) {
+			if(i == expression.length() || "+-*/".indexOf(expression.charAt(i)) != -1) {
+				if(i > start && Character.isLetter(expression.charAt(start))) {
+					posting(expression.substring(start, i)).reference(line);
+				}
+				start = i + 1;
+			}
+		}
+	}
+
+	/**
+	 * 마지막으로 추가된 section에서 symbol의 Posting을 찾고, 없으면 만든다.
+	 */
+	Posting posting(String symbol) {
+		HashMap<String, Posting> section = sections.get(sections.size() - 1);
+		Posting posting = section.get(symbol);
+		if(posting == null) {
+			posting = new Posting(symbol);
+			section.put(symbol, posting);
+			orders.get(orders.size() - 1).add(posting);
+			ArrayList<String> names = sectionsBySymbol.get(symbol);
+			if(names == null) {
+				names = new ArrayList<String>();
+				sectionsBySymbol.put(symbol, names);
+			}
+			names.add(sectionNames.get(sectionNames.size() - 1));
+		}
+		return posting;
+	}
+
+	/**
+	 * section 안에서 symbol의 Posting을 찾는다.
+	 *
+	 * @return : 찾은 Posting. section이나 symbol이 없으면 null
+	 */
+	public Posting find(String section, String symbol) {
+		int index = sectionNames.indexOf(section);
+		return index < 0 ? null : sections.get(index).get(symbol);
+	}
+
+	/**
+	 * section 안에서 symbol이 정의된 줄 번호들을 리턴한다. 없으면 빈 배열
+	 */
+	public int[] definitions(String section, String symbol) {
+		Posting posting = find(section, symbol);
+		return posting == null ? new int[0] : posting.definitions();
+	}
+
+	/**
+	 * section 안에서 symbol이 사용된 줄 번호들을 리턴한다. 없으면 빈 배열
+	 */
+	public int[] references(String section, String symbol) {
+		Posting posting = find(section, symbol);
+		return posting == null ? new int[0] : posting.references();
+	}
+
+	/**
+	 * symbol이 정의되거나 사용된 section 이름들을 순서대로 리턴한다. 없으면 빈 목록
+	 */
+	public ArrayList<String> sectionsOf(String symbol) {
+		ArrayList<String> names = sectionsBySymbol.get(symbol);
+		return names == null ? new ArrayList<String>() : new ArrayList<String>(names);
+	}
+
+	/**
+	 * 색인을 파일로 출력한다. section마다 이름 줄 뒤에 "symbol\t정의한 줄\t사용한 줄" 형태로 한 줄씩 쓰며, 줄 번호는
+	 * ','로 구분하고 없으면 '-'로 쓴다. section 사이에는 빈 줄을 넣는다.
+	 *
+	 * @param fileName : 저장되는 파일 이름
+	 */
+	public void print(String fileName) {
+		try {
+			FileOutputStream out = new FileOutputStream(fileName, false);
+			write(out);
+			out.close();
+		}
+		catch(IOException e) {
+			System.out.println("Error: " + e);
+		}
+	}
+
+	/**
+	 * print()와 같은 내용을 out에 기록한다. out은 닫지 않는다.
+	 */
+	public void write(OutputStream out) throws IOException {
+		RecordBuffer rb = new RecordBuffer();
+		for(int i = 0; i < sectionNames.size(); i++) {
+			rb.clear();
+			rb.append(sectionNames.get(i)).append('\n');
+			for(Posting posting : orders.get(i)) {
+				rb.append(posting.symbol).append('\t');
+				appendLines(rb, posting.defs, posting.defCount);
+				rb.append('\t');
+				appendLines(rb, posting.refs, posting.refCount);
+				rb.append('\n');
+			}
+			rb.append('\n');
+			rb.writeTo(out);
+		}
+	}
+
+	static void appendLines(RecordBuffer rb, int[] lines, int count) {
+		if(count == 0) {
+			rb.append('-');
+		}
+		for(int i = 0; i < count; i++) {
+			if(i > 0) {
+				rb.append(',');
+			}
+			rb.append(Integer.toString(lines[i]));
+		}
+	}
+}
@@ -0,0 +1,541 @@
+import java.io.BufferedReader;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * object code를 어셈블리 소스 형태로 되돌리는 disassembler.
+ *
+ * 텍스트 object program은 한 번만 읽으며, section 하나의 레코드만 메모리에 모아 두었다가 E 레코드를 만나면 그 section을
+ * 출력하고 버린다. 명령어는 InstTable.opcodeIndex로 첫 byte에서 바로 찾고, nixbpe에 따라 #, @, +, ,X 를 붙인다.
+ * D 레코드의 symbol은 label과 operand 이름으로, M 레코드가 가리키는 필드는 R 레코드의 symbol 이름으로 표시한다.
+ * T 레코드 사이의 빈 공간은 RESB로 출력한다.
+ *
+ * section을 출력하기 전에 한 번 훑어서, 명령어가 data로 사용하는 주소(LDA, TD 등의 operand와 간접 주소)와 jump 대상
+ * 주소를 모은다. data 주소에 도달하거나 명령어로 해석할 수 없는 byte를 만나면 다음 jump 대상(또는 section 시작, E
+ * 레코드의 시작 주소)까지를 BYTE/WORD로 출력하므로, literal pool이나 BYTE 상수가 명령어로 출력되지 않는다. END의
+ * operand는 E 레코드의 시작 주소이다.
+ *
+ * 출력 한 줄은 "주소\tobject code\tlabel\toperator\toperand" 형태이다.
+ */
+public class Disassembler {
+	/** BYTE 한 줄에 출력하는 최대 byte 수 */
+	static final int MAX_BYTES = 16;
+
+	InstTable instTable;
+	/** 출력 내용을 모아 두는 버퍼. section 하나를 출력할 때마다 비운다. */
+	RecordBuffer out;
+
+	// 현재 section의 정보
+	String name;
+	int start;
+	int length;
+	/** section 안의 주소를 index로 하는 코드 내용 */
+	byte[] image;
+	/** T 레코드가 채운 범위들 (시작, 끝) */
+	int[] ranges;
+	int rangeCount;
+	ArrayList<String> defNames;
+	ArrayList<String> refNames;
+	/** D 레코드 주소를 넣으면 symbol 이름을 리턴한다. */
+	HashMap<Integer, String> labelMap;
+	/** M 레코드의 필드 주소를 넣으면 operand로 표시할 식(예: "BUFEND-BUFFER")을 리턴한다. */
+	HashMap<Integer, String> modMap;
+	/** 명령어가 data로 사용하는 주소들 */
+	HashSet<Integer> dataTargets;
+	/** jump 대상 등 명령어가 시작하는 주소들 */
+	HashSet<Integer> codeTargets;
+	/** true이면 출력하지 않고 dataTargets, codeTargets만 모은다. */
+	boolean scanning;
+	/** code()가 지금 data 구간을 지나는 중인지 여부 */
+	boolean inData;
+	/** 첫 section의 이름. 아직 section이 없으면 null */
+	String firstName;
+	/** E 레코드의 시작 주소를 END operand로 표시한 것. 시작 주소가 없으면 null */
+	String entryName;
+	int sectionCount;
+
+	public Disassembler(InstTable instTable) {
+		this.instTable = instTable;
+		out = new RecordBuffer(1 << 16);
+		defNames = new ArrayList<String>();
+		refNames = new ArrayList<String>();
+		labelMap = new HashMap<Integer, String>();
+		modMap = new HashMap<Integer, String>();
+		dataTargets = new HashSet<Integer>();
+		codeTargets = new HashSet<Integer>();
+		ranges = new int[16];
+	}
+
+	/**
+	 * 텍스트 object program을 읽으며 section 단위로 disassemble하여 stream에 기록한다.
+	 *
+	 * @param in     : object program
+	 * @param stream : 출력 stream
+	 */
+	public void disassemble(BufferedReader in, OutputStream stream) throws IOException {
+		String line;
+		while((line = in.readLine()) != null) {
+			record(line, stream);
+		}
+		if(name != null) { //E 레코드 없이 끝난 section
+			flushSection(stream);
+		}
+		if(firstName != null) {
+			out.append("\t\t\tEND\t").append(entryName == null ? "" : entryName).append('\n');
+			out.writeTo(stream);
+			out.clear();
+		}
+	}
+
+	/**
+	 * 레코드 한 줄을 처리한다.
+	 */
+	void record(String line, OutputStream stream) throws IOException {
+		if(line.isEmpty()) {
+			return;
+		}
+		switch(line.charAt(0)) {
+		case 'H':
+			if(name != null) {
+				flushSection(stream);
+			}
+			name = line.substring(1, 7).trim();
+			start = hex(line, 7, 6);
+			length = hex(line, 13, 6);
+			if(image == null || image.length < length) {
+				image = new byte[Math.max(length, 1024)];
+			}
+			rangeCount = 0;
+			break;
+		case 'D':
+			for(int i = 1; i + 12 <= line.length(); i += 12) {
+				String def = line.substring(i, i + 6).trim();
+				defNames.add(def);
+				labelMap.put(hex(line, i + 6, 6), def);
+			}
+			break;
+		case 'R':
+			for(int i = 1; i < line.length(); i += 6) {
+				String ref = line.substring(i, Math.min(i + 6, line.length())).trim();
+				if(!ref.isEmpty()) {
+					refNames.add(ref);
+				}
+			}
+			break;
+		case 'T': {
+			int addr = hex(line, 1, 6);
+			int len = hex(line, 7, 2);
+			if(addr - start + len > image.length) {
+				image = Arrays.copyOf(image, Math.max(image.length * 2, addr - start + len));
+			}
+			for(int i = 0; i < len; i++) {
+				image[addr - start + i] = (byte)hex(line, 9 + i * 2, 2);
+			}
+			addRange(addr, addr + len);
+			break;
+		}
+		case 'M': {
+			int addr = hex(line, 1, 6);
+			String symbol = line.substring(9).trim();
+			String expr = modMap.get(addr);
+			if(expr == null) {
+				modMap.put(addr, symbol.charAt(0) == '+' ? symbol.substring(1) : symbol);
+			}
+			else {
+				modMap.put(addr, expr + symbol);
+			}
+			break;
+		}
+		case 'E':
+			if(line.length() >= 7 && entryName == null) {
+				int entry = hex(line, 1, 6);
+				codeTargets.add(entry);
+				entryName = address(entry);
+			}
+			flushSection(stream);
+			break;
+		default:
+			throw new IllegalArgumentException("unknown record: " + line);
+		}
+	}
+
+	/**
+	 * 범위를 추가한다. 앞 범위에 이어지면 합친다.
+	 */
+	void addRange(int from, int to) {
+		if(rangeCount > 0 && ranges[rangeCount * 2 - 1] == from) {
+			ranges[rangeCount * 2 - 1] = to;
+			return;
+		}
+		if(rangeCount * 2 == ranges.length) {
+			ranges = Arrays.copyOf(ranges, ranges.length * 2);
+		}
+		ranges[rangeCount * 2] = from;
+		ranges[rangeCount * 2 + 1] = to;
+		rangeCount++;
+	}
+
+	/**
+	 * 모아 둔 section 하나를 출력하고 section 정보를 비운다.
+	 */
+	void flushSection(OutputStream stream) throws IOException {
+		if(name == null) {
+			return;
+		}
+		if(firstName == null) {
+			firstName = name;
+		}
+		else {
+			out.append('\n');
+		}
+		line(start, null, name, sectionCount == 0 ? "START" : "CSECT", FieldFormat.hex(start, 1));
+		if(!defNames.isEmpty()) {
+			line(-1, null, "", "EXTDEF", String.join(",", defNames));
+		}
+		if(!refNames.isEmpty()) {
+			line(-1, null, "", "EXTREF", String.join(",", refNames));
+		}
+		codeTargets.add(start);
+		scanning = true; //출력 전에 data 주소와 jump 대상을 모은다
+		for(int r = 0; r < rangeCount; r++) {
+			code(ranges[r * 2], ranges[r * 2 + 1]);
+		}
+		scanning = false;
+		int addr = start;
+		for(int r = 0; r < rangeCount; r++) {
+			int from = ranges[r * 2];
+			int to = ranges[r * 2 + 1];
+			if(addr < from) {
+				reserve(addr, from);
+			}
+			addr = code(Math.max(addr, from), to);
+		}
+		if(addr < start + length) {
+			reserve(addr, start + length);
+		}
+		for(Integer labelAddr : labelMap.keySet()) { //section 끝을 가리키는 symbol (예: BUFEND)
+			if(labelAddr >= start + length) {
+				line(labelAddr, null, labelMap.get(labelAddr), "EQU", "*");
+			}
+		}
+		out.writeTo(stream);
+		out.clear();
+
+		name = null;
+		defNames.clear();
+		refNames.clear();
+		labelMap.clear();
+		modMap.clear();
+		dataTargets.clear();
+		codeTargets.clear();
+		sectionCount++;
+	}
+
+	/**
+	 * 코드가 없는 [from, to) 구간을 label 위치에서 나누어 RESB로 출력한다.
+	 */
+	void reserve(int from, int to) {
+		int addr = from;
+		while(addr < to) {
+			int next = addr + 1;
+			while(next < to && !labelMap.containsKey(next)) {
+				next++;
+			}
+			line(addr, null, label(addr), "RESB", Integer.toString(next - addr));
+			addr = next;
+		}
+	}
+
+	/**
+	 * [from, to) 구간의 코드를 명령어 단위로 출력한다. data 주소나 해석할 수 없는 byte부터 다음 jump 대상까지는 data로
+	 * 출력한다.
+	 *
+	 * @return : 출력이 끝난 다음 주소 (명령어가 구간 끝을 넘으면 to보다 클 수 있다)
+	 */
+	int code(int from, int to) {
+		int addr = from;
+		inData = false;
+		while(addr < to) {
+			if(codeTargets.contains(addr)) {
+				inData = false;
+			}
+			if(dataTargets.contains(addr) || modMap.containsKey(addr)) { //M 레코드가 주소 자체를 가리키면 data이다
+				inData = true;
+			}
+			int size = inData ? 0 : instruction(addr, to);
+			if(size == 0) {
+				inData = true;
+				size = data(addr, to);
+			}
+			addr += size;
+		}
+		return addr;
+	}
+
+	/**
+	 * addr의 명령어 하나를 출력한다.
+	 *
+	 * @return : 명령어 길이. 명령어로 해석할 수 없으면 0
+	 */
+	int instruction(int addr, int to) {
+		int pos = addr - start;
+		int first = image[pos] & 0xFF;
+		Instruction inst = instTable.search(first);
+		if(inst == null) {
+			return 0;
+		}
+		int ni = first & 3;
+		int size = inst.format;
+		if(inst.format == 3 && ni != 0 && addr + 1 < to && (image[pos + 1] & 0x10) != 0) {
+			size = 4;
+		}
+		if(addr + size > to) {
+			return 0;
+		}
+		for(int i = 1; i < size; i++) { //명령어 중간에 label이 있으면 명령어가 아니다
+			if(labelMap.containsKey(addr + i)) {
+				return 0;
+			}
+		}
+
+		String operator = size == 4 ? "+" + inst.inst : inst.inst;
+		String operand;
+		if(inst.format == 1) {
+			operand = "";
+		}
+		else if(inst.format == 2) {
+			operand = registers(inst, image[pos + 1] & 0xFF);
+		}
+		else {
+			operand = memoryOperand(inst, addr, pos, size, ni);
+		}
+		line(addr, hexCode(pos, size), label(addr), operator, operand);
+		return size;
+	}
+
+	/**
+	 * format 2의 레지스터 operand를 만든다.
+	 */
+	static String registers(Instruction inst, int field) {
+		int r1 = field >> 4, r2 = field & 0xF;
+		if(inst.opcode == 0xB0) { //SVC
+			return Integer.toString(r1);
+		}
+		String first = register(r1);
+		if(inst.numberOfOperand < 2) {
+			return first;
+		}
+		if(inst.opcode == 0xA4 || inst.opcode == 0xA8) { //SHIFTL, SHIFTR
+			return first + "," + (r2 + 1);
+		}
+		return first + "," + register(r2);
+	}
+
+	static String register(int r) {
+		String name = r < InstructionEncoder.REGISTER_NAMES.length ? InstructionEncoder.REGISTER_NAMES[r] : null;
+		return name == null ? Integer.toString(r) : name;
+	}
+
+	/**
+	 * format 3/4의 operand를 nixbpe에 맞는 표기로 만든다.
+	 */
+	String memoryOperand(Instruction inst, int addr, int pos, int size, int ni) {
+		if(inst.numberOfOperand == 0) {
+			return "";
+		}
+		int xbpe = (image[pos + 1] & 0xF0) >> 4;
+		String prefix = ni == 1 ? "#" : ni == 2 ? "@" : "";
+		String target;
+		if(ni == 0) { //SIC 명령어 : 15bit 주소
+			target = address((image[pos + 1] & 0x7F) << 8 | image[pos + 2] & 0xFF);
+		}
+		else if(size == 4) {
+			int field = (image[pos + 1] & 0x0F) << 16 | (image[pos + 2] & 0xFF) << 8 | image[pos + 3] & 0xFF;
+			String symbol = modMap.get(addr + 1);
+			if(symbol != null && !symbol.equals(name)) { //external symbol
+				target = symbol;
+			}
+			else { //section 안의 주소 (section 이름으로 재배치되는 경우 포함)
+				target = ni == 1 ? Integer.toString(field) : address(field);
+				mark(inst, field, ni);
+			}
+		}
+		else {
+			int disp = (image[pos + 1] & 0x0F) << 8 | image[pos + 2] & 0xFF;
+			if((xbpe & 2) != 0) { //PC-relative
+				int targetAddr = (disp << 20 >> 20) + addr + 3;
+				target = address(targetAddr);
+				mark(inst, targetAddr, ni);
+			}
+			else if((xbpe & 4) != 0) { //BASE-relative : base 값은 실행 시에 정해진다
+				target = "(B)+" + disp;
+			}
+			else {
+				target = ni == 1 ? Integer.toString(disp) : address(disp);
+				mark(inst, disp, ni);
+			}
+		}
+		return prefix + target + ((xbpe & 8) != 0 ? ",X" : "");
+	}
+
+	/**
+	 * 명령어의 operand 주소를 jump 대상 또는 data 주소로 기록한다. immediate operand는 주소가 아니므로 무시한다.
+	 *
+	 * @param target : operand가 가리키는 주소
+	 * @param ni     : n, i flag
+	 */
+	void mark(Instruction inst, int target, int ni) {
+		if(ni == 1) {
+			return;
+		}
+		if(ni == 3 && inst.inst.startsWith("J")) { //J, JEQ, JGT, JLT, JSUB
+			codeTargets.add(target);
+		}
+		else { //LDA, STA, TD 등의 operand와 간접 주소(J @RETADR의 RETADR)는 data이다
+			dataTargets.add(target);
+		}
+	}
+
+	/**
+	 * 명령어가 아닌 byte를 출력한다. M 레코드가 가리키는 3byte는 WORD로, 나머지는 label, data 주소, jump 대상 등
+	 * 다음 경계까지를 BYTE 하나로 출력한다. (한 줄에 최대 MAX_BYTES byte)
+	 *
+	 * @return : 출력한 byte 수
+	 */
+	int data(int addr, int to) {
+		int pos = addr - start;
+		String symbol = modMap.get(addr);
+		if(symbol != null && addr + 3 <= to) {
+			line(addr, hexCode(pos, 3), label(addr), "WORD", symbol);
+			return 3;
+		}
+		int size = 1;
+		while(addr + size < to && size < MAX_BYTES && !boundary(addr + size)) {
+			size++;
+		}
+		String code = hexCode(pos, size);
+		line(addr, code, label(addr), "BYTE", "X'" + code + "'");
+		return size;
+	}
+
+	/**
+	 * data를 나누어야 하는 주소인지 확인한다.
+	 */
+	boolean boundary(int addr) {
+		return labelMap.containsKey(addr) || dataTargets.contains(addr) || codeTargets.contains(addr)
+				|| modMap.containsKey(addr);
+	}
+
+	/**
+	 * 주소를 operand로 표시한다. D 레코드의 symbol이면 이름을, 아니면 16진수 주소를 리턴한다.
+	 */
+	String address(int addr) {
+		String label = labelMap.get(addr);
+		return label != null ? label : FieldFormat.hex(addr, 4);
+	}
+
+	String label(int addr) {
+		String label = labelMap.get(addr);
+		return label == null ? "" : label;
+	}
+
+	String hexCode(int pos, int size) {
+		char[] code = new char[size * 2];
+		for(int i = 0; i < size; i++) {
+			FieldFormat.putHex(code, i * 2, image[pos + i] & 0xFF, 2);
+		}
+		return new String(code);
+	}
+
+	/**
+	 * 출력 한 줄을 기록한다.
+	 *
+	 * @param addr : 주소. 주소가 없는 줄(EXTDEF 등)은 -1
+	 * @param code : object code. 없으면 null
+	 */
+	void line(int addr, String code, String label, String operator, String operand) {
+		if(scanning) {
+			return;
+		}
+		if(addr >= 0) {
+			out.appendHex(addr, 4);
+		}
+		out.append('\t');
+		if(code != null) {
+			out.append(code);
+		}
+		out.append('\t').append(label).append('\t').append(operator).append('\t').append(operand).append('\n');
+	}
+
+	/**
+	 * 메모리 image의 일부를 disassemble한다. symbol 정보가 없으므로 주소는 16진수로 표시된다.
+	 *
+	 * @param memory  : 메모리 image
+	 * @param address : disassemble을 시작할 주소 (memory의 index)
+	 * @param size    : disassemble할 byte 수
+	 * @return : 출력 내용
+	 */
+	public String disassembleImage(byte[] memory, int address, int size) {
+		name = null;
+		start = 0;
+		image = memory;
+		out.clear();
+		dataTargets.clear();
+		codeTargets.clear();
+		codeTargets.add(address);
+		scanning = true;
+		code(address, address + size);
+		scanning = false;
+		code(address, address + size);
+		String text = out.toString();
+		out.clear();
+		image = null;
+		return text;
+	}
+
+	/**
+	 * 16진수 필드를 읽는다.
+	 */
+	static int hex(String line, int pos, int width) {
+		int value = 0;
+		for(int i = pos; i < pos + width; i++) {
+			value = value << 4 | Character.digit(line.charAt(i), 16);
+		}
+		return value;
+	}
+
+	/**
+	 * 사용 예 : java Disassembler output_20171281.txt [출력 파일]
+	 * 출력 파일을 지정하지 않으면 표준 출력으로 보여준다.
+	 */
+	public static void main(String[] args) {
+		if(args.length < 1) {
+			System.out.println("usage: Disassembler <object program> [output file]");
+			return;
+		}
+		try {
+			Disassembler disassembler = new Disassembler(new InstTable("inst.data"));
+			BufferedReader in = new BufferedReader(new FileReader(args[0]), 1 << 16);
+			OutputStream stream = args.length > 1 ? new FileOutputStream(args[1], false) : System.out;
+			try {
+				disassembler.disassemble(in, stream);
+			}
+			finally {
+				in.close();
+				stream.flush();
+				if(stream != System.out) {
+					stream.close();
+				}
+			}
+		}
+		catch(IOException | RuntimeException e) {
+			System.out.println("Error: " + e);
+		}
+	}
+}
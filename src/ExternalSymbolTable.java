@@ -0,0 +1,248 @@
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 여러 파일, 여러 section을 동시에 어셈블할 때 공유하는 전역 external symbol table (ESTAB).
+ *
+ * 각 어셈블 작업은 section 하나를 끝낼 때마다 control section 이름과 EXTDEF symbol을 정의로 등록하고, EXTREF symbol로
+ * table을 바로 조회한다. 정의는 ConcurrentHashMap에 lock 없이 등록되며 먼저 등록된 정의가 유지된다. 아직 정의되지 않은
+ * 참조는 이름별 대기 목록에 남았다가 그 이름이 정의되는 순간 지워진다. 모든 작업이 끝난 뒤 report()로 남은 참조와 중복
+ * 정의, 정의가 없는 EXTDEF를 확인하고, export()로 loader가 사용하는 형태의 ESTAB을 출력한다.
+ */
+public class ExternalSymbolTable {
+	/** symbol(또는 control section) 이름을 넣으면 처음 등록된 정의를 리턴한다. */
+	ConcurrentHashMap<String, ExternalSymbol> symbolMap;
+	/** 이미 정의된 이름을 다시 정의하려 한 항목들 */
+	ConcurrentLinkedQueue<ExternalSymbol> duplicateList;
+	/** 아직 정의되지 않은 EXTREF 참조들. 이름을 넣으면 그 이름을 기다리는 참조 목록을 리턴한다. */
+	ConcurrentHashMap<String, ConcurrentLinkedQueue<ExternalSymbol>> pendingMap;
+	/** section 안에 정의가 없는 EXTDEF symbol들 */
+	ConcurrentLinkedQueue<ExternalSymbol> undefinedList;
+	/** 등록된 모든 control section과 EXTDEF 정의 (export 용) */
+	ConcurrentLinkedQueue<ExternalSymbol> definitionList;
+	/** export할 때의 module 순서 */
+	CopyOnWriteArrayList<String> moduleList;
+
+	public ExternalSymbolTable() {
+		symbolMap = new ConcurrentHashMap<String, ExternalSymbol>();
+		duplicateList = new ConcurrentLinkedQueue<ExternalSymbol>();
+		pendingMap = new ConcurrentHashMap<String, ConcurrentLinkedQueue<ExternalSymbol>>();
+		undefinedList = new ConcurrentLinkedQueue<ExternalSymbol>();
+		definitionList = new ConcurrentLinkedQueue<ExternalSymbol>();
+		moduleList = new CopyOnWriteArrayList<String>();
+	}
+
+	/**
+	 * module(input 파일)을 등록한다. export할 때 module들은 등록된 순서대로 연속해서 적재된다고 가정한다.
+	 */
+	public void registerModule(String module) {
+		moduleList.addIfAbsent(module);
+	}
+
+	/**
+	 * control section을 정의로 등록한다.
+	 *
+	 * @param module       : section이 들어있는 input 파일 이름
+	 * @param sectionIndex : 파일 안에서 section의 순서
+	 * @param section      : control section 이름
+	 * @param length       : control section 길이
+	 */
+	public void defineSection(String module, int sectionIndex, String section, int length) {
+		ExternalSymbol symbol = new ExternalSymbol(module, section, section, 0);
+		symbol.sectionIndex = sectionIndex;
+		symbol.length = length;
+		put(symbol);
+	}
+
+	/**
+	 * EXTDEF symbol을 정의로 등록한다.
+	 *
+	 * @param address : control section 안에서의 주소
+	 */
+	public void define(String module, String section, String name, int address) {
+		put(new ExternalSymbol(module, section, name, address));
+	}
+
+	/**
+	 * EXTDEF에 적혔지만 section 안에 정의가 없는 symbol을 등록한다. 정의로는 등록하지 않는다.
+	 */
+	public void undefined(String module, String section, String name) {
+		undefinedList.add(new ExternalSymbol(module, section, name, -1));
+	}
+
+	void put(ExternalSymbol symbol) {
+		definitionList.add(symbol);
+		if(symbolMap.putIfAbsent(symbol.name, symbol) != null) {
+			duplicateList.add(symbol);
+		}
+		pendingMap.remove(symbol.name); //이 이름을 기다리던 참조는 해결되었다
+	}
+
+	/**
+	 * EXTREF symbol로 table을 조회한다. 아직 정의되지 않았으면 대기 목록에 넣고, 나중에 정의가 등록되면 해결된다.
+	 * 조회와 대기 목록 추가는 이름별로 원자적으로 수행되므로 동시에 등록되는 정의를 놓치지 않는다.
+	 *
+	 * @return : 이미 정의되어 있으면 true
+	 */
+	public boolean reference(String module, String section, String name) {
+		final ExternalSymbol ref = new ExternalSymbol(module, section, name, -1);
+		final boolean[] resolved = new boolean[1];
+		pendingMap.compute(name, (key, waiting) -> {
+			if(symbolMap.containsKey(key)) {
+				resolved[0] = true;
+				return waiting;
+			}
+			if(waiting == null) {
+				waiting = new ConcurrentLinkedQueue<ExternalSymbol>();
+			}
+			waiting.add(ref);
+			return waiting;
+		});
+		return resolved[0];
+	}
+
+	/**
+	 * 이름에 해당하는 정의를 리턴한다.
+	 *
+	 * @return : 처음 등록된 정의. 없으면 null
+	 */
+	public ExternalSymbol search(String name) {
+		return symbolMap.get(name);
+	}
+
+	/**
+	 * @return : 정의를 찾을 수 없는 참조들
+	 */
+	public List<ExternalSymbol> getUnresolved() {
+		ArrayList<ExternalSymbol> unresolved = new ArrayList<ExternalSymbol>();
+		for(ConcurrentLinkedQueue<ExternalSymbol> waiting : pendingMap.values()) {
+			unresolved.addAll(waiting);
+		}
+		return unresolved;
+	}
+
+	/**
+	 * @return : section 안에 정의가 없는 EXTDEF symbol들
+	 */
+	public List<ExternalSymbol> getUndefined() {
+		return new ArrayList<ExternalSymbol>(undefinedList);
+	}
+
+	/**
+	 * @return : 두 번 이상 정의된 symbol의 두 번째 이후 정의들
+	 */
+	public List<ExternalSymbol> getDuplicates() {
+		return new ArrayList<ExternalSymbol>(duplicateList);
+	}
+
+	/**
+	 * 해결되지 않은 참조와 중복 정의, 정의가 없는 EXTDEF를 출력한다.
+	 *
+	 * @return : 발견된 문제의 수
+	 */
+	public int report() {
+		int count = 0;
+		for(ExternalSymbol ref : getUnresolved()) {
+			System.out.println("Error: unresolved external symbol " + ref.name + " referenced in " + ref.section + " (" + ref.module + ")");
+			count++;
+		}
+		for(ExternalSymbol dup : getDuplicates()) {
+			ExternalSymbol first = symbolMap.get(dup.name);
+			System.out.println("Error: duplicate external symbol " + dup.name + " in " + dup.section + " (" + dup.module
+					+ "), first defined in " + first.section + " (" + first.module + ")");
+			count++;
+		}
+		for(ExternalSymbol def : getUndefined()) {
+			System.out.println("Error: EXTDEF symbol " + def.name + " is not defined in " + def.section + " (" + def.module + ")");
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * 모든 control section이 module 등록 순서, section 순서대로 주소 0부터 연속해서 적재된다고 보고 ESTAB을 출력한다.
+	 * control section 줄은 "이름\t\t주소\t길이", symbol 줄은 "\t이름\t주소" 형태이다.
+	 *
+	 * @param fileName : 저장되는 파일 이름
+	 */
+	public void export(String fileName) throws IOException {
+		ArrayList<ExternalSymbol> sections = new ArrayList<ExternalSymbol>();
+		for(ExternalSymbol def : definitionList) {
+			if(def.length >= 0) {
+				sections.add(def);
+			}
+		}
+		Collections.sort(sections, (a, b) -> {
+			int order = Integer.compare(moduleOrder(a.module), moduleOrder(b.module));
+			if(order == 0) {
+				order = a.module.compareTo(b.module);
+			}
+			return order != 0 ? order : Integer.compare(a.sectionIndex, b.sectionIndex);
+		});
+
+		HashMap<String, ArrayList<ExternalSymbol>> defMap = new HashMap<String, ArrayList<ExternalSymbol>>();
+		for(ExternalSymbol def : definitionList) {
+			if(def.length < 0) {
+				String key = def.module + "\t" + def.section;
+				if(!defMap.containsKey(key)) {
+					defMap.put(key, new ArrayList<ExternalSymbol>());
+				}
+				defMap.get(key).add(def);
+			}
+		}
+
+		RecordBuffer rb = new RecordBuffer();
+		int csaddr = 0;
+		for(ExternalSymbol section : sections) {
+			rb.append(section.name).append("\t\t").appendHex(csaddr, 6).append('\t').appendHex(section.length, 6).append('\n');
+			ArrayList<ExternalSymbol> defs = defMap.get(section.module + "\t" + section.name);
+			if(defs != null) {
+				for(ExternalSymbol def : defs) {
+					rb.append('\t').append(def.name).append('\t').appendHex(csaddr + def.address, 6).append('\n');
+				}
+			}
+			csaddr += section.length;
+		}
+		FileOutputStream out = new FileOutputStream(fileName, false);
+		try {
+			rb.writeTo(out);
+		}
+		finally {
+			out.close();
+		}
+	}
+
+	int moduleOrder(String module) {
+		int idx = moduleList.indexOf(module);
+		return idx < 0 ? Integer.MAX_VALUE : idx;
+	}
+}
+
+/**
+ * ESTAB에 등록된 정의 또는 참조 하나.
+ */
+class ExternalSymbol {
+	String module;
+	String section;
+	String name;
+	/** control section 안에서의 주소. 참조인 경우 -1 */
+	int address;
+	/** control section 정의인 경우 section 길이, 아니면 -1 */
+	int length = -1;
+	/** control section 정의인 경우 파일 안에서의 section 순서 */
+	int sectionIndex;
+
+	ExternalSymbol(String module, String section, String name, int address) {
+		this.module = module;
+		this.section = section;
+		this.name = name;
+		this.address = address;
+	}
+}
@@ -0,0 +1,107 @@
+/**
+ * 출력 레코드의 고정폭 필드를 만드는 공용 함수들. object code, H/D/R/T/M/E 레코드, symbol/literal table의 모든
+ * 16진수와 이름 필드는 이 클래스를 거친다.
+ *
+ * String.format이나 Integer.toHexString처럼 형식 문자열을 해석하거나 중간 문자열을 만들지 않고, lookup table을
+ * 이용해 호출한 쪽이 넘겨준 char[]/byte[]에 바로 기록한다.
+ */
+public final class FieldFormat {
+	/** 값 0~15에 해당하는 대문자 16진수 문자 */
+	static final char[] HEX_CHARS = "0123456789ABCDEF".toCharArray();
+	static final byte[] HEX_BYTES = new byte[16];
+
+	static {
+		for(int i = 0; i < 16; i++) {
+			HEX_BYTES[i] = (byte)HEX_CHARS[i];
+		}
+	}
+
+	private FieldFormat() {
+	}
+
+	/**
+	 * value를 16진수로 썼을 때 필요한 자리 수. value는 부호 없는 32bit 값으로 취급한다.
+	 */
+	public static int hexDigits(int value) {
+		return value == 0 ? 1 : (35 - Integer.numberOfLeadingZeros(value)) >> 2;
+	}
+
+	/**
+	 * String.format("%0{width}X", value)와 같은 내용을 dst에 기록한다. 자리가 모자라면 width보다 길게 기록한다.
+	 *
+	 * @return : 기록이 끝난 다음 위치
+	 */
+	public static int putHex(char[] dst, int pos, int value, int width) {
+		int digits = Math.max(width, hexDigits(value));
+		for(int i = pos + digits - 1; i >= pos; i--) {
+			dst[i] = HEX_CHARS[value & 0xF];
+			value >>>= 4;
+		}
+		return pos + digits;
+	}
+
+	/**
+	 * putHex(char[], ...)의 byte[] 버전.
+	 */
+	public static int putHex(byte[] dst, int pos, int value, int width) {
+		int digits = Math.max(width, hexDigits(value));
+		for(int i = pos + digits - 1; i >= pos; i--) {
+			dst[i] = HEX_BYTES[value & 0xF];
+			value >>>= 4;
+		}
+		return pos + digits;
+	}
+
+	/**
+	 * String.format("%-{width}s", s)와 같이 왼쪽 정렬 후 공백으로 채워 dst에 기록한다.
+	 *
+	 * @return : 기록이 끝난 다음 위치
+	 */
+	public static int putPadded(char[] dst, int pos, String s, int width) {
+		pos = putString(dst, pos, s);
+		for(int i = s == null ? 4 : s.length(); i < width; i++) {
+			dst[pos++] = ' ';
+		}
+		return pos;
+	}
+
+	public static int putPadded(byte[] dst, int pos, String s, int width) {
+		pos = putString(dst, pos, s);
+		for(int i = s == null ? 4 : s.length(); i < width; i++) {
+			dst[pos++] = ' ';
+		}
+		return pos;
+	}
+
+	/**
+	 * ASCII 문자열을 그대로 기록한다. null은 StringBuilder와 같이 "null"로 기록한다.
+	 */
+	public static int putString(char[] dst, int pos, String s) {
+		if(s == null) {
+			s = "null";
+		}
+		s.getChars(0, s.length(), dst, pos);
+		return pos + s.length();
+	}
+
+	public static int putString(byte[] dst, int pos, String s) {
+		if(s == null) {
+			s = "null";
+		}
+		for(int i = 0; i < s.length(); i++) {
+			dst[pos++] = (byte)s.charAt(i);
+		}
+		return pos;
+	}
+
+	/**
+	 * Token.objectCode처럼 결과를 문자열로 보관해야 하는 곳에서 사용한다. 최종 문자열 외의 할당은 없다.
+	 *
+	 * @return : String.format("%0{width}X", value)와 같은 문자열
+	 */
+	public static String hex(int value, int width) {
+		char[] chars = new char[Math.max(width, hexDigits(value))];
+		putHex(chars, 0, value, width);
+		return new String(chars);
+	}
+}
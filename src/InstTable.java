@@ -1,8 +1,12 @@
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
+import java.util.zip.CRC32;
 
 
 /**
@@ -14,7 +18,10 @@ public class InstTable {
 	 * inst.data 파일을 불러와 저장하는 공간. 명령어의 이름을 집어넣으면 해당하는 Instruction의 정보들을 리턴할 수 있다.
 	 */
 	HashMap<String, Instruction> instMap;
-
+	/**
+	 * opcode의 상위 6bit(opcode & 0xFC)를 index로 하는 역방향 table. object code의 첫 byte로 명령어를 바로 찾을 때 사용한다.
+	 */
+	Instruction[] opcodeIndex;
 
 	//private int inst_index;
 	/**
@@ -24,8 +31,45 @@ public class InstTable {
 	 */
 
 	public InstTable(String instFile) {
+		this(instFile, false);
+	}
+
+	/**
+	 * snapshot을 사용하는 경우, instFile과 내용이 맞는 snapshot이 있으면 텍스트 파싱 없이 읽고, 없거나 맞지 않으면
+	 * 파싱한 뒤 snapshot을 새로 저장한다.
+	 * 
+	 * @param instFile    : instuction에 대한 명세가 저장된 파일 이름
+	 * @param useSnapshot : instFile + ".snap" 파일을 읽고 쓸지 여부 (-snapshot)
+	 */
+	public InstTable(String instFile, boolean useSnapshot) {
 		instMap = new HashMap<String, Instruction>();
-		openFile(instFile);
+		if(!useSnapshot || !loadSnapshot(instFile)) {
+			openFile(instFile);
+			if(useSnapshot) {
+				saveSnapshot(instFile);
+			}
+		}
+		buildOpcodeIndex();
+	}
+
+	/**
+	 * instMap으로부터 opcodeIndex를 만든다.
+	 */
+	void buildOpcodeIndex() {
+		opcodeIndex = new Instruction[256];
+		for(Instruction inst : instMap.values()) {
+			opcodeIndex[inst.opcode & 0xFC] = inst;
+		}
+	}
+
+	/**
+	 * object code의 첫 byte에 해당하는 명령어를 찾는다. 하위 2bit(n, i)는 무시한다.
+	 * 
+	 * @param opcode : 명령어의 첫 byte
+	 * @return : 해당하는 Instruction. 없으면 null
+	 */
+	public Instruction search(int opcode) {
+		return opcodeIndex[opcode & 0xFC];
 	}
 
 	/**
@@ -47,50 +91,111 @@ public class InstTable {
 		}
 	}
 
-	// get, set, search 등의 함수는 자유 구현
+	/* snapshot 파일 형식 : magic, version, 원본 파일 길이, 원본 파일 CRC32, 명령어 수,
+	 * 명령어마다 (이름 길이, 이름, format, opcode, operand 수) 를 각각 1byte로 저장한다. */
+	static final int SNAPSHOT_MAGIC = 0x53584954; // "SXIT"
+	static final int SNAPSHOT_VERSION = 1;
 
-}
-
-/**
- * 명령어 하나하나의 구체적인 정보는 Instruction클래스에 담긴다. instruction과 관련된 정보를 저장하고 기초적인 연산을
- * 수행한다.
- */
-class Instruction {
+	/**
+	 * instFile에 대응하는 snapshot 파일 이름을 리턴한다.
+	 */
+	static String snapshotName(String instFile) {
+		return instFile + ".snap";
+	}
 
-	String inst; 
-	int format;
-	int opcode; 
-	int numberOfOperand; 
-	
 	/**
-	 * 클래스를 선언하면서 일반문자열을 즉시 구조에 맞게 파싱한다.
+	 * 원본 파일의 내용이 snapshot을 만들 때와 같으면 텍스트 파싱 없이 snapshot에서 instMap을 채운다.
 	 * 
-	 * @param line : instruction 명세파일로부터 한줄씩 가져온 문자열
+	 * @return : snapshot을 사용했으면 true. snapshot이 없거나 원본과 맞지 않으면 false
 	 */
-	public Instruction(String line) {
-		parsing(line);
+	boolean loadSnapshot(String instFile) {
+		File snapshot = new File(snapshotName(instFile));
+		if(!snapshot.isFile()) {
+			return false;
+		}
+		try {
+			byte[] source = readFile(new File(instFile));
+			ByteBuffer buf = ByteBuffer.wrap(readFile(snapshot));
+			if(buf.getInt() != SNAPSHOT_MAGIC || buf.getInt() != SNAPSHOT_VERSION
+					|| buf.getLong() != source.length || buf.getLong() != checksum(source)) {
+				return false;
+			}
+			int count = buf.getInt();
+			for(int i = 0; i < count; i++) {
+				char[] name = new char[buf.get() & 0xFF];
+				for(int k = 0; k < name.length; k++) {
+					name[k] = (char)(buf.get() & 0xFF);
+				}
+				Instruction temp = new Instruction(new String(name), buf.get() & 0xFF, buf.get() & 0xFF, buf.get() & 0xFF);
+				instMap.put(temp.inst, temp);
+			}
+			return true;
+		}
+		catch(IOException | RuntimeException e) { //snapshot이 깨진 경우 원본을 다시 파싱한다
+			instMap.clear();
+			return false;
+		}
 	}
 
 	/**
-	 * 일반 문자열을 파싱하여 instruction 정보를 파악하고 저장한다.
-	 * 
-	 * @param line : instruction 명세파일로부터 한줄씩 가져온 문자열
+	 * 현재 instMap을 snapshot 파일로 저장한다. 저장에 실패해도 어셈블에는 영향이 없다.
 	 */
-	public void parsing(String line) {
+	void saveSnapshot(String instFile) {
 		try {
-			String[] split = line.split(" ");
-			inst = split[0];
-			format = Integer.valueOf(split[1]);
-			String t = split[2];
-			t = t.replaceFirst("0x","");
-			opcode = Integer.parseInt(t,16);
-			numberOfOperand = Integer.valueOf(split[3]);
+			byte[] source = readFile(new File(instFile));
+			int size = 28;
+			for(Instruction inst : instMap.values()) {
+				size += 4 + inst.inst.length();
+			}
+			ByteBuffer buf = ByteBuffer.allocate(size);
+			buf.putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_VERSION).putLong(source.length).putLong(checksum(source));
+			buf.putInt(instMap.size());
+			for(Instruction inst : instMap.values()) {
+				buf.put((byte)inst.inst.length());
+				for(int k = 0; k < inst.inst.length(); k++) {
+					buf.put((byte)inst.inst.charAt(k));
+				}
+				buf.put((byte)inst.format).put((byte)inst.opcode).put((byte)inst.numberOfOperand);
+			}
+			buf.flip();
+			FileOutputStream out = new FileOutputStream(snapshotName(instFile), false);
+			try {
+				out.write(buf.array());
+			}
+			finally {
+				out.close();
+			}
+		}
+		catch(IOException e) {
+			System.out.println("Error: " + e);
+		}
+	}
 
-			
-		} 
-		catch (NumberFormatException e) {
-			System.out.println("There is errer" + e);
+	/**
+	 * 파일 전체를 읽어들인다. 시작 시간을 줄이기 위해 NIO 파일 시스템 클래스를 사용하지 않는다.
+	 */
+	static byte[] readFile(File file) throws IOException {
+		FileInputStream in = new FileInputStream(file);
+		try {
+			byte[] bytes = new byte[(int)file.length()];
+			int pos = 0;
+			int n;
+			while(pos < bytes.length && (n = in.read(bytes, pos, bytes.length - pos)) > 0) {
+				pos += n;
+			}
+			return bytes;
 		}
+		finally {
+			in.close();
+		}
+	}
+
+	static long checksum(byte[] bytes) {
+		CRC32 crc = new CRC32();
+		crc.update(bytes, 0, bytes.length);
+		return crc.getValue();
 	}
 
+	// get, set, search 등의 함수는 자유 구현
+
 }
@@ -0,0 +1,53 @@
+/**
+ * 명령어 하나하나의 구체적인 정보는 Instruction클래스에 담긴다. instruction과 관련된 정보를 저장하고 기초적인 연산을
+ * 수행한다.
+ */
+public class Instruction {
+
+	String inst; 
+	int format;
+	int opcode; 
+	int numberOfOperand; 
+	
+	/**
+	 * 클래스를 선언하면서 일반문자열을 즉시 구조에 맞게 파싱한다.
+	 * 
+	 * @param line : instruction 명세파일로부터 한줄씩 가져온 문자열
+	 */
+	public Instruction(String line) {
+		parsing(line);
+	}
+
+	/**
+	 * 이미 분석된 정보로 클래스를 선언한다. snapshot에서 읽어들일 때 사용한다.
+	 */
+	public Instruction(String inst, int format, int opcode, int numberOfOperand) {
+		this.inst = inst;
+		this.format = format;
+		this.opcode = opcode;
+		this.numberOfOperand = numberOfOperand;
+	}
+
+	/**
+	 * 일반 문자열을 파싱하여 instruction 정보를 파악하고 저장한다.
+	 * 
+	 * @param line : instruction 명세파일로부터 한줄씩 가져온 문자열
+	 */
+	public void parsing(String line) {
+		try {
+			String[] split = line.split(" ");
+			inst = split[0];
+			format = Integer.valueOf(split[1]);
+			String t = split[2];
+			t = t.replaceFirst("0x","");
+			opcode = Integer.parseInt(t,16);
+			numberOfOperand = Integer.valueOf(split[3]);
+
+			
+		} 
+		catch (NumberFormatException e) {
+			System.out.println("There is errer" + e);
+		}
+	}
+
+}
@@ -0,0 +1,107 @@
+import java.util.HashMap;
+
+/**
+ * format 1~4 명령어를 object code로 조립하는 table 기반 encoder.
+ *
+ * format마다 opcode, nixbpe, 주소/변위 필드가 들어갈 위치를 table로 정의해 두고, 문자열 비교 없이 shift와 mask만으로
+ * 명령어 코드를 만든다. 레지스터 이름은 SIC/XE의 모든 레지스터(A, X, L, B, S, T, F, PC, SW)를 번호로 바꾸는 table을 사용한다.
+ */
+public class InstructionEncoder {
+	/* format별 bit template. index는 format 번호(1~4)이다. */
+	/** 명령어 길이 (byte) */
+	static final int[] SIZE = { 0, 1, 2, 3, 4 };
+	/** opcode가 들어갈 위치 */
+	static final int[] OP_SHIFT = { 0, 0, 8, 16, 24 };
+	/** nixbpe가 들어갈 위치 */
+	static final int[] FLAG_SHIFT = { 0, 0, 0, 12, 20 };
+	/** nixbpe 중 사용되는 bit. format 1, 2에는 flag가 없다. */
+	static final int[] FLAG_MASK = { 0, 0, 0, 0x3F, 0x3F };
+	/** 레지스터 번호, 변위 또는 주소가 들어갈 필드 */
+	static final int[] FIELD_MASK = { 0, 0, 0xFF, 0xFFF, 0xFFFFF };
+
+	/** 레지스터 번호 순서의 레지스터 이름. 7번은 사용되지 않는다. */
+	static final String[] REGISTER_NAMES = { "A", "X", "L", "B", "S", "T", "F", null, "PC", "SW" };
+	/** 레지스터 이름을 넣으면 레지스터 번호를 리턴한다. */
+	static final HashMap<String, Integer> registerMap = new HashMap<String, Integer>();
+
+	static {
+		for(int i = 0; i < REGISTER_NAMES.length; i++) {
+			if(REGISTER_NAMES[i] != null) {
+				registerMap.put(REGISTER_NAMES[i], i);
+			}
+		}
+	}
+
+	private InstructionEncoder() {
+	}
+
+	/**
+	 * 레지스터 이름을 번호로 바꾼다.
+	 *
+	 * @return : 레지스터 번호. 레지스터가 아니면 -1
+	 */
+	public static int register(String name) {
+		Integer number = name == null ? null : registerMap.get(name);
+		return number == null ? -1 : number;
+	}
+
+	/**
+	 * 명령어 코드를 조립한다.
+	 *
+	 * @param format : 명령어 format (1~4)
+	 * @param opcode : 8bit opcode
+	 * @param nixbpe : n, i, x, b, p, e flag
+	 * @param field  : format 2는 (r1 << 4 | r2), format 3은 변위, format 4는 주소
+	 * @return : 하위 SIZE[format] byte에 담긴 명령어 코드
+	 */
+	public static int encode(int format, int opcode, int nixbpe, int field) {
+		return opcode << OP_SHIFT[format] | (nixbpe & FLAG_MASK[format]) << FLAG_SHIFT[format] | field & FIELD_MASK[format];
+	}
+
+	/**
+	 * 명령어 코드를 big-endian으로 buf에 기록한다.
+	 *
+	 * @return : 기록이 끝난 다음 위치
+	 */
+	public static int write(byte[] buf, int pos, int code, int size) {
+		for(int i = size - 1; i >= 0; i--) {
+			buf[pos++] = (byte)(code >>> (i * 8));
+		}
+		return pos;
+	}
+
+	/**
+	 * format 2의 레지스터 필드를 만든다. SVC의 번호, SHIFTL/SHIFTR의 횟수처럼 숫자인 operand도 처리한다.
+	 *
+	 * @param opcode  : 명령어 opcode
+	 * @param operand : 명령어의 operand 배열
+	 * @return : r1 << 4 | r2
+	 * @throws IllegalArgumentException : operand가 레지스터도 숫자도 아닌 경우
+	 */
+	public static int registerField(int opcode, String[] operand) {
+		int r1 = operand != null && operand.length > 0 ? registerOrNumber(operand[0], 0) : 0;
+		int r2 = operand != null && operand.length > 1 ? registerOrNumber(operand[1], (opcode == 0xA4 || opcode == 0xA8) ? 1 : 0) : 0;
+		return (r1 & 0xF) << 4 | (r2 & 0xF);
+	}
+
+	/**
+	 * 레지스터 이름이면 레지스터 번호를, 숫자면 숫자에서 bias를 뺀 값을 리턴한다. (SHIFTL/SHIFTR의 횟수는 n-1로 기록된다.)
+	 *
+	 * @throws IllegalArgumentException : operand가 레지스터도 숫자도 아닌 경우
+	 */
+	static int registerOrNumber(String operand, int bias) {
+		if(operand == null || operand.isEmpty()) {
+			return 0;
+		}
+		int number = register(operand);
+		if(number >= 0) {
+			return number;
+		}
+		try {
+			return Integer.parseInt(operand) - bias;
+		}
+		catch(NumberFormatException e) {
+			throw new IllegalArgumentException("unknown register " + operand);
+		}
+	}
+}
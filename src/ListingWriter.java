@@ -0,0 +1,194 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * pass2가 Token 하나를 끝낼 때마다 그 줄을 listing 파일에 기록하는 출력기.
+ *
+ * 한 줄은 "주소\tlabel\toperator\toperand\tobject code\t주석" 형태이며, 주석 줄은 주소 없이 주석만 기록한다. 내용은
+ * Token의 필드에서 바로 고정 크기 buffer로 옮겨 적고, buffer가 차면 FileChannel로 내보낸다. 따라서 프로그램 전체의
+ * listing을 메모리에 모으거나 출력 파일을 다시 읽지 않는다. listing을 만들지 않을 때는 pass2가 null 확인만 한다.
+ * ASCII 문자는 그대로 1byte로 기록하고, 한글 주석처럼 ASCII가 아닌 문자가 들어있는 문자열은 소스를 읽을 때와 같은
+ * charset으로 encode한다.
+ */
+public class ListingWriter {
+	static final int BUFFER_SIZE = 1 << 16;
+
+	WritableByteChannel channel;
+	ByteBuffer buffer;
+	/** 주소 필드를 만들 때 사용하는 공간 */
+	byte[] field = new byte[8];
+	/** 지금까지 시작된 section 수 */
+	int sectionCount;
+	/** 기록 중 처음 발생한 오류. close()에서 출력한다. */
+	IOException error;
+	/** ASCII가 아닌 문자를 기록할 때 사용하는 encoder */
+	CharsetEncoder encoder;
+
+	/**
+	 * 소스 파일을 읽을 때와 같은 기본 charset으로 기록하는 listing 파일을 만든다.
+	 */
+	public ListingWriter(String fileName) throws IOException {
+		this(fileName, Charset.defaultCharset());
+	}
+
+	/**
+	 * @param fileName : listing 파일 이름
+	 * @param charset  : 파일에 기록할 charset
+	 */
+	public ListingWriter(String fileName, Charset charset) throws IOException {
+		this(FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING), charset);
+	}
+
+	/**
+	 * 파일이 아닌 곳(예: watch mode의 메모리 buffer)에 기록한다.
+	 *
+	 * @param channel : 기록할 channel. close()에서 닫는다.
+	 * @param charset : 기록할 charset
+	 */
+	public ListingWriter(WritableByteChannel channel, Charset charset) {
+		encoder = charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		this.channel = channel;
+		buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+	}
+
+	/**
+	 * 새 section을 시작한다. 두 번째 section부터는 앞에 빈 줄을 넣는다.
+	 */
+	public void beginSection() {
+		if(sectionCount++ > 0) {
+			put('\n');
+		}
+	}
+
+	/**
+	 * pass2가 끝난 Token 하나를 기록한다. codeBuffer에 조립된 코드는 문자열을 만들지 않고 바로 16진수로 기록한다.
+	 *
+	 * @param TT    : token이 속한 section
+	 * @param token : 기록할 Token
+	 */
+	public void write(TokenTable TT, Token token) {
+		if(token.operator.isEmpty()) { //주석 줄
+			put('\t');
+			put(token.comment);
+			put('\n');
+			return;
+		}
+		int end = FieldFormat.putHex(field, 0, token.location, 4);
+		for(int i = 0; i < end; i++) {
+			put((char)field[i]);
+		}
+		put('\t');
+		put(token.label);
+		put('\t');
+		put(token.operator);
+		put('\t');
+		if(token.operand != null) {
+			for(int i = 0; i < token.operand.length && token.operand[i] != null; i++) {
+				if(i > 0) {
+					put(',');
+				}
+				put(token.operand[i]);
+			}
+		}
+		put('\t');
+		if(token.codeOffset >= 0) {
+			for(int i = 0; i < token.byteSize; i++) {
+				FieldFormat.putHex(field, 0, TT.codeBuffer[token.codeOffset + i] & 0xFF, 2);
+				put((char)field[0]);
+				put((char)field[1]);
+			}
+		}
+		else {
+			put(token.objectCode);
+		}
+		if(token.comment != null) {
+			put('\t');
+			put(token.comment);
+		}
+		put('\n');
+	}
+
+	void put(String s) {
+		if(s == null) {
+			return;
+		}
+		for(int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if(c >= 0x80) {
+				encode(s, i);
+				return;
+			}
+			put(c);
+		}
+	}
+
+	/**
+	 * s의 from부터 끝까지를 encoder로 encode하여 기록한다.
+	 */
+	void encode(String s, int from) {
+		CharBuffer in = CharBuffer.wrap(s, from, s.length());
+		encoder.reset();
+		while(encoder.encode(in, buffer, true).isOverflow()) {
+			flush();
+		}
+		while(encoder.flush(buffer).isOverflow()) {
+			flush();
+		}
+	}
+
+	/**
+	 * ASCII 문자 하나를 기록한다.
+	 */
+	void put(char c) {
+		if(!buffer.hasRemaining()) {
+			flush();
+		}
+		buffer.put((byte)c);
+	}
+
+	/**
+	 * buffer에 모인 내용을 파일로 내보낸다.
+	 */
+	void flush() {
+		buffer.flip();
+		try {
+			while(buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+		catch(IOException e) {
+			if(error == null) {
+				error = e;
+			}
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * 남은 내용을 기록하고 파일을 닫는다.
+	 */
+	public void close() {
+		flush();
+		try {
+			channel.close();
+		}
+		catch(IOException e) {
+			if(error == null) {
+				error = e;
+			}
+		}
+		if(error != null) {
+			System.out.println("Error: " + error);
+		}
+	}
+}
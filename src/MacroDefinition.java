@@ -0,0 +1,107 @@
+import java.util.ArrayList;
+
+/**
+ * macro 하나의 정의(이름, parameter, body)를 저장한다.
+ */
+public class MacroDefinition {
+	String name;
+	/** parameter 이름 ('&' 제외) */
+	ArrayList<String> paramList;
+	/** keyword parameter의 기본값. 위치 parameter는 "" */
+	ArrayList<String> defaultList;
+	/** MACRO와 MEND 사이의 줄들 */
+	ArrayList<String> body;
+
+	/**
+	 * @param name   : macro 이름
+	 * @param params : MACRO 줄의 operand. (예: &INDEV,&BUFADR=BUFFER)
+	 */
+	public MacroDefinition(String name, String params) {
+		this.name = name;
+		paramList = new ArrayList<String>();
+		defaultList = new ArrayList<String>();
+		body = new ArrayList<String>();
+		if(!params.isEmpty()) {
+			for(String param : params.split(",")) {
+				int idx = param.indexOf('=');
+				String paramName = idx < 0 ? param : param.substring(0, idx);
+				paramList.add(paramName.startsWith("&") ? paramName.substring(1) : paramName);
+				defaultList.add(idx < 0 ? "" : param.substring(idx + 1));
+			}
+		}
+	}
+
+	/**
+	 * 호출 인자를 parameter 순서대로 정리한다. NAME=값 또는 &NAME=값 형태는 keyword 인자로 처리한다. 위치 인자는
+	 * keyword 인자로 이미 정해진 parameter를 건너뛰고, 아직 정해지지 않은 parameter에 순서대로 들어간다.
+	 *
+	 * @param args : 호출 줄의 operand
+	 * @return : parameter 순서의 인자 값
+	 */
+	String[] bind(String args) {
+		String[] value = defaultList.toArray(new String[defaultList.size()]);
+		if(args.isEmpty()) {
+			return value;
+		}
+		String[] arg = args.split(",", -1);
+		int[] keyword = new int[arg.length]; //keyword 인자가 가리키는 parameter. 위치 인자는 -1
+		boolean[] named = new boolean[value.length];
+		for(int i = 0; i < arg.length; i++) {
+			int idx = arg[i].indexOf('=');
+			keyword[i] = -1;
+			if(idx > 0) {
+				String key = arg[i].charAt(0) == '&' ? arg[i].substring(1, idx) : arg[i].substring(0, idx);
+				keyword[i] = paramList.indexOf(key);
+			}
+			if(keyword[i] >= 0) {
+				value[keyword[i]] = arg[i].substring(idx + 1);
+				named[keyword[i]] = true;
+			}
+		}
+		int position = 0;
+		for(int i = 0; i < arg.length; i++) {
+			if(keyword[i] >= 0) {
+				continue;
+			}
+			while(position < value.length && named[position]) {
+				position++;
+			}
+			if(position < value.length) {
+				value[position++] = arg[i];
+			}
+			else {
+				System.out.println("Error: too many arguments for macro " + name);
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * line 안의 &parameter를 인자 값으로 치환한다.
+	 */
+	String substitute(String line, String[] value) {
+		if(line.indexOf('&') < 0) {
+			return line;
+		}
+		StringBuilder sb = new StringBuilder(line.length());
+		int i = 0;
+		while(i < line.length()) {
+			char c = line.charAt(i);
+			if(c == '&') {
+				int end = i + 1;
+				while(end < line.length() && Character.isLetterOrDigit(line.charAt(end))) {
+					end++;
+				}
+				int param = paramList.indexOf(line.substring(i + 1, end));
+				if(param >= 0) {
+					sb.append(value[param]);
+					i = end;
+					continue;
+				}
+			}
+			sb.append(c);
+			i++;
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,17 @@
+import java.util.HashSet;
+
+/**
+ * macro 호출 하나를 펼친 결과. expansion cache에 저장되어 같은 호출에 재사용된다.
+ */
+public class MacroExpansion {
+	String[] lines;
+	/** lines를 미리 분석한 Token 원본. '$' label이 있는 줄과 분석할 수 없는 줄은 null */
+	Token[] tokens;
+	/** '$' label이 있어서 꺼낼 때마다 치환해야 하는 줄 */
+	boolean[] unique;
+	boolean hasUnique;
+	/** 다시 사용해도 같은 결과가 나오는지 여부 */
+	boolean cacheable;
+	/** 이 결과를 만드는 데 사용한 macro 이름들 (안쪽 호출 포함). macro가 다시 정의되면 cache에서 지우는 데 사용한다. */
+	HashSet<String> macros;
+}
@@ -0,0 +1,263 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+
+/**
+ * tokenization 이전에 MACRO/MEND 정의를 처리하고 macro 호출을 펼치는 macro 처리 단계.
+ *
+ * loadInputFile()에서 읽은 줄을 한 줄씩 받아, 정의 부분은 저장만 하고 호출 부분은 펼친 줄들을 바로 lineList에 넣는다.
+ * 위치 parameter(&A)와 keyword parameter(&A=기본값), macro 안에서의 macro 호출을 지원한다. label의 '$'는 호출마다
+ * 고유한 이름으로 바뀐다. (예: $LOOP -> $AALOOP)
+ *
+ * 같은 macro를 같은 label, 같은 인자로 다시 호출하면 처음 펼친 결과를 expansion cache에서 그대로 가져온다. 펼친 줄은
+ * 처음 펼칠 때 Token 원본으로 분석해 두므로, cache된 호출은 줄을 다시 분석하지 않고 원본을 복사해서 사용한다. macro가
+ * 다시 정의되면 그 macro를 펼치는 데 사용된 cache 항목(안쪽 호출로 사용한 경우 포함)을 모두 지운다.
+ */
+public class MacroProcessor {
+	/** macro 안에서 호출할 수 있는 최대 깊이 */
+	static final int MAX_DEPTH = 64;
+
+	/** 정의된 macro들. 이름을 넣으면 해당하는 정의를 리턴한다. */
+	HashMap<String, MacroDefinition> macroMap;
+	/** 호출 줄(label, macro 이름, 인자)을 넣으면 펼쳐진 결과를 리턴한다. */
+	HashMap<String, MacroExpansion> expansionCache;
+
+	/** 현재 정의 중인 macro. 정의 중이 아니면 null */
+	MacroDefinition defining;
+	/** 고유 label을 만들기 위한 호출 번호 */
+	int expansionCount;
+
+	public MacroProcessor() {
+		macroMap = new HashMap<String, MacroDefinition>();
+		expansionCache = new HashMap<String, MacroExpansion>();
+	}
+
+	/**
+	 * 소스 한 줄을 처리한다. macro와 관계없는 줄은 그대로, macro 호출은 펼친 줄들을 out에 추가한다.
+	 *
+	 * @param line : 읽어들인 소스 한 줄
+	 * @param out  : 처리 결과를 저장할 공간 (Assembler의 lineList)
+	 */
+	public void processLine(String line, ArrayList<String> out) {
+		processLine(line, out, null);
+	}
+
+	/**
+	 * 소스 한 줄을 처리하면서, out에 추가한 줄마다 Token 원본을 prototypes에 추가한다. 펼친 줄은 expansion에 저장된
+	 * 원본을, 그대로 통과한 줄은 null을 추가한다.
+	 *
+	 * @param prototypes : out과 같은 순서의 Token 원본 목록 (Assembler의 prototypeList). 필요 없으면 null
+	 */
+	public void processLine(String line, ArrayList<String> out, ArrayList<Token> prototypes) {
+		if(defining != null) {
+			define(line);
+			return;
+		}
+		if(line.isEmpty() || line.charAt(0) == '.' || (macroMap.isEmpty() && !line.contains("MACRO"))) {
+			add(out, prototypes, line, null);
+			return;
+		}
+		String[] field = line.split("\t", -1);
+		String operator = field.length > 1 ? field[1] : "";
+		if(operator.equals("MACRO")) {
+			defining = new MacroDefinition(field[0], field.length > 2 ? field[2] : "");
+		}
+		else if(macroMap.containsKey(operator)) {
+			expand(field, out, prototypes, 0);
+		}
+		else {
+			add(out, prototypes, line, null);
+		}
+	}
+
+	static void add(ArrayList<String> out, ArrayList<Token> prototypes, String line, Token prototype) {
+		out.add(line);
+		if(prototypes != null) {
+			prototypes.add(prototype);
+		}
+	}
+
+	/**
+	 * 정의 중인 macro의 body에 한 줄을 추가한다. MEND를 만나면 정의를 끝낸다.
+	 */
+	void define(String line) {
+		String[] field = line.split("\t", -1);
+		String operator = field.length > 1 ? field[1] : "";
+		if(operator.equals("MEND")) {
+			if(macroMap.put(defining.name, defining) != null) {
+				invalidate(defining.name);
+			}
+			defining = null;
+		}
+		else if(operator.equals("MACRO")) {
+			System.out.println("Error: nested MACRO definition in " + defining.name);
+		}
+		else if(!line.isEmpty() && line.charAt(0) != '.') { //주석은 펼칠 때 필요 없으므로 저장하지 않는다
+			defining.body.add(line);
+		}
+	}
+
+	/**
+	 * 다시 정의된 macro를 사용해서 만든 cache 항목을 지운다.
+	 *
+	 * @param name : 다시 정의된 macro 이름
+	 */
+	void invalidate(String name) {
+		Iterator<MacroExpansion> it = expansionCache.values().iterator();
+		while(it.hasNext()) {
+			if(it.next().macros.contains(name)) {
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * macro 호출 한 줄을 펼쳐 out에 추가한다.
+	 *
+	 * @param field : tab으로 나눈 호출 줄 (label, macro 이름, 인자, 주석)
+	 * @param out        : 펼친 줄을 저장할 공간
+	 * @param prototypes : 펼친 줄의 Token 원본을 저장할 공간. 필요 없으면 null
+	 * @param depth      : macro 호출 깊이
+	 * @return : 사용한 펼친 결과. 호출이 너무 깊으면 null
+	 */
+	MacroExpansion expand(String[] field, ArrayList<String> out, ArrayList<Token> prototypes, int depth) {
+		if(depth > MAX_DEPTH) {
+			System.out.println("Error: macro expansion too deep: " + field[1]);
+			return null;
+		}
+		String label = field[0];
+		String args = field.length > 2 ? field[2] : "";
+		String key = label + "\t" + field[1] + "\t" + args;
+		MacroExpansion expansion = expansionCache.get(key);
+		if(expansion == null) {
+			expansion = makeExpansion(macroMap.get(field[1]), label, args, depth);
+			if(expansion.cacheable) {
+				expansionCache.put(key, expansion);
+			}
+		}
+		if(expansion.hasUnique) {
+			String id = uniqueId(expansionCount++);
+			for(int i = 0; i < expansion.lines.length; i++) {
+				String line = expansion.unique[i] ? replaceUnique(expansion.lines[i], id) : expansion.lines[i];
+				add(out, prototypes, line, expansion.tokens[i]);
+			}
+		}
+		else {
+			for(int i = 0; i < expansion.lines.length; i++) {
+				add(out, prototypes, expansion.lines[i], expansion.tokens[i]);
+			}
+		}
+		return expansion;
+	}
+
+	/**
+	 * parameter를 인자로 치환하고 안쪽의 macro 호출까지 펼친 결과를 만든다. 이 macro 자신의 '$' label은 그대로 남겨두고
+	 * 꺼낼 때마다 치환한다.
+	 */
+	MacroExpansion makeExpansion(MacroDefinition macro, String label, String args, int depth) {
+		String[] value = macro.bind(args);
+		ArrayList<String> lines = new ArrayList<String>();
+		ArrayList<Boolean> unique = new ArrayList<Boolean>();
+		HashSet<String> macros = new HashSet<String>();
+		macros.add(macro.name);
+		boolean cacheable = true;
+		for(int i = 0; i < macro.body.size(); i++) {
+			String line = macro.substitute(macro.body.get(i), value);
+			String[] field = line.split("\t", -1);
+			if(i == 0 && !label.isEmpty()) { //호출 줄의 label은 첫 줄에 붙인다
+				if(field[0].isEmpty()) {
+					line = label + line;
+					field[0] = label;
+				}
+				else {
+					System.out.println("Error: label " + label + " conflicts with the first line of macro " + macro.name);
+				}
+			}
+			if(field.length > 1 && macroMap.containsKey(field[1])) {
+				ArrayList<String> inner = new ArrayList<String>();
+				MacroExpansion innerExpansion = expand(field, inner, null, depth + 1);
+				if(innerExpansion == null) {
+					cacheable = false;
+				}
+				else {
+					cacheable &= innerExpansion.cacheable;
+					macros.addAll(innerExpansion.macros);
+				}
+				for(String innerLine : inner) {
+					if(hasUnique(innerLine)) { //안쪽 macro의 고유 label은 이미 치환되었으므로 cache하지 않는다
+						cacheable = false;
+					}
+					lines.add(innerLine);
+					unique.add(false);
+				}
+			}
+			else {
+				lines.add(line);
+				unique.add(hasUnique(line));
+			}
+		}
+		MacroExpansion expansion = new MacroExpansion();
+		expansion.lines = lines.toArray(new String[lines.size()]);
+		expansion.unique = new boolean[lines.size()];
+		for(int i = 0; i < unique.size(); i++) {
+			expansion.unique[i] = unique.get(i);
+			expansion.hasUnique |= expansion.unique[i];
+		}
+		expansion.tokens = SourceCache.lexLines(lines);
+		for(int i = 0; i < expansion.unique.length; i++) {
+			if(expansion.unique[i]) {
+				expansion.tokens[i] = null; //꺼낼 때마다 label이 바뀌므로 그때 분석한다
+			}
+		}
+		expansion.cacheable = cacheable;
+		expansion.macros = macros;
+		return expansion;
+	}
+
+	/**
+	 * 호출 번호를 두 글자 이상의 영문 id로 바꾼다. (0 -> AA, 1 -> AB, ...)
+	 */
+	static String uniqueId(int count) {
+		char[] id = new char[2];
+		id[1] = (char)('A' + count % 26);
+		id[0] = (char)('A' + (count / 26) % 26);
+		return count < 26 * 26 ? new String(id) : new String(id) + (count / (26 * 26));
+	}
+
+	/**
+	 * label이나 operand에 '$'가 있는지 확인한다. operator와 주석의 '$'는 replaceUnique()가 바꾸지 않으므로 보지 않는다.
+	 */
+	static boolean hasUnique(String line) {
+		int fieldCount = 0;
+		for(int i = 0; i < line.length() && fieldCount < 3; i++) {
+			char c = line.charAt(i);
+			if(c == '\t') {
+				fieldCount++;
+			}
+			else if(c == '$' && fieldCount != 1) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * label과 operand의 '$'로 시작하는 이름 앞에 id를 붙인다.
+	 */
+	static String replaceUnique(String line, String id) {
+		StringBuilder sb = new StringBuilder(line.length() + id.length() * 2);
+		int fieldCount = 0;
+		for(int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			sb.append(c);
+			if(c == '\t') {
+				fieldCount++;
+			}
+			else if(c == '$' && fieldCount != 1 && fieldCount < 3) {
+				sb.append(id);
+			}
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,194 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * input 파일을 memory-map 하여, 줄을 String으로 읽지 않고 바로 Token으로 분석하는 입력.
+ *
+ * open()은 파일 전체를 FileChannel.map()으로 연결한 뒤 각 줄의 (시작, 끝) 위치만 찾아 둔다. 줄은 mapping 된 byte를
+ * 그대로 보여주는 CharSequence 위의 구간으로 Token.parsing()에 넘기므로, label, operator, operand, 주석처럼 Token에
+ * 들어가는 필드만 String으로 만들어진다. 따라서 BufferedReader.readLine()이 줄마다 만드는 String이 없으며, 분석
+ * 결과는 String으로 읽었을 때와 같다.
+ *
+ * MACRO와 INCLUDE는 줄 단위로 처리해야 하므로, operator가 MACRO나 INCLUDE인 줄이 있으면 사용하지 않는다.
+ */
+public class MappedSource {
+	/** mapping 된 파일 내용. 절대 위치로만 읽으므로 여러 thread가 함께 읽을 수 있다. */
+	ByteBuffer buffer;
+	/** 각 줄의 시작 위치 */
+	int[] lineStart;
+	/** 각 줄의 끝 위치 (줄바꿈 문자 제외) */
+	int[] lineEnd;
+	int lineCount;
+	/** 가장 긴 줄의 길이 */
+	int maxLength;
+	/** ASCII가 아닌 필드를 String으로 만들 때 사용하는 문자 집합. FileReader와 같다. */
+	Charset charset = Charset.defaultCharset();
+
+	MappedSource(ByteBuffer buffer) {
+		this.buffer = buffer;
+		lineStart = new int[1024];
+		lineEnd = new int[1024];
+	}
+
+	/**
+	 * 파일을 mapping 하고 줄 위치를 찾는다.
+	 *
+	 * @param fileName : input 파일 이름
+	 * @return : 만들어진 입력. 파일이 너무 크거나 operator가 MACRO, INCLUDE인 줄이 있어 줄 단위로 읽어야 하면 null
+	 */
+	public static MappedSource open(String fileName) throws IOException {
+		FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+		try {
+			if(channel.size() > Integer.MAX_VALUE) {
+				return null;
+			}
+			MappedSource source = new MappedSource(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+			source.findLines();
+			if(source.hasOperator("MACRO") || source.hasOperator("INCLUDE")) {
+				return null;
+			}
+			return source;
+		}
+		finally {
+			channel.close(); //mapping은 channel을 닫아도 유지된다
+		}
+	}
+
+	/**
+	 * operator 필드(줄의 두 번째 필드)가 word인 줄이 있는지 확인한다. 주석 줄과 label, operand, 주석에 있는 word는
+	 * 무시한다.
+	 */
+	boolean hasOperator(String word) {
+		for(int i = 0; i < lineCount; i++) {
+			int start = lineStart[i];
+			int end = lineEnd[i];
+			if(start == end || buffer.get(start) == '.') {
+				continue;
+			}
+			int tab = indexOf('\t', start, end);
+			if(tab == -1) {
+				continue;
+			}
+			int operatorEnd = indexOf('\t', tab + 1, end);
+			if(operatorEnd == -1) {
+				operatorEnd = end;
+			}
+			if(operatorEnd - (tab + 1) == word.length() && matches(word, tab + 1)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * [from, to) 구간에서 c가 처음 나오는 위치를 찾는다. 없으면 -1
+	 */
+	int indexOf(char c, int from, int to) {
+		for(int i = from; i < to; i++) {
+			if(buffer.get(i) == c) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * at 위치부터 word와 같은 byte들이 있는지 확인한다.
+	 */
+	boolean matches(String word, int at) {
+		for(int k = 0; k < word.length(); k++) {
+			if(buffer.get(at + k) != word.charAt(k)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * BufferedReader.readLine()과 같은 기준(\n, \r, \r\n)으로 줄을 나눈다.
+	 */
+	void findLines() {
+		int size = buffer.limit();
+		int start = 0;
+		for(int i = 0; i < size; i++) {
+			byte b = buffer.get(i);
+			if(b == '\n' || b == '\r') {
+				addLine(start, i);
+				if(b == '\r' && i + 1 < size && buffer.get(i + 1) == '\n') {
+					i++;
+				}
+				start = i + 1;
+			}
+		}
+		if(start < size) {
+			addLine(start, size);
+		}
+	}
+
+	void addLine(int start, int end) {
+		if(lineCount == lineStart.length) {
+			int[] newStart = new int[lineCount * 2];
+			int[] newEnd = new int[lineCount * 2];
+			System.arraycopy(lineStart, 0, newStart, 0, lineCount);
+			System.arraycopy(lineEnd, 0, newEnd, 0, lineCount);
+			lineStart = newStart;
+			lineEnd = newEnd;
+		}
+		lineStart[lineCount] = start;
+		lineEnd[lineCount] = end;
+		lineCount++;
+		maxLength = Math.max(maxLength, end - start);
+	}
+
+	/**
+	 * [from, to) 번째 줄들을 분석한다. 구간마다 따로 작업 공간을 만들므로 여러 구간을 동시에 분석할 수 있다.
+	 */
+	Token[] lex(int from, int to) {
+		Token[] tokens = new Token[to - from];
+		Bytes bytes = new Bytes(new byte[maxLength]);
+		for(int i = from; i < to; i++) {
+			tokens[i - from] = Token.lex(bytes, lineStart[i], lineEnd[i], i + 1);
+		}
+		return tokens;
+	}
+
+	/**
+	 * mapping 된 byte들을 한 byte에 한 문자로 보여주는 CharSequence. Token.parsing()이 tab과 ',' 위치를 찾을 때
+	 * 사용하며, 이 문자들은 ASCII이므로 byte 위치가 그대로 문자 위치가 된다. subSequence()는 구간을 String으로 만들며,
+	 * ASCII가 아닌 byte가 있으면 charset으로 변환한다.
+	 */
+	class Bytes implements CharSequence {
+		/** 필드를 String으로 만들 때 사용하는 공간 */
+		byte[] scratch;
+
+		Bytes(byte[] scratch) {
+			this.scratch = scratch;
+		}
+
+		@Override
+		public int length() {
+			return buffer.limit();
+		}
+
+		@Override
+		public char charAt(int index) {
+			return (char)(buffer.get(index) & 0xFF);
+		}
+
+		@Override
+		public CharSequence subSequence(int from, int to) {
+			int length = to - from;
+			boolean ascii = true;
+			for(int i = 0; i < length; i++) {
+				scratch[i] = buffer.get(from + i);
+				ascii &= scratch[i] >= 0;
+			}
+			return new String(scratch, 0, length, ascii ? StandardCharsets.ISO_8859_1 : charset);
+		}
+	}
+}
@@ -0,0 +1,179 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * 텍스트 형식(H, D, R, T, M, E 레코드)의 object program을 section 단위로 저장하는 클래스이다.
+ * printObjectCode()가 출력한 파일을 다시 읽어들이거나, 다른 형식으로 변환할 때 공통으로 사용한다.
+ */
+public class ObjectProgram {
+	/** 프로그램의 section별로 object code 정보를 저장하는 공간 */
+	ArrayList<ObjectSection> sectionList;
+
+	public ObjectProgram() {
+		sectionList = new ArrayList<ObjectSection>();
+	}
+
+	/**
+	 * 텍스트 형식의 object program 파일을 읽어들인다.
+	 *
+	 * @param fileName : 읽어들일 object program 파일 이름
+	 * @return : 레코드를 section별로 정리한 ObjectProgram
+	 */
+	public static ObjectProgram readText(String fileName) throws IOException {
+		ObjectProgram program = new ObjectProgram();
+		BufferedReader bufReader = new BufferedReader(new FileReader(new File(fileName)));
+		try {
+			String line;
+			while((line = bufReader.readLine()) != null) {
+				program.parseRecord(line);
+			}
+		}
+		finally {
+			bufReader.close();
+		}
+		return program;
+	}
+
+	/**
+	 * 레코드 한 줄을 분석하여 현재 section에 저장한다. H 레코드를 만나면 새로운 section을 시작한다.
+	 *
+	 * @param line : 레코드 한 줄
+	 */
+	public void parseRecord(String line) {
+		if(line.isEmpty()) {
+			return;
+		}
+		char type = line.charAt(0);
+		if(type == 'H') {
+			ObjectSection section = new ObjectSection();
+			section.name = line.substring(1, 7).trim();
+			section.start = Integer.parseInt(line.substring(7, 13), 16);
+			section.length = Integer.parseInt(line.substring(13, 19), 16);
+			sectionList.add(section);
+			return;
+		}
+		if(sectionList.isEmpty()) {
+			throw new IllegalArgumentException("record before H record: " + line);
+		}
+		ObjectSection section = sectionList.get(sectionList.size() - 1);
+		if(type == 'D') {
+			for(int i = 1; i + 12 <= line.length(); i += 12) {
+				section.defNames.add(line.substring(i, i + 6).trim());
+				section.defAddrs.add(Integer.parseInt(line.substring(i + 6, i + 12), 16));
+			}
+		}
+		else if(type == 'R') {
+			for(int i = 1; i < line.length(); i += 6) {
+				String name = line.substring(i, Math.min(i + 6, line.length())).trim();
+				if(!name.isEmpty()) {
+					section.refNames.add(name);
+				}
+			}
+		}
+		else if(type == 'T') {
+			int addr = Integer.parseInt(line.substring(1, 7), 16);
+			int len = Integer.parseInt(line.substring(7, 9), 16);
+			byte[] code = new byte[len];
+			for(int i = 0; i < len; i++) {
+				code[i] = (byte)Integer.parseInt(line.substring(9 + i * 2, 11 + i * 2), 16);
+			}
+			section.textAddrs.add(addr);
+			section.textCodes.add(code);
+		}
+		else if(type == 'M') {
+			section.modAddrs.add(Integer.parseInt(line.substring(1, 7), 16));
+			section.modLengths.add(Integer.parseInt(line.substring(7, 9), 16));
+			section.modSymbols.add(line.substring(9));
+		}
+		else if(type == 'E') {
+			section.entry = line.length() > 1 ? Integer.parseInt(line.substring(1, 7), 16) : -1;
+		}
+		else {
+			throw new IllegalArgumentException("unknown record: " + line);
+		}
+	}
+
+	/**
+	 * 저장된 section들을 printObjectCode()와 같은 텍스트 형식으로 rb에 기록한다.
+	 *
+	 * @param rb : 출력 내용을 기록할 버퍼
+	 */
+	public void writeText(RecordBuffer rb) {
+		for(ObjectSection section : sectionList) {
+			writeSection(section, rb);
+		}
+	}
+
+	/**
+	 * section 하나를 printObjectCode()와 같은 텍스트 형식으로 rb에 기록한다.
+	 *
+	 * @param section : 기록할 section
+	 * @param rb      : 출력 내용을 기록할 버퍼
+	 */
+	public static void writeSection(ObjectSection section, RecordBuffer rb) {
+		rb.append('H').appendPadded(section.name, 6).appendHex(section.start, 6).appendHex(section.length, 6).append('\n');
+		if(section.defNames.size() != 0) {
+			rb.append('D');
+			for(int j = 0; j < section.defNames.size(); j++) {
+				rb.appendPadded(section.defNames.get(j), 6).appendHex(section.defAddrs.get(j), 6);
+			}
+			rb.append('\n');
+		}
+		if(section.refNames.size() != 0) {
+			rb.append('R');
+			for(int j = 0; j < section.refNames.size(); j++) {
+				rb.appendPadded(section.refNames.get(j), 6);
+			}
+			rb.append('\n');
+		}
+		for(int j = 0; j < section.textAddrs.size(); j++) {
+			byte[] code = section.textCodes.get(j);
+			rb.append('T').appendHex(section.textAddrs.get(j), 6).appendHex(code.length, 2);
+			for(int k = 0; k < code.length; k++) {
+				rb.appendHex(code[k] & 0xFF, 2);
+			}
+			rb.append('\n');
+		}
+		for(int j = 0; j < section.modAddrs.size(); j++) {
+			rb.append('M').appendHex(section.modAddrs.get(j), 6).appendHex(section.modLengths.get(j), 2)
+				.append(section.modSymbols.get(j)).append('\n');
+		}
+		rb.append('E');
+		if(section.entry >= 0) {
+			rb.appendHex(section.entry, 6);
+		}
+		rb.append("\n\n");
+	}
+
+	/**
+	 * 저장된 section들을 printObjectCode()와 같은 텍스트 형식으로 변환한다.
+	 *
+	 * @return : object program 텍스트
+	 */
+	public String toText() {
+		RecordBuffer rb = new RecordBuffer();
+		writeText(rb);
+		return rb.toString();
+	}
+
+	/**
+	 * 저장된 section들을 텍스트 형식으로 파일에 출력한다.
+	 *
+	 * @param fileName : 저장되는 파일 이름
+	 */
+	public void writeText(String fileName) throws IOException {
+		RecordBuffer rb = new RecordBuffer();
+		writeText(rb);
+		FileOutputStream fw = new FileOutputStream(new File(fileName), false);
+		try {
+			rb.writeTo(fw);
+		}
+		finally {
+			fw.close();
+		}
+	}
+}
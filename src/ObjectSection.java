@@ -0,0 +1,24 @@
+import java.util.ArrayList;
+
+/**
+ * object program의 section 하나에 해당하는 레코드 정보를 저장한다.
+ */
+class ObjectSection {
+	// H 레코드
+	String name;
+	int start;
+	int length;
+	// D, R 레코드
+	ArrayList<String> defNames = new ArrayList<String>();
+	ArrayList<Integer> defAddrs = new ArrayList<Integer>();
+	ArrayList<String> refNames = new ArrayList<String>();
+	// T 레코드 : 시작 주소와 코드 바이트
+	ArrayList<Integer> textAddrs = new ArrayList<Integer>();
+	ArrayList<byte[]> textCodes = new ArrayList<byte[]>();
+	// M 레코드 : 주소, half-byte 단위 길이, 부호가 붙은 symbol 이름 (예: "+RDREC")
+	ArrayList<Integer> modAddrs = new ArrayList<Integer>();
+	ArrayList<Integer> modLengths = new ArrayList<Integer>();
+	ArrayList<String> modSymbols = new ArrayList<String>();
+	// E 레코드 : 시작 주소가 없으면 -1
+	int entry = -1;
+}
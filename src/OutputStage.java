@@ -0,0 +1,154 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * pass2가 끝난 Assembler의 출력 파일들(object code, symbol table, literal table)을 만드는 출력 단계.
+ *
+ * section마다 출력 내용을 별도의 ByteBuffer로 병렬 인코딩한 뒤, section 순서대로 파일 하나당 한 번의
+ * gathering write(FileChannel.write(ByteBuffer[]))로 기록한다. 출력되는 바이트는 printObjectCode(),
+ * printSymbolTable(), printLiteralTable()과 동일하다.
+ */
+public class OutputStage {
+	/* 출력 파일 종류 */
+	public static final int OBJECT = 0;
+	public static final int SYMBOL = 1;
+	public static final int LITERAL = 2;
+
+	/** 출력할 내용을 가지고 있는 assembler. pass2가 끝난 상태여야 한다. */
+	Assembler assembler;
+	/** section 인코딩과 파일 쓰기를 수행하는 executor */
+	Executor executor;
+
+	public OutputStage(Assembler assembler) {
+		this(assembler, ForkJoinPool.commonPool());
+	}
+
+	public OutputStage(Assembler assembler, Executor executor) {
+		this.assembler = assembler;
+		this.executor = executor;
+	}
+
+	/**
+	 * section 하나의 출력 내용을 인코딩한다.
+	 *
+	 * @param kind    : OBJECT, SYMBOL, LITERAL 중 하나
+	 * @param section : section 번호
+	 */
+	ByteBuffer encodeSection(int kind, int section) {
+		RecordBuffer rb = new RecordBuffer();
+		if(kind == OBJECT) {
+			assembler.makeObjectSection(section, rb);
+		}
+		else if(kind == SYMBOL) {
+			assembler.makeSymbolSection(section, rb);
+		}
+		else {
+			assembler.makeLiteralSection(section, rb);
+		}
+		return rb.toByteBuffer();
+	}
+
+	/**
+	 * 모든 section을 병렬로 인코딩하는 작업을 시작한다.
+	 *
+	 * @param kind : OBJECT, SYMBOL, LITERAL 중 하나
+	 * @return : section 순서대로 인코딩된 buffer들을 돌려주는 future
+	 */
+	CompletableFuture<ByteBuffer[]> encodeAsync(final int kind) {
+		int count = assembler.TokenList.size();
+		final CompletableFuture<?>[] parts = new CompletableFuture<?>[count];
+		for(int i = 0; i < count; i++) {
+			final int section = i;
+			parts[i] = CompletableFuture.supplyAsync(() -> encodeSection(kind, section), executor);
+		}
+		return CompletableFuture.allOf(parts).thenApply(v -> {
+			ByteBuffer[] buffers = new ByteBuffer[parts.length];
+			for(int i = 0; i < parts.length; i++) {
+				buffers[i] = (ByteBuffer)parts[i].join();
+			}
+			return buffers;
+		});
+	}
+
+	/**
+	 * 모든 section을 병렬로 인코딩한다.
+	 *
+	 * @param kind : OBJECT, SYMBOL, LITERAL 중 하나
+	 * @return : section 순서대로 인코딩된 buffer들
+	 */
+	public ByteBuffer[] encode(int kind) {
+		return encodeAsync(kind).join();
+	}
+
+	/**
+	 * 모든 section을 병렬로 인코딩하고, 끝나면 section 순서대로 파일에 기록하는 작업을 시작한다.
+	 *
+	 * @param kind     : OBJECT, SYMBOL, LITERAL 중 하나
+	 * @param fileName : 저장되는 파일 이름
+	 * @return : 파일 기록이 끝나면 완료되는 future
+	 */
+	CompletableFuture<Void> submit(int kind, final String fileName) {
+		return encodeAsync(kind).thenAcceptAsync(buffers -> {
+			try {
+				writeFile(fileName, buffers);
+			}
+			catch(IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}, executor);
+	}
+
+	/**
+	 * buffers를 순서대로 gathering write로 파일에 기록한다. 기존 파일 내용은 지워진다.
+	 */
+	static void writeFile(String fileName, ByteBuffer[] buffers) throws IOException {
+		long remaining = 0;
+		for(ByteBuffer buffer : buffers) {
+			remaining += buffer.remaining();
+		}
+		FileChannel channel = FileChannel.open(Paths.get(fileName),
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		try {
+			while(remaining > 0) {
+				remaining -= channel.write(buffers);
+			}
+		}
+		finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * 출력 파일 하나를 만든다.
+	 *
+	 * @param kind     : OBJECT, SYMBOL, LITERAL 중 하나
+	 * @param fileName : 저장되는 파일 이름
+	 */
+	public void print(int kind, String fileName) {
+		await(submit(kind, fileName));
+	}
+
+	/**
+	 * 세 출력 파일을 동시에 만든다.
+	 */
+	public void printAll(String objectFile, String symbolFile, String literalFile) {
+		await(CompletableFuture.allOf(submit(OBJECT, objectFile), submit(SYMBOL, symbolFile), submit(LITERAL, literalFile)));
+	}
+
+	static void await(CompletableFuture<Void> future) {
+		try {
+			future.join();
+		}
+		catch(CompletionException e) {
+			System.out.println("Error: " + e.getCause());
+		}
+	}
+}
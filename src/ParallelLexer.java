@@ -0,0 +1,117 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 읽어들인 줄들을 ForkJoin pool에서 나누어 Token으로 분석한다.
+ *
+ * 한 줄의 분석(Token.parsing())은 다른 줄에 의존하지 않으므로, 줄 목록을 CHUNK_SIZE 줄씩 나누어 구간마다 Token 배열을
+ * 만들고 모든 구간이 끝나면 원래 순서대로 한 번에 이어붙인다. 따라서 결과는 한 줄씩 순서대로 분석했을 때와 같다. 구간이 하나뿐이면
+ * pool을 사용하지 않고 현재 thread에서 분석한다. 줄은 String 목록이나 memory-mapped 된 MappedSource에서 가져온다.
+ * SourceCache에 Token 원본이 있는 줄(INCLUDE된 파일의 줄)은 분석하지 않고 원본을 복사한다.
+ */
+public class ParallelLexer extends RecursiveTask<Token[]> {
+	private static final long serialVersionUID = 1L;
+
+	/** 한 task가 분석하는 줄 수 */
+	static final int CHUNK_SIZE = 4096;
+
+	/** 분석할 줄들. source에서 읽을 때는 null */
+	List<String> lines;
+	/** lines의 각 줄에 해당하는 Token 원본. 원본이 없는 줄은 null이며, 목록이 없으면 null */
+	List<Token> prototypes;
+	/** memory-mapped 된 입력. lines에서 읽을 때는 null */
+	MappedSource source;
+	/** 분석할 구간의 시작 (포함) */
+	int from;
+	/** 분석할 구간의 끝 (포함하지 않음) */
+	int to;
+
+	ParallelLexer(List<String> lines, List<Token> prototypes, MappedSource source, int from, int to) {
+		this.lines = lines;
+		this.prototypes = prototypes;
+		this.source = source;
+		this.from = from;
+		this.to = to;
+	}
+
+	/**
+	 * lines 전체를 분석한다.
+	 *
+	 * @param lines : 읽어들인 줄들
+	 * @return : 각 줄을 분석한 Token 목록. i번째 Token은 i번째 줄에 해당하며 line은 i + 1이다.
+	 */
+	public static List<Token> lex(List<String> lines) {
+		return lex(lines, null, null, lines.size());
+	}
+
+	/**
+	 * assembler가 읽어들인 줄 중 앞의 size개를 분석한다. Token 원본이 있는 줄은 원본을 복사한다.
+	 *
+	 * @param assembler : lineList와 prototypeList를 채운 Assembler
+	 * @param size      : 분석할 줄 수
+	 * @return : 각 줄을 분석한 Token 목록
+	 */
+	public static List<Token> lex(Assembler assembler, int size) {
+		return lex(assembler.lineList, assembler.prototypeList, null, size);
+	}
+
+	/**
+	 * memory-mapped 된 입력의 모든 줄을 분석한다.
+	 *
+	 * @param source : 줄 위치를 찾아 둔 입력
+	 * @return : 각 줄을 분석한 Token 목록
+	 */
+	public static List<Token> lex(MappedSource source) {
+		return lex(null, null, source, source.lineCount);
+	}
+
+	static List<Token> lex(List<String> lines, List<Token> prototypes, MappedSource source, int size) {
+		if(size <= CHUNK_SIZE) {
+			return Arrays.asList(new ParallelLexer(lines, prototypes, source, 0, size).compute());
+		}
+		final ArrayList<ParallelLexer> chunks = new ArrayList<ParallelLexer>();
+		for(int from = 0; from < size; from += CHUNK_SIZE) {
+			chunks.add(new ParallelLexer(lines, prototypes, source, from, Math.min(from + CHUNK_SIZE, size)));
+		}
+		ForkJoinPool.commonPool().invoke(new RecursiveTask<Void>() {
+			@Override
+			protected Void compute() {
+				ForkJoinTask.invokeAll(chunks);
+				return null;
+			}
+		});
+
+		Token[] tokens = new Token[size];
+		for(ParallelLexer chunk : chunks) {
+			System.arraycopy(chunk.join(), 0, tokens, chunk.from, chunk.to - chunk.from);
+		}
+		return Arrays.asList(tokens);
+	}
+
+	/**
+	 * 구간 하나의 줄들을 분석한다.
+	 */
+	@Override
+	protected Token[] compute() {
+		Token[] tokens;
+		if(source != null) {
+			tokens = source.lex(from, to);
+		}
+		else {
+			tokens = new Token[to - from];
+			for(int i = from; i < to; i++) {
+				Token prototype = prototypes == null ? null : prototypes.get(i);
+				String line = lines.get(i);
+				tokens[i - from] = prototype != null ? prototype.copy() : Token.lex(line, 0, line.length(), i + 1);
+			}
+		}
+		for(int i = from; i < to; i++) {
+			tokens[i - from].line = i + 1;
+		}
+		return tokens;
+	}
+}
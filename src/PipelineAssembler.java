@@ -0,0 +1,285 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 읽기, pass1, pass2, 출력을 각각 별도의 thread에서 section 단위로 수행하는 pipeline.
+ *
+ * 각 단계는 크기가 제한된 queue로 연결되어 있어서, 한 section이 끝나는 즉시 다음 단계로 넘어간다. 따라서 section N을
+ * 출력하는 동안 section N+1을 분석할 수 있고, section이 많은 입력에서는 전체 시간이 각 단계 시간의 합이 아니라 가장 느린
+ * 단계의 시간에 가까워진다. 출력 파일의 내용은 순서대로 실행했을 때와 같다.
+ *
+ * 어떤 단계에서 오류가 나면 그 뒤의 section은 처리하지 않고 흘려보내기만 하며, 모든 thread가 끝난 뒤 오류를 출력한다.
+ */
+public class PipelineAssembler {
+	/** 단계 사이 queue에 쌓일 수 있는 section 수 */
+	static final int QUEUE_CAPACITY = 4;
+
+	/** section들을 처리하고 결과(TokenList 등)를 보관할 assembler */
+	Assembler assembler;
+	/** 읽기 -> pass1 */
+	BlockingQueue<SectionUnit> lexed;
+	/** pass1 -> pass2 */
+	BlockingQueue<SectionUnit> analyzed;
+	/** pass2 -> 출력 */
+	BlockingQueue<SectionUnit> assembled;
+	/** 처음 발생한 오류 */
+	volatile Throwable failure;
+
+	public PipelineAssembler(Assembler assembler) {
+		this.assembler = assembler;
+		lexed = new ArrayBlockingQueue<SectionUnit>(QUEUE_CAPACITY);
+		analyzed = new ArrayBlockingQueue<SectionUnit>(QUEUE_CAPACITY);
+		assembled = new ArrayBlockingQueue<SectionUnit>(QUEUE_CAPACITY);
+	}
+
+	/**
+	 * inputFile을 어셈블하여 세 출력 파일을 만든다. 모든 단계가 끝날 때까지 리턴하지 않는다.
+	 * 끝난 뒤 assembler에는 순서대로 실행했을 때와 같은 TokenList, symtabList, literaltabList가 남는다.
+	 *
+	 * @return : 오류 없이 끝났으면 true
+	 */
+	public boolean run(final String inputFile, final String objectFile, final String symbolFile, final String literalFile)
+			throws InterruptedException {
+		Thread[] stages = {
+			new Thread(() -> lex(inputFile), "lexer"),
+			new Thread(() -> pass1(), "pass1"),
+			new Thread(() -> pass2(), "pass2"),
+			new Thread(() -> write(objectFile, symbolFile, literalFile), "writer"),
+		};
+		for(Thread stage : stages) {
+			stage.start();
+		}
+		for(Thread stage : stages) {
+			stage.join();
+		}
+		if(failure != null) {
+			System.out.println("Error: " + failure);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * 읽기 단계. input 파일을 읽으며 macro와 INCLUDE를 처리하고, 각 줄을 Token으로 분석한다. section이 완성될 때마다
+	 * 그 Token들을 다음 단계로 넘기므로 pass1은 줄을 다시 분석하지 않는다.
+	 */
+	void lex(String inputFile) {
+		try {
+			File file = new File(inputFile);
+			BufferedReader bufReader = new BufferedReader(new FileReader(file));
+			try {
+				ArrayList<String> includeStack = new ArrayList<String>();
+				includeStack.add(file.getCanonicalPath());
+				SectionSplitter splitter = new SectionSplitter();
+				ArrayList<Token> tokens = new ArrayList<Token>();
+				int index = 0;
+				int scanned = 0;
+				String line;
+				while((line = bufReader.readLine()) != null && failure == null) {
+					assembler.loadLine(line, null, file, includeStack);
+					for(; scanned < assembler.lineList.size(); scanned++) {
+						Token token = assembler.lexLine(scanned);
+						tokens.add(token);
+						int[] range = splitter.next(token, scanned);
+						if(range != null) {
+							lexed.put(new SectionUnit(index++, copy(tokens, range)));
+						}
+					}
+				}
+				int[] range = splitter.finish();
+				if(range != null && failure == null) {
+					lexed.put(new SectionUnit(index, copy(tokens, range)));
+				}
+				assembler.line_num = assembler.lineList.size();
+			}
+			finally {
+				bufReader.close();
+			}
+		}
+		catch(IOException | RuntimeException | InterruptedException e) {
+			fail(e);
+		}
+		finally {
+			done(lexed);
+		}
+	}
+
+	/**
+	 * section의 Token들을 복사한다. tokens는 읽기 단계만 사용하므로 다른 단계에는 복사본을 넘긴다.
+	 */
+	static List<Token> copy(List<Token> tokens, int[] range) {
+		return new ArrayList<Token>(tokens.subList(range[0], range[1]));
+	}
+
+	/**
+	 * pass1 단계. section마다 pass1Tokens()를 수행하고, 필요하면 addressing mode를 최적화한다.
+	 */
+	void pass1() {
+		stage(lexed, analyzed, unit -> {
+			unit.table = assembler.pass1Tokens(unit.tokens);
+			if(assembler.optimize) {
+				AddressingOptimizer.optimize(unit.table);
+			}
+			assembler.TokenList.add(unit.table);
+			assembler.symtabList.add(unit.table.symTab);
+			assembler.literaltabList.add(unit.table.literalTab);
+		});
+	}
+
+	/**
+	 * pass2 단계. section마다 object code를 만든다.
+	 */
+	void pass2() {
+		stage(analyzed, assembled, unit -> assembler.pass2Section(unit.table));
+	}
+
+	/**
+	 * 출력 단계. section이 도착하는 순서대로 세 출력 파일에 이어서 기록한다.
+	 */
+	void write(String objectFile, String symbolFile, String literalFile) {
+		FileOutputStream[] out = new FileOutputStream[3];
+		try {
+			out[OutputStage.OBJECT] = new FileOutputStream(objectFile, false);
+			out[OutputStage.SYMBOL] = new FileOutputStream(symbolFile, false);
+			out[OutputStage.LITERAL] = new FileOutputStream(literalFile, false);
+			RecordBuffer rb = new RecordBuffer();
+			SectionUnit unit;
+			while((unit = assembled.take()) != SectionUnit.DONE) {
+				if(failure != null) {
+					continue;
+				}
+				rb.clear();
+				assembler.makeObjectSection(unit.table, rb);
+				rb.writeTo(out[OutputStage.OBJECT]);
+				rb.clear();
+				assembler.makeSymbolSection(unit.table, rb);
+				rb.writeTo(out[OutputStage.SYMBOL]);
+				rb.clear();
+				assembler.makeLiteralSection(unit.table, rb);
+				rb.writeTo(out[OutputStage.LITERAL]);
+			}
+		}
+		catch(IOException | RuntimeException | InterruptedException e) {
+			fail(e);
+			drain(assembled);
+		}
+		finally {
+			for(FileOutputStream stream : out) {
+				try {
+					if(stream != null) {
+						stream.close();
+					}
+				}
+				catch(IOException e) {
+					fail(e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * 중간 단계 하나를 수행한다. 앞 단계에서 section을 받아 처리한 뒤 다음 단계로 넘기고, 마지막에 종료 표시를 넘긴다.
+	 * 오류가 난 뒤에는 앞 단계가 막히지 않도록 받은 section을 버리기만 한다.
+	 */
+	void stage(BlockingQueue<SectionUnit> in, BlockingQueue<SectionUnit> out, SectionTask task) {
+		try {
+			SectionUnit unit;
+			while((unit = in.take()) != SectionUnit.DONE) {
+				if(failure != null) {
+					continue;
+				}
+				try {
+					task.process(unit);
+					out.put(unit);
+				}
+				catch(RuntimeException e) {
+					fail(new RuntimeException("section " + unit.index + ": " + e, e));
+				}
+			}
+		}
+		catch(InterruptedException e) {
+			fail(e);
+			drain(in);
+		}
+		finally {
+			done(out);
+		}
+	}
+
+	void fail(Throwable e) {
+		synchronized(this) {
+			if(failure == null) {
+				failure = e;
+			}
+		}
+	}
+
+	/**
+	 * 다음 단계에 더 이상 section이 없음을 알린다.
+	 */
+	static void done(BlockingQueue<SectionUnit> out) {
+		boolean interrupted = false;
+		while(true) {
+			try {
+				out.put(SectionUnit.DONE);
+				break;
+			}
+			catch(InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if(interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * 종료 표시가 올 때까지 queue를 비운다.
+	 */
+	static void drain(BlockingQueue<SectionUnit> in) {
+		while(true) {
+			try {
+				if(in.take() == SectionUnit.DONE) {
+					return;
+				}
+			}
+			catch(InterruptedException e) {
+				// 앞 단계가 막히지 않도록 계속 비운다
+			}
+		}
+	}
+
+	/**
+	 * 중간 단계가 section 하나에 대해 수행하는 작업
+	 */
+	interface SectionTask {
+		void process(SectionUnit unit);
+	}
+}
+
+/**
+ * pipeline 단계 사이를 오가는 section 하나.
+ */
+class SectionUnit {
+	/** 더 이상 section이 없음을 나타내는 표시 */
+	static final SectionUnit DONE = new SectionUnit(-1, null);
+
+	/** 입력에서 section의 순서 */
+	int index;
+	/** section에 속한 줄들을 분석한 Token들 */
+	List<Token> tokens;
+	/** pass1이 만든 TokenTable */
+	TokenTable table;
+
+	SectionUnit(int index, List<Token> tokens) {
+		this.index = index;
+		this.tokens = tokens;
+	}
+}
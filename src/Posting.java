@@ -0,0 +1,57 @@
+/**
+ * section 하나에서 symbol 하나가 정의되고 사용된 줄 번호 목록.
+ */
+public class Posting {
+	static final int[] EMPTY = new int[0];
+
+	String symbol;
+	int[] defs = EMPTY;
+	int defCount;
+	int[] refs = EMPTY;
+	int refCount;
+
+	Posting(String symbol) {
+		this.symbol = symbol;
+	}
+
+	void define(int line) {
+		if(defCount == 0 || defs[defCount - 1] != line) {
+			defs = grow(defs, defCount);
+			defs[defCount++] = line;
+		}
+	}
+
+	void reference(int line) {
+		if(refCount == 0 || refs[refCount - 1] != line) {
+			refs = grow(refs, refCount);
+			refs[refCount++] = line;
+		}
+	}
+
+	static int[] grow(int[] lines, int count) {
+		if(count < lines.length) {
+			return lines;
+		}
+		int[] grown = new int[Math.max(4, count * 2)];
+		System.arraycopy(lines, 0, grown, 0, count);
+		return grown;
+	}
+
+	/**
+	 * 정의된 줄 번호들의 복사본
+	 */
+	public int[] definitions() {
+		int[] lines = new int[defCount];
+		System.arraycopy(defs, 0, lines, 0, defCount);
+		return lines;
+	}
+
+	/**
+	 * 사용된 줄 번호들의 복사본
+	 */
+	public int[] references() {
+		int[] lines = new int[refCount];
+		System.arraycopy(refs, 0, lines, 0, refCount);
+		return lines;
+	}
+}
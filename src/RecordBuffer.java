@@ -0,0 +1,74 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * 출력 레코드를 모으는 크기 가변의 ASCII byte 버퍼. 각 append는 FieldFormat을 이용해 내부 배열에 직접 기록한다.
+ */
+class RecordBuffer {
+	byte[] buf;
+	int length;
+
+	public RecordBuffer() {
+		this(256);
+	}
+
+	public RecordBuffer(int capacity) {
+		buf = new byte[capacity];
+	}
+
+	void ensure(int extra) {
+		if(length + extra > buf.length) {
+			buf = Arrays.copyOf(buf, Math.max(buf.length * 2, length + extra));
+		}
+	}
+
+	public RecordBuffer append(char c) {
+		ensure(1);
+		buf[length++] = (byte)c;
+		return this;
+	}
+
+	public RecordBuffer append(String s) {
+		ensure(s == null ? 4 : s.length());
+		length = FieldFormat.putString(buf, length, s);
+		return this;
+	}
+
+	/** String.format("%0{width}X", value)와 같다. 32bit 값은 최대 8자리이므로 width와 8 중 큰 만큼 공간을 확보한다. */
+	public RecordBuffer appendHex(int value, int width) {
+		ensure(Math.max(width, 8));
+		length = FieldFormat.putHex(buf, length, value, width);
+		return this;
+	}
+
+	/** String.format("%-{width}s", s)와 같다. */
+	public RecordBuffer appendPadded(String s, int width) {
+		ensure(Math.max(width, s == null ? 4 : s.length()));
+		length = FieldFormat.putPadded(buf, length, s, width);
+		return this;
+	}
+
+	/** 지금까지 기록된 내용을 복사 없이 감싼 ByteBuffer */
+	public ByteBuffer toByteBuffer() {
+		return ByteBuffer.wrap(buf, 0, length);
+	}
+
+	public void writeTo(OutputStream out) throws IOException {
+		out.write(buf, 0, length);
+	}
+
+	public void clear() {
+		length = 0;
+	}
+
+	@Override
+	public String toString() {
+		char[] chars = new char[length];
+		for(int i = 0; i < length; i++) {
+			chars[i] = (char)(buf[i] & 0xFF);
+		}
+		return new String(chars);
+	}
+}
@@ -0,0 +1,65 @@
+/**
+ * 읽어들인 줄들을 START, CSECT, END 기준으로 control section 단위로 나눈다.
+ *
+ * 줄을 하나씩 넘겨받으며 section이 끝날 때마다 그 범위를 알려주므로, 파일을 끝까지 읽기 전에도 완성된 section부터
+ * 처리할 수 있다. START 앞의 줄과 END 뒤의 줄은 어느 section에도 속하지 않는다.
+ */
+public class SectionSplitter {
+	/** 현재 section이 시작된 줄 번호 */
+	int start = 0;
+	/** 현재 section에 속한 줄을 받는 중인지 여부. END 뒤에는 false가 된다. */
+	boolean active = true;
+	/** 지금까지 넘겨받은 줄 수 */
+	int count = 0;
+
+	/**
+	 * 다음 줄을 확인한다.
+	 *
+	 * @param line  : 읽어들인 한 줄
+	 * @param index : 그 줄의 번호 (0부터 순서대로)
+	 * @return : 이 줄로 인해 끝난 section의 범위 {시작, 끝(포함하지 않음)}. 끝난 section이 없으면 null
+	 */
+	public int[] next(String line, int index) {
+		return next(new Token(line), index);
+	}
+
+	/**
+	 * 이미 분석된 다음 줄을 확인한다. 줄을 다시 분석하지 않는다.
+	 *
+	 * @param token : 분석된 한 줄
+	 * @param index : 그 줄의 번호 (0부터 순서대로)
+	 * @return : 이 줄로 인해 끝난 section의 범위. 끝난 section이 없으면 null
+	 */
+	public int[] next(Token token, int index) {
+		count = index + 1;
+		String operator = token.operator;
+		if(operator.equals("START")) {
+			start = index;
+			active = true;
+		}
+		else if(operator.equals("CSECT")) {
+			int[] range = active && index > start ? new int[] { start, index } : null;
+			start = index;
+			active = true;
+			return range;
+		}
+		else if(operator.equals("END") && active) {
+			active = false;
+			return new int[] { start, index + 1 };
+		}
+		return null;
+	}
+
+	/**
+	 * 입력이 끝났을 때 END 없이 끝난 section이 남아 있으면 그 범위를 리턴한다.
+	 *
+	 * @return : 남은 section의 범위. 없으면 null
+	 */
+	public int[] finish() {
+		if(active && count > start) {
+			active = false;
+			return new int[] { start, count };
+		}
+		return null;
+	}
+}
@@ -0,0 +1,546 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * 어셈블러가 만든 object program을 같은 process 안에서 실행하는 SIC/XE simulator.
+ *
+ * load()는 section들을 연속된 주소에 적재하고 D/R/M 레코드로 link와 relocation을 수행한 뒤, T 레코드로 적재된 구간의
+ * 모든 주소를 InstTable의 opcode/format 정보로 미리 해석하여 handler(opcode)와 operand를 담은 배열에 저장해 둔다.
+ * 명령어와 데이터가 섞여 있어 어느 주소가 명령어의 시작인지 적재할 때는 알 수 없으므로, 구간 안의 주소마다 해석한다.
+ * 실행할 때는 이 배열을 읽어 switch로 바로 분기하는 반복문만 수행한다. 명령어가 있는 주소에 값이 저장되면 해당 위치의
+ * 해석 결과는 버리고, 해석되지 않은 주소(버려진 위치나 T 레코드 밖의 주소)는 처음 실행될 때 해석한다.
+ *
+ * 레지스터는 A, X, L, B, S, T, F, PC, SW이며, 장치는 메모리의 byte stream으로 대신한다. 실행은 PC가 HALT 주소(L의 초기값)로
+ * 돌아오거나, 자기 자신으로 jump하거나, 정해진 명령어 수를 넘으면 멈춘다.
+ */
+public class SicSimulator {
+	/** SIC/XE 주소 공간 크기 (1MB) */
+	public static final int MEMORY_SIZE = 1 << 20;
+	/** 처음 L에 넣어 두는 주소(주소 공간의 마지막 byte). 프로그램이 RSUB 등으로 이 주소로 돌아오면 실행을 마친다. */
+	public static final int HALT = MEMORY_SIZE - 1;
+
+	/* 레지스터 번호 (InstructionEncoder.REGISTER_NAMES와 같다) */
+	static final int A = 0, X = 1, L = 2, B = 3, S = 4, T = 5, F = 6, PC = 8, SW = 9;
+
+	/* 해석된 명령어의 addressing mode bit */
+	static final int IMMEDIATE = 1;
+	static final int INDIRECT = 2;
+	static final int INDEXED = 4;
+	static final int BASE_RELATIVE = 8;
+	/** 해석이 끝났음을 나타내는 bit. 0이면 아직 해석되지 않은 주소이다. */
+	static final int DECODED = 1 << 31;
+
+	byte[] memory;
+	/** 주소별 해석 결과: opcode | 길이 << 8 | mode << 12 | DECODED */
+	int[] decodedOp;
+	/** 주소별 operand. format 2는 r1 << 4 | r2, format 3/4는 레지스터를 더하기 전의 target address */
+	int[] decodedArg;
+	/** opcode를 넣으면 명령어 정보를 리턴한다. (InstTable.opcodeIndex) */
+	Instruction[] opcodeTable;
+
+	/** A, X, L, B, S, T, (F), -, PC, SW. 정수 레지스터는 24bit 값으로 저장한다. */
+	int[] reg = new int[10];
+	/** F 레지스터 */
+	double f;
+	/** condition code. 비교 결과가 <, =, > 이면 각각 -1, 0, 1 */
+	int cc;
+
+	/** 장치 번호별 입출력 stream */
+	Device[] devices = new Device[256];
+	/** link에 사용된 external symbol 주소 (section 이름과 EXTDEF symbol) */
+	HashMap<String, Integer> estab = new HashMap<String, Integer>();
+
+	/** 실행한 명령어 수 */
+	long steps;
+	/** 실행이 멈춘 이유 */
+	String haltReason;
+
+	public SicSimulator(InstTable instTable) {
+		memory = new byte[MEMORY_SIZE + 8];
+		decodedOp = new int[MEMORY_SIZE];
+		decodedArg = new int[MEMORY_SIZE];
+		opcodeTable = instTable.opcodeIndex;
+	}
+
+	/**
+	 * object program을 progAddr부터 적재하고 link한다. section들은 순서대로 연속해서 적재된다.
+	 * PC는 E 레코드의 시작 주소, L은 HALT로 설정된다.
+	 *
+	 * @param program  : 적재할 object program
+	 * @param progAddr : 첫 section이 적재될 주소
+	 */
+	public void load(ObjectProgram program, int progAddr) {
+		int[] csaddr = new int[program.sectionList.size()];
+		int addr = progAddr;
+		for(int i = 0; i < program.sectionList.size(); i++) { //pass 1 : ESTAB 작성
+			ObjectSection section = program.sectionList.get(i);
+			csaddr[i] = addr;
+			estab.put(section.name, addr);
+			for(int j = 0; j < section.defNames.size(); j++) {
+				estab.put(section.defNames.get(j), addr + section.defAddrs.get(j));
+			}
+			addr += section.length;
+		}
+
+		reg[PC] = progAddr;
+		for(int i = 0; i < program.sectionList.size(); i++) { //pass 2 : 적재와 수정
+			ObjectSection section = program.sectionList.get(i);
+			for(int j = 0; j < section.textAddrs.size(); j++) {
+				byte[] code = section.textCodes.get(j);
+				System.arraycopy(code, 0, memory, csaddr[i] + section.textAddrs.get(j), code.length);
+			}
+			for(int j = 0; j < section.modAddrs.size(); j++) {
+				modify(csaddr[i] + section.modAddrs.get(j), section.modLengths.get(j), section.modSymbols.get(j), csaddr[i]);
+			}
+			if(section.entry >= 0 && i == 0) {
+				reg[PC] = csaddr[i] + section.entry;
+			}
+		}
+		reg[L] = HALT;
+		Arrays.fill(decodedOp, 0);
+		for(int i = 0; i < program.sectionList.size(); i++) { //M 레코드까지 적용된 코드를 미리 해석
+			ObjectSection section = program.sectionList.get(i);
+			for(int j = 0; j < section.textAddrs.size(); j++) {
+				predecode(csaddr[i] + section.textAddrs.get(j), section.textCodes.get(j).length);
+			}
+		}
+	}
+
+	/**
+	 * addr부터 len byte 안의 주소들을 모두 해석해 둔다. 명령어로 해석되지 않는 주소는 해석되지 않은 채로 남는다.
+	 */
+	void predecode(int addr, int len) {
+		for(int pc = addr; pc < addr + len && pc < MEMORY_SIZE; pc++) {
+			decode(pc);
+		}
+	}
+
+	/**
+	 * M 레코드 하나를 적용한다. 길이는 half-byte 단위이며 홀수이면 첫 byte의 하위 4bit부터 수정한다.
+	 *
+	 * @param symbol : "+이름" 또는 "-이름". 이름이 없으면 section 시작 주소로 relocation한다.
+	 */
+	void modify(int addr, int halfBytes, String symbol, int csaddr) {
+		int value = csaddr;
+		char sign = '+';
+		if(symbol != null && !symbol.isEmpty()) {
+			sign = symbol.charAt(0);
+			String name = symbol.substring(1).trim();
+			Integer address = estab.get(name);
+			if(address == null) {
+				System.out.println("Error: undefined external symbol " + name);
+				return;
+			}
+			value = address;
+		}
+		int bytes = (halfBytes + 1) / 2;
+		long mask = (1L << (halfBytes * 4)) - 1;
+		long field = 0;
+		for(int i = 0; i < bytes; i++) {
+			field = field << 8 | (memory[addr + i] & 0xFF);
+		}
+		long result = sign == '-' ? field - value : field + value;
+		field = (field & ~mask) | (result & mask);
+		for(int i = bytes - 1; i >= 0; i--) {
+			memory[addr + i] = (byte)field;
+			field >>>= 8;
+		}
+	}
+
+	/**
+	 * 장치를 연결한다. 장치에서 읽는 값은 input의 내용이며, 장치에 쓴 값은 getOutput()으로 확인할 수 있다.
+	 *
+	 * @param id    : 장치 번호 (예: 0xF1)
+	 * @param input : 장치에서 읽을 내용. 없으면 null
+	 */
+	public void attach(int id, byte[] input) {
+		devices[id & 0xFF] = new Device(input);
+	}
+
+	/**
+	 * 장치에 기록된 내용을 리턴한다.
+	 */
+	public byte[] getOutput(int id) {
+		Device device = devices[id & 0xFF];
+		return device == null ? new byte[0] : device.out.toByteArray();
+	}
+
+	/**
+	 * 실행이 멈출 때까지 명령어를 실행한다.
+	 *
+	 * @param maxSteps : 실행할 최대 명령어 수
+	 * @return : 이번에 실행한 명령어 수
+	 */
+	public long run(long maxSteps) {
+		long begin = steps;
+		long limit = steps + maxSteps;
+		int[] reg = this.reg;
+		int[] decodedOp = this.decodedOp;
+		int[] decodedArg = this.decodedArg;
+		haltReason = null;
+		while(haltReason == null) {
+			if(steps >= limit) {
+				haltReason = "step limit";
+				break;
+			}
+			int pc = reg[PC];
+			if(pc == HALT) {
+				haltReason = "halt";
+				break;
+			}
+			int d = decodedOp[pc];
+			if(d == 0) {
+				d = decode(pc);
+				if(d == 0) {
+					haltReason = "illegal instruction at " + Integer.toHexString(pc);
+					break;
+				}
+			}
+			int opcode = d & 0xFF;
+			int mode = d >>> 12 & 0xF;
+			int arg = decodedArg[pc];
+			reg[PC] = pc + (d >>> 8 & 0xF);
+			steps++;
+
+			// format 2
+			int r1 = arg >>> 4 & 0xF, r2 = arg & 0xF;
+			// format 3, 4 : target address
+			int ta = arg;
+			if((mode & INDEXED) != 0) {
+				ta += reg[X];
+			}
+			if((mode & BASE_RELATIVE) != 0) {
+				ta += reg[B];
+			}
+			ta &= 0xFFFFF;
+			if((mode & (INDIRECT | IMMEDIATE)) == INDIRECT) {
+				ta = word(ta) & 0xFFFFF;
+			}
+			boolean immediate = (mode & (INDIRECT | IMMEDIATE)) == IMMEDIATE;
+
+			switch(opcode) {
+			case 0x18: reg[A] = word24(reg[A] + value(ta, immediate)); break; //ADD
+			case 0x1C: reg[A] = word24(reg[A] - value(ta, immediate)); break; //SUB
+			case 0x20: reg[A] = word24(signed(reg[A]) * signed(value(ta, immediate))); break; //MUL
+			case 0x24: { //DIV
+				int divisor = signed(value(ta, immediate));
+				if(divisor == 0) {
+					haltReason = "division by zero at " + Integer.toHexString(pc);
+					break;
+				}
+				reg[A] = word24(signed(reg[A]) / divisor);
+				break;
+			}
+			case 0x40: reg[A] = reg[A] & value(ta, immediate); break; //AND
+			case 0x44: reg[A] = reg[A] | value(ta, immediate); break; //OR
+			case 0x28: cc = compare(reg[A], value(ta, immediate)); break; //COMP
+			case 0x2C: reg[X] = word24(reg[X] + 1); cc = compare(reg[X], value(ta, immediate)); break; //TIX
+			case 0x3C: jump(pc, ta); break; //J
+			case 0x30: if(cc == 0) jump(pc, ta); break; //JEQ
+			case 0x34: if(cc > 0) jump(pc, ta); break; //JGT
+			case 0x38: if(cc < 0) jump(pc, ta); break; //JLT
+			case 0x48: reg[L] = reg[PC]; reg[PC] = ta; break; //JSUB
+			case 0x4C: reg[PC] = reg[L] & 0xFFFFF; break; //RSUB
+			case 0x00: reg[A] = value(ta, immediate); break; //LDA
+			case 0x68: reg[B] = value(ta, immediate); break; //LDB
+			case 0x08: reg[L] = value(ta, immediate); break; //LDL
+			case 0x6C: reg[S] = value(ta, immediate); break; //LDS
+			case 0x74: reg[T] = value(ta, immediate); break; //LDT
+			case 0x04: reg[X] = value(ta, immediate); break; //LDX
+			case 0x50: reg[A] = reg[A] & 0xFFFF00 | (immediate ? ta : memory[ta]) & 0xFF; break; //LDCH
+			case 0x0C: store(ta, reg[A]); break; //STA
+			case 0x78: store(ta, reg[B]); break; //STB
+			case 0x14: store(ta, reg[L]); break; //STL
+			case 0x7C: store(ta, reg[S]); break; //STS
+			case 0xE8: store(ta, cc & 0xFFFFFF); break; //STSW
+			case 0x84: store(ta, reg[T]); break; //STT
+			case 0x10: store(ta, reg[X]); break; //STX
+			case 0x54: memory[ta] = (byte)reg[A]; invalidate(ta, 1); break; //STCH
+			case 0x70: f = toDouble(immediate ? ta : float48(ta)); break; //LDF
+			case 0x80: storeFloat(ta, f); break; //STF
+			case 0x58: f = f + toDouble(float48(ta)); break; //ADDF
+			case 0x5C: f = f - toDouble(float48(ta)); break; //SUBF
+			case 0x60: f = f * toDouble(float48(ta)); break; //MULF
+			case 0x64: f = f / toDouble(float48(ta)); break; //DIVF
+			case 0x88: cc = Double.compare(f, toDouble(float48(ta))) < 0 ? -1 : f == toDouble(float48(ta)) ? 0 : 1; break; //COMPF
+			case 0xE0: cc = device(memory[ta]).ready() ? -1 : 0; break; //TD
+			case 0xD8: reg[A] = reg[A] & 0xFFFF00 | device(memory[ta]).read(); break; //RD
+			case 0xDC: device(memory[ta]).write(reg[A]); break; //WD
+			case 0x90: setRegister(r2, word24(getRegister(r2) + getRegister(r1))); break; //ADDR
+			case 0x94: setRegister(r2, word24(getRegister(r2) - getRegister(r1))); break; //SUBR
+			case 0x98: setRegister(r2, word24(signed(getRegister(r2)) * signed(getRegister(r1)))); break; //MULR
+			case 0x9C: { //DIVR
+				int divisor = signed(getRegister(r1));
+				if(divisor == 0) {
+					haltReason = "division by zero at " + Integer.toHexString(pc);
+					break;
+				}
+				setRegister(r2, word24(signed(getRegister(r2)) / divisor));
+				break;
+			}
+			case 0xA0: cc = compare(getRegister(r1), getRegister(r2)); break; //COMPR
+			case 0xB4: setRegister(r1, 0); break; //CLEAR
+			case 0xAC: setRegister(r2, getRegister(r1)); break; //RMO
+			case 0xA4: { //SHIFTL : 순환 shift
+				int n = (r2 + 1) % 24;
+				int v = getRegister(r1);
+				setRegister(r1, (v << n | v >>> (24 - n)) & 0xFFFFFF);
+				break;
+			}
+			case 0xA8: setRegister(r1, signed(getRegister(r1)) >> (r2 + 1) & 0xFFFFFF); break; //SHIFTR : 부호 유지
+			case 0xB8: reg[X] = word24(reg[X] + 1); cc = compare(reg[X], getRegister(r1)); break; //TIXR
+			case 0xC4: reg[A] = word24((int)f); break; //FIX
+			case 0xC0: f = signed(reg[A]); break; //FLOAT
+			case 0xC8: break; //NORM : F는 항상 정규화되어 있다
+			case 0xB0: haltReason = "SVC " + r1; break; //SVC
+			case 0xF0: case 0xF4: case 0xF8: case 0xD0: case 0xBC: case 0xD4: break; //SIO, HIO, TIO, LPS, SSK, STI
+			default:
+				haltReason = "unsupported instruction " + opcodeTable[opcode].inst + " at " + Integer.toHexString(pc);
+			}
+		}
+		return steps - begin;
+	}
+
+	/**
+	 * pc 위치의 명령어를 해석하여 decodedOp, decodedArg에 저장한다.
+	 *
+	 * @return : 해석 결과. opcode가 InstTable에 없으면 0
+	 */
+	int decode(int pc) {
+		int first = memory[pc] & 0xFF;
+		Instruction inst = opcodeTable[first & 0xFC];
+		if(inst == null) {
+			return 0;
+		}
+		int opcode = first & 0xFC;
+		int size = inst.format;
+		int mode = 0;
+		int arg = 0;
+		if(inst.format == 2) {
+			arg = memory[pc + 1] & 0xFF;
+		}
+		else if(inst.format == 3) {
+			int ni = first & 3;
+			int xbpe = (memory[pc + 1] & 0xF0) >> 4;
+			if(ni == 0) { //SIC 명령어 : 15bit 주소
+				arg = (memory[pc + 1] & 0x7F) << 8 | memory[pc + 2] & 0xFF;
+				size = 3;
+			}
+			else if((xbpe & 1) != 0) { //format 4
+				arg = (memory[pc + 1] & 0x0F) << 16 | (memory[pc + 2] & 0xFF) << 8 | memory[pc + 3] & 0xFF;
+				size = 4;
+			}
+			else {
+				arg = (memory[pc + 1] & 0x0F) << 8 | memory[pc + 2] & 0xFF;
+				if((xbpe & 2) != 0) { //PC-relative : 부호 있는 12bit 변위
+					arg = (arg << 20 >> 20) + pc + 3;
+				}
+				else if((xbpe & 4) != 0) {
+					mode |= BASE_RELATIVE;
+				}
+			}
+			if((xbpe & 8) != 0) {
+				mode |= INDEXED;
+			}
+			if(ni == 1) {
+				mode |= IMMEDIATE;
+			}
+			else if(ni == 2) {
+				mode |= INDIRECT;
+			}
+		}
+		int d = opcode | size << 8 | mode << 12 | DECODED;
+		decodedOp[pc] = d;
+		decodedArg[pc] = arg;
+		return d;
+	}
+
+	/**
+	 * 주소 addr부터 len byte가 바뀌었을 때, 그 byte를 포함하는 명령어들의 해석 결과를 버린다.
+	 */
+	void invalidate(int addr, int len) {
+		for(int i = Math.max(0, addr - 3); i < addr + len && i < MEMORY_SIZE; i++) {
+			decodedOp[i] = 0;
+		}
+	}
+
+	void jump(int pc, int ta) {
+		if(ta == pc) {
+			haltReason = "halt";
+		}
+		reg[PC] = ta;
+	}
+
+	int value(int ta, boolean immediate) {
+		return immediate ? ta : word(ta);
+	}
+
+	int word(int addr) {
+		return (memory[addr] & 0xFF) << 16 | (memory[addr + 1] & 0xFF) << 8 | memory[addr + 2] & 0xFF;
+	}
+
+	void store(int addr, int value) {
+		memory[addr] = (byte)(value >> 16);
+		memory[addr + 1] = (byte)(value >> 8);
+		memory[addr + 2] = (byte)value;
+		invalidate(addr, 3);
+	}
+
+	long float48(int addr) {
+		long bits = 0;
+		for(int i = 0; i < 6; i++) {
+			bits = bits << 8 | (memory[addr + i] & 0xFF);
+		}
+		return bits;
+	}
+
+	void storeFloat(int addr, double value) {
+		long bits = fromDouble(value);
+		for(int i = 5; i >= 0; i--) {
+			memory[addr + i] = (byte)bits;
+			bits >>>= 8;
+		}
+		invalidate(addr, 6);
+	}
+
+	/**
+	 * 48bit SIC/XE 실수(부호 1bit, 지수 11bit, 소수 36bit)를 double로 바꾼다.
+	 */
+	static double toDouble(long bits) {
+		long fraction = bits & ((1L << 36) - 1);
+		if(fraction == 0) {
+			return 0;
+		}
+		int exponent = (int)(bits >>> 36 & 0x7FF);
+		double value = Math.scalb((double)fraction, exponent - 1024 - 36);
+		return (bits >>> 47 & 1) != 0 ? -value : value;
+	}
+
+	static long fromDouble(double value) {
+		if(value == 0 || Double.isNaN(value)) {
+			return 0;
+		}
+		long sign = value < 0 ? 1L << 47 : 0;
+		double abs = Math.abs(value);
+		int exponent = Math.getExponent(abs) + 1; //abs = 0.fraction * 2^exponent
+		long fraction = (long)Math.scalb(abs, 36 - exponent);
+		int biased = Math.max(0, Math.min(0x7FF, exponent + 1024));
+		return sign | (long)biased << 36 | fraction & ((1L << 36) - 1);
+	}
+
+	int getRegister(int r) {
+		return r == F ? (int)f & 0xFFFFFF : r == SW ? cc & 0xFFFFFF : reg[r];
+	}
+
+	void setRegister(int r, int value) {
+		if(r == F) {
+			f = signed(value);
+		}
+		else if(r == SW) {
+			cc = signed(value);
+		}
+		else if(r < reg.length) {
+			reg[r] = value & 0xFFFFFF;
+		}
+	}
+
+	Device device(byte id) {
+		Device device = devices[id & 0xFF];
+		if(device == null) {
+			device = devices[id & 0xFF] = new Device(null);
+		}
+		return device;
+	}
+
+	static int word24(int value) {
+		return value & 0xFFFFFF;
+	}
+
+	static int signed(int value) {
+		return value << 8 >> 8;
+	}
+
+	static int compare(int a, int b) {
+		return Integer.compare(signed(a), signed(b));
+	}
+
+	/**
+	 * object program을 적재하여 실행한다.
+	 *
+	 * 사용 예 : java SicSimulator output_20171281.txt F1=input.dat
+	 * 장치 번호=파일 형식으로 입력 장치의 내용을 지정하며, 실행이 끝나면 출력된 장치의 내용을 표준 출력으로 보여준다.
+	 */
+	public static void main(String[] args) {
+		if(args.length < 1) {
+			System.out.println("usage: SicSimulator <object program> [device=file]...");
+			return;
+		}
+		try {
+			SicSimulator simulator = new SicSimulator(new InstTable("inst.data"));
+			simulator.load(ObjectProgram.readText(args[0]), 0);
+			for(int i = 1; i < args.length; i++) {
+				String[] pair = args[i].split("=", 2);
+				simulator.attach(Integer.parseInt(pair[0], 16), pair.length > 1 ? Files.readAllBytes(Paths.get(pair[1])) : null);
+			}
+			long begin = System.nanoTime();
+			long count = simulator.run(Long.MAX_VALUE);
+			long elapsed = Math.max(1, System.nanoTime() - begin);
+			System.out.println(simulator.haltReason + " after " + count + " instructions (" + (count * 1000 / elapsed) + " MIPS)");
+			System.out.println(simulator.registerDump());
+			for(int id = 0; id < simulator.devices.length; id++) {
+				if(simulator.devices[id] != null && simulator.devices[id].out.size() > 0) {
+					System.out.println("device " + FieldFormat.hex(id, 2) + ": " + new String(simulator.getOutput(id), "ISO-8859-1"));
+				}
+			}
+		}
+		catch(IOException e) {
+			System.out.println("Error: " + e);
+		}
+	}
+
+	/**
+	 * 레지스터 값을 "A=000000 X=..." 형태로 리턴한다.
+	 */
+	public String registerDump() {
+		StringBuilder sb = new StringBuilder();
+		for(int r = 0; r < InstructionEncoder.REGISTER_NAMES.length; r++) {
+			if(InstructionEncoder.REGISTER_NAMES[r] != null && r != F) {
+				sb.append(InstructionEncoder.REGISTER_NAMES[r]).append('=').append(FieldFormat.hex(getRegister(r), 6)).append(' ');
+			}
+		}
+		return sb.append("F=").append(f).toString();
+	}
+}
+
+/**
+ * simulator의 장치 하나. 메모리의 byte 배열에서 읽고, 메모리의 byte 배열에 쓴다.
+ */
+class Device {
+	ByteArrayInputStream in;
+	ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+	Device(byte[] input) {
+		in = new ByteArrayInputStream(input == null ? new byte[0] : input);
+	}
+
+	boolean ready() {
+		return true;
+	}
+
+	/**
+	 * 한 byte를 읽는다. 입력이 끝나면 0을 리턴한다.
+	 */
+	int read() {
+		int b = in.read();
+		return b < 0 ? 0 : b;
+	}
+
+	void write(int value) {
+		out.write(value & 0xFF);
+	}
+}
@@ -0,0 +1,126 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * INCLUDE로 포함되는 소스 파일들을 읽어 둔 공용 cache.
+ *
+ * 파일은 한 번만 읽어서 변경할 수 없는 줄 목록과, 각 줄을 미리 분석한 Token 원본(prototype)으로 저장하고, 같은 process
+ * 안에서 여러 번 어셈블할 때(batch, watch 등) 모든 Assembler가 같이 사용한다. 원본 Token은 밖으로 내보내지 않고 사용할
+ * 때마다 Token.copy()로 복사하므로 INCLUDE된 파일은 다시 분석하지 않는다. 파일의 수정 시각이나 크기가 바뀌면 내용을 다시
+ * 읽어 CRC32를 비교하고, 내용이 실제로 바뀐 경우에만 줄 목록과 Token을 새로 만든다.
+ */
+public class SourceCache {
+	/** process 전체에서 공유되는 cache */
+	static final SourceCache shared = new SourceCache();
+
+	/** 파일의 canonical 경로를 넣으면 저장된 내용을 리턴한다. */
+	ConcurrentHashMap<String, SourceEntry> entryMap;
+
+	public SourceCache() {
+		entryMap = new ConcurrentHashMap<String, SourceEntry>();
+	}
+
+	public static SourceCache shared() {
+		return shared;
+	}
+
+	/**
+	 * 파일의 줄 목록을 리턴한다. cache에 있고 파일이 바뀌지 않았으면 파일을 읽지 않는다.
+	 *
+	 * @param file : 읽어들일 소스 파일
+	 * @return : 변경할 수 없는 줄 목록
+	 */
+	public List<String> getLines(File file) throws IOException {
+		return getEntry(file).lines;
+	}
+
+	/**
+	 * 파일의 내용을 리턴한다. cache에 있고 파일이 바뀌지 않았으면 파일을 읽지 않는다.
+	 *
+	 * @param file : 읽어들일 소스 파일
+	 * @return : 줄 목록과 줄마다 분석한 Token 원본
+	 */
+	SourceEntry getEntry(File file) throws IOException {
+		String key = file.getCanonicalPath();
+		long lastModified = file.lastModified();
+		long length = file.length();
+		SourceEntry entry = entryMap.get(key);
+		if(entry != null && entry.lastModified == lastModified && entry.length == length) {
+			return entry;
+		}
+
+		byte[] bytes = Files.readAllBytes(file.toPath());
+		CRC32 crc = new CRC32();
+		crc.update(bytes, 0, bytes.length);
+		long checksum = crc.getValue();
+		List<String> lines;
+		Token[] tokens;
+		if(entry != null && entry.checksum == checksum) { //수정 시각만 바뀐 경우
+			lines = entry.lines;
+			tokens = entry.tokens;
+		}
+		else {
+			lines = splitLines(new String(bytes, Charset.defaultCharset()));
+			tokens = lexLines(lines);
+		}
+		entry = new SourceEntry(lastModified, bytes.length, checksum, lines, tokens);
+		entryMap.put(key, entry);
+		return entry;
+	}
+
+	/**
+	 * 줄마다 Token 원본을 만든다. Token으로 분석할 수 없는 줄(빈 줄 등)은 null로 두며, 그 줄은 사용할 때 분석한다.
+	 */
+	static Token[] lexLines(List<String> lines) {
+		Token[] tokens = new Token[lines.size()];
+		for(int i = 0; i < tokens.length; i++) {
+			try {
+				tokens[i] = new Token(lines.get(i));
+			}
+			catch(RuntimeException e) {
+				tokens[i] = null;
+			}
+		}
+		return tokens;
+	}
+
+	/**
+	 * BufferedReader.readLine()과 같은 규칙으로 줄을 나눈다.
+	 */
+	static List<String> splitLines(String text) {
+		ArrayList<String> lines = new ArrayList<String>();
+		int start = 0;
+		for(int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if(c == '\n' || c == '\r') {
+				lines.add(text.substring(start, i));
+				if(c == '\r' && i + 1 < text.length() && text.charAt(i + 1) == '\n') {
+					i++;
+				}
+				start = i + 1;
+			}
+		}
+		if(start < text.length()) {
+			lines.add(text.substring(start));
+		}
+		return Collections.unmodifiableList(lines);
+	}
+
+	/**
+	 * 파일 하나를 cache에서 지운다.
+	 */
+	public void invalidate(File file) throws IOException {
+		entryMap.remove(file.getCanonicalPath());
+	}
+
+	public void clear() {
+		entryMap.clear();
+	}
+}
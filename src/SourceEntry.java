@@ -0,0 +1,21 @@
+import java.util.List;
+
+/**
+ * cache에 저장된 파일 하나의 내용과, 변경 여부를 판단하기 위한 정보.
+ */
+public class SourceEntry {
+	final long lastModified;
+	final long length;
+	final long checksum;
+	final List<String> lines;
+	/** lines의 각 줄을 분석한 Token 원본. 수정하지 않으며 Token.copy()로 복사해서 사용한다. */
+	final Token[] tokens;
+
+	SourceEntry(long lastModified, long length, long checksum, List<String> lines, Token[] tokens) {
+		this.lastModified = lastModified;
+		this.length = length;
+		this.checksum = checksum;
+		this.lines = lines;
+		this.tokens = tokens;
+	}
+}
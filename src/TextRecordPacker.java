@@ -0,0 +1,123 @@
+import java.util.Arrays;
+
+/**
+ * 조립된 코드 조각들을 주소 순서대로 받아 T 레코드로 묶는 packer. 완성된 레코드는 ObjectSection에 추가된다.
+ *
+ * 코드 조각이 바로 앞 조각에 이어지는 주소이면 같은 레코드에 계속 채운다. 새 레코드는 RESW/RESB 등으로 주소가 끊기거나
+ * 레코드가 최대 길이만큼 찼을 때만 시작되며, 이때 남은 자리에 들어가지 않는 조각은 두 레코드에 나누어 기록한다. 따라서
+ * 주소가 이어지는 구간의 레코드는 마지막 것을 제외하면 모두 최대 길이로 채워진다.
+ *
+ * breakAtBoundary를 설정하면 남은 자리에 들어가지 않는 조각 앞에서 새 레코드를 시작하므로, 레코드가 명령어(조각) 경계에서만
+ * 나뉜다. 이때도 최대 길이보다 긴 조각(긴 BYTE 상수 등)은 최대 길이 단위로 나누어 기록한다.
+ */
+public class TextRecordPacker {
+	/** 기본 T 레코드 최대 길이 (byte) */
+	public static final int DEFAULT_LENGTH = 30;
+	/** 길이 필드가 16진수 2자리이므로 T 레코드 하나에 담을 수 있는 최대 byte 수 */
+	public static final int LIMIT = 0xFF;
+
+	/** 완성된 레코드가 추가되는 section */
+	ObjectSection out;
+	/** 레코드 하나의 최대 길이 */
+	int maxLength;
+	/** true이면 조각을 두 레코드에 나누지 않고 조각 경계에서 새 레코드를 시작한다. */
+	boolean breakAtBoundary;
+	/** 작성 중인 레코드의 내용 */
+	byte[] record;
+	/** 작성 중인 레코드의 시작 주소 */
+	int start;
+	/** 작성 중인 레코드에 채워진 byte 수 */
+	int length;
+	/** 지금까지 기록한 레코드 수 */
+	int recordCount;
+
+	public TextRecordPacker(ObjectSection out) {
+		this(out, DEFAULT_LENGTH);
+	}
+
+	/**
+	 * @param out       : T 레코드가 추가될 section
+	 * @param maxLength : 레코드 하나의 최대 길이 (1 ~ 255)
+	 */
+	public TextRecordPacker(ObjectSection out, int maxLength) {
+		this(out, maxLength, false);
+	}
+
+	/**
+	 * @param out             : T 레코드가 추가될 section
+	 * @param maxLength       : 레코드 하나의 최대 길이 (1 ~ 255)
+	 * @param breakAtBoundary : 레코드를 조각 경계에서만 나눌지 여부
+	 */
+	public TextRecordPacker(ObjectSection out, int maxLength, boolean breakAtBoundary) {
+		if(maxLength < 1 || maxLength > LIMIT) {
+			throw new IllegalArgumentException("T record length must be 1 ~ " + LIMIT + ": " + maxLength);
+		}
+		this.out = out;
+		this.maxLength = maxLength;
+		this.breakAtBoundary = breakAtBoundary;
+		record = new byte[maxLength];
+	}
+
+	/**
+	 * address에 놓이는 코드 조각을 추가한다. 앞 조각에 이어지지 않으면(breakAtBoundary이면 작성 중인 레코드에 들어가지
+	 * 않을 때도) 작성 중인 레코드를 먼저 내보낸다.
+	 *
+	 * @param address : 코드가 놓이는 주소
+	 * @param code    : 코드가 들어있는 배열
+	 * @param offset  : code 안에서 코드가 시작하는 위치
+	 * @param size    : 코드의 byte 수
+	 */
+	public void add(int address, byte[] code, int offset, int size) {
+		if(length > 0 && (address != start + length || (breakAtBoundary && length + size > maxLength))) {
+			flush();
+		}
+		while(size > 0) {
+			if(length == 0) {
+				start = address;
+			}
+			int n = Math.min(size, maxLength - length);
+			System.arraycopy(code, offset, record, length, n);
+			length += n;
+			address += n;
+			offset += n;
+			size -= n;
+			if(length == maxLength) {
+				flush();
+			}
+		}
+	}
+
+	/**
+	 * 16진수 문자열로 된 object code를 추가한다.
+	 *
+	 * @throws IllegalArgumentException : objectCode가 짝수 자리의 16진수 문자열이 아닌 경우
+	 */
+	public void addHex(int address, String objectCode) {
+		if(objectCode.length() % 2 != 0) {
+			throw new IllegalArgumentException("object code is not hex: " + objectCode);
+		}
+		byte[] code = new byte[objectCode.length() / 2];
+		for(int i = 0; i < code.length; i++) {
+			int high = Character.digit(objectCode.charAt(i * 2), 16);
+			int low = Character.digit(objectCode.charAt(i * 2 + 1), 16);
+			if(high < 0 || low < 0) {
+				throw new IllegalArgumentException("object code is not hex: " + objectCode);
+			}
+			code[i] = (byte)(high << 4 | low);
+		}
+		add(address, code, 0, code.length);
+	}
+
+	/**
+	 * 작성 중인 레코드를 out에 추가한다. section이 끝나면 반드시 호출해야 한다.
+	 */
+	public void flush() {
+		if(length == 0) {
+			return;
+		}
+		out.textAddrs.add(start);
+		out.textCodes.add(Arrays.copyOf(record, length));
+		length = 0;
+		recordCount++;
+	}
+}
@@ -0,0 +1,268 @@
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * 각 라인별로 저장된 코드를 단어 단위로 분할한 후 의미를 해석하는 데에 사용되는 변수와 연산을 정의한다. 의미 해석이 끝나면 pass2에서
+ * object code로 변형되었을 때의 바이트 코드 역시 저장한다.
+ */
+public class Token {
+	// 의미 분석 단계에서 사용되는 변수들
+	int location;
+	String label;
+	String operator;
+	String[] operand;
+	String comment;
+	char nixbpe;
+
+	// object code 생성 단계에서 사용되는 변수들
+	String objectCode;
+	int byteSize;
+	/** 조립된 코드의 TokenTable.codeBuffer 안에서의 위치. 코드가 없으면 -1 */
+	int codeOffset = -1;
+	/** format 4 주소 필드에 section 안의 상대 주소가 들어있으면 true. section 이름으로 M 레코드가 만들어진다. */
+	boolean relocate;
+	/** BASE-relative 명령어가 사용하는 base register 값 (AddressingOptimizer가 정한다) */
+	int baseAddress;
+	/** 이 Token이 나온 줄 번호 (macro와 INCLUDE를 펼친 뒤의 순서, 1부터). 분석한 곳에서 정한다. */
+	int line;
+
+	/**
+	 * 클래스를 초기화 하면서 바로 line의 의미 분석을 수행한다.
+	 * 
+	 * @param line 문장단위로 저장된 프로그램 코드
+	 */
+	public Token(String line) {
+		parsing(line);
+	}
+
+	/**
+	 * 분석 결과를 직접 채울 빈 Token을 만든다.
+	 */
+	Token() {
+	}
+
+	/**
+	 * 이 Token의 복사본을 만든다. SourceCache에 저장된 Token 원본을 수정하지 않고 사용할 때 쓴다.
+	 *
+	 * @return : 모든 변수를 복사한 새 Token. operand 배열도 새로 만든다.
+	 */
+	Token copy() {
+		Token token = new Token();
+		token.location = location;
+		token.label = label;
+		token.operator = operator;
+		token.operand = operand == null ? null : operand.clone();
+		token.comment = comment;
+		token.nixbpe = nixbpe;
+		token.objectCode = objectCode;
+		token.byteSize = byteSize;
+		token.codeOffset = codeOffset;
+		token.relocate = relocate;
+		token.baseAddress = baseAddress;
+		token.line = line;
+		return token;
+	}
+
+	/**
+	 * line의 실질적인 분석을 수행하는 함수. Token의 각 변수에 분석한 결과를 저장한다.
+	 * 
+	 * @param line 문장단위로 저장된 프로그램 코드.
+	 */
+	public void parsing(@NotNull String line) {
+		parsing(line, 0, line.length());
+	}
+
+	/**
+	 * source의 [start, end) 구간에 있는 한 줄을 분석한다. 줄 전체를 String으로 만들거나 split()하지 않고 구간의 위치만
+	 * 찾으며, Token에 저장하는 필드만 subSequence()로 만든다. 필드는 tab으로, operand는 ','로 나뉜다.
+	 *
+	 * 빈 줄처럼 필요한 필드를 찾을 수 없는 줄은 IllegalArgumentException이 발생한다.
+	 *
+	 * @param source : 줄이 들어있는 문자열
+	 * @param start  : 줄의 시작 위치
+	 * @param end    : 줄의 끝 위치 (줄바꿈 문자 제외)
+	 */
+	void parsing(CharSequence source, int start, int end) {
+		if(start == end) {
+			throw new IllegalArgumentException("empty line");
+		}
+		if(source.charAt(start) == '.') {
+			label = "";
+			operator = "";
+			comment = text(source, start, end);
+			return;
+		}
+		int fields = fieldCount(source, start, end);
+		if(fields == 0) {
+			throw new IllegalArgumentException("line has no fields");
+		}
+		int tab1 = indexOf(source, '\t', start, end);
+		int tab2 = tab1 < 0 ? -1 : indexOf(source, '\t', tab1 + 1, end);
+		label = text(source, start, tab1 < 0 ? end : tab1);
+
+		if(indexOf(source, "LTORG", start, end) != -1 || indexOf(source, "CSECT", start, end) != -1) {
+			if(fields < 2) {
+				throw new IllegalArgumentException("missing operator");
+			}
+			operator = text(source, tab1 + 1, tab2 < 0 ? end : tab2);
+		}
+		else if(fields < 3) { //operand와 주석이 없는 경우 (예: format 1 명령어)
+			operator = fields > 1 ? text(source, tab1 + 1, tab2 < 0 ? end : tab2) : "";
+			operand = new String[1];
+			operand[0] = "";
+		}
+		else {
+			operator = text(source, tab1 + 1, tab2);
+			int tab3 = indexOf(source, '\t', tab2 + 1, end);
+			int operandEnd = tab3 < 0 ? end : tab3;
+			int comma = indexOf(source, ',', tab2 + 1, operandEnd);
+			if(comma == -1) {
+				operand = new String[1];
+				operand[0] = text(source, tab2 + 1, operandEnd);
+				if(tab3 != -1) { //세 번째 tab 뒤는 모두 주석
+					comment = text(source, tab3 + 1, end);
+				}
+				return;
+			}
+			operand = new String[TokenTable.MAX_OPERAND];
+			operand[0] = text(source, tab2 + 1, comma);
+			int comma2 = indexOf(source, ',', comma + 1, operandEnd);
+			if(comma2 != -1) {
+				operand[1] = text(source, comma + 1, comma2);
+				operand[2] = text(source, comma2 + 1, operandEnd);
+			}
+			else {
+				operand[1] = text(source, comma + 1, operandEnd);
+			}
+
+			//줄의 첫 번째 ','와 다음 ',' 사이에 tab이 있으면 네 번째 필드가 주석이다
+			int first = indexOf(source, ',', start, end);
+			int second = indexOf(source, ',', first + 1, end);
+			if(!hasOtherThan(source, ',', first + 1, end)) { //split(",")에 두 번째 필드가 없는 경우
+				throw new IllegalArgumentException("missing operand after ','");
+			}
+			if(indexOf(source, '\t', first + 1, second == -1 ? end : second) != -1) {
+				if(fields < 4) {
+					throw new IllegalArgumentException("missing comment after operand");
+				}
+				int tab4 = indexOf(source, '\t', tab3 + 1, end);
+				comment = text(source, tab3 + 1, tab4 < 0 ? end : tab4);
+			}
+		}
+	}
+
+	/**
+	 * 줄의 필드 수. split("\t")과 같이 끝의 빈 필드는 세지 않는다.
+	 */
+	static int fieldCount(CharSequence source, int start, int end) {
+		int last = end - 1;
+		while(last >= start && source.charAt(last) == '\t') {
+			last--;
+		}
+		if(last < start) {
+			return 0;
+		}
+		int fields = 1;
+		for(int i = start; i < last; i++) {
+			if(source.charAt(i) == '\t') {
+				fields++;
+			}
+		}
+		return fields;
+	}
+
+	/**
+	 * [from, to) 구간에서 c가 처음 나오는 위치. 없으면 -1
+	 */
+	static int indexOf(CharSequence source, char c, int from, int to) {
+		for(int i = from; i < to; i++) {
+			if(source.charAt(i) == c) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * [from, to) 구간에서 word가 처음 나오는 위치. 없으면 -1
+	 */
+	static int indexOf(CharSequence source, String word, int from, int to) {
+		int last = to - word.length();
+		for(int i = from; i <= last; i++) {
+			int k = 0;
+			while(k < word.length() && source.charAt(i + k) == word.charAt(k)) {
+				k++;
+			}
+			if(k == word.length()) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * [from, to) 구간에 c가 아닌 문자가 있는지 확인한다.
+	 */
+	static boolean hasOtherThan(CharSequence source, char c, int from, int to) {
+		for(int i = from; i < to; i++) {
+			if(source.charAt(i) != c) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	static String text(CharSequence source, int from, int to) {
+		return from >= to ? "" : source.subSequence(from, to).toString();
+	}
+
+	/**
+	 * source의 [start, end) 구간에 있는 줄을 분석한 Token을 만든다. 형식이 잘못된 줄은 오류를 출력하고, 그 줄을 주석으로
+	 * 가진 빈 Token으로 대신하므로 어셈블은 계속된다.
+	 *
+	 * @param number : 줄 번호. line에 저장되며 오류 메시지에 사용한다.
+	 * @return : 분석한 Token
+	 */
+	static Token lex(CharSequence source, int start, int end, int number) {
+		Token token = new Token();
+		try {
+			token.parsing(source, start, end);
+		}
+		catch(IllegalArgumentException e) {
+			System.out.println("Error: line " + number + ": " + e.getMessage());
+			token = new Token();
+			token.label = "";
+			token.operator = "";
+			token.comment = text(source, start, end);
+		}
+		token.line = number;
+		return token;
+	}
+
+	/**
+	 * n,i,x,b,p,e flag를 설정한다.
+	 * 
+	 * 
+	 * 사용 예 : setFlag(nFlag, 1) 또는 setFlag(TokenTable.nFlag, 1)
+	 * 
+	 * @param flag  : 원하는 비트 위치
+	 * @param value : 집어넣고자 하는 값. 1또는 0으로 선언한다.
+	 */
+	public void setFlag(int flag, int value) {
+		if (value == 1 ) { 
+			nixbpe = (char) (nixbpe | flag);
+		}
+	}
+
+	/**
+	 * 원하는 flag들의 값을 얻어올 수 있다. flag의 조합을 통해 동시에 여러개의 플래그를 얻는 것 역시 가능하다.
+	 * 
+	 * 사용 예 : getFlag(nFlag) 또는 getFlag(nFlag|iFlag)
+	 * 
+	 * @param flags : 값을 확인하고자 하는 비트 위치
+	 * @return : 비트위치에 들어가 있는 값. 플래그별로 각각 32, 16, 8, 4, 2, 1의 값을 리턴할 것임.
+	 */
+
+	public int getFlag(int flags) {
+		return nixbpe & flags;
+	}
+}
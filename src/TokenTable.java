@@ -1,7 +1,6 @@
-import org.jetbrains.annotations.NotNull;
-
 import java.lang.reflect.Array;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * 사용자가 작성한 프로그램 코드를 단어별로 분할 한 후, 의미를 분석하고, 최종 코드로 변환하는 과정을 총괄하는 클래스이다.
@@ -28,6 +27,9 @@ public class TokenTable {
 
 	/** 각 line을 의미별로 분할하고 분석하는 공간. */
 	ArrayList<Token> tokenList;
+	/** pass2에서 조립된 명령어 코드를 순서대로 저장하는 공간. Token.codeOffset이 이 안의 위치를 가리킨다. */
+	byte[] codeBuffer;
+	int codeLength;
 
 	/**
 	 * 초기화하면서 symTable과 instTable을 링크시킨다.
@@ -41,6 +43,7 @@ public class TokenTable {
 		this.literalTab = literalTab;
 		this.instTab = instTab;
 		tokenList = new ArrayList<Token>();
+		codeBuffer = new byte[64];
 	}
 
 	/**
@@ -52,6 +55,15 @@ public class TokenTable {
 		tokenList.add(new Token(line));
 	}
 
+	/**
+	 * 이미 분석된 Token을 tokenList에 추가한다.
+	 * 
+	 * @param token : 분석이 끝난 Token
+	 */
+	public void putToken(Token token) {
+		tokenList.add(token);
+	}
+
 	/**
 	 * tokenList에서 index에 해당하는 Token을 리턴한다.
 	 * 
@@ -64,168 +76,180 @@ public class TokenTable {
 
 	/**
 	 * Pass2 과정에서 사용한다. instruction table, symbol table 등을 참조하여 objectcode를 생성하고, 이를
-	 * 저장한다.
+	 * 저장한다. format 1~4의 모든 명령어를 InstructionEncoder로 조립하여 codeBuffer에 기록한다. 16진수 문자열은
+	 * 만들지 않으며, 필요하면 getObjectCode()로 얻는다. 레지스터 이름이 잘못된 명령어는 오류를 출력하고 코드를 만들지 않는다.
 	 * 
 	 * @param index
 	 */
 	public void makeObjectCode(int index) {
-		if(instTab.instMap.containsKey(tokenList.get(index).operator)) { 				
-			int code = instTab.instMap.get(tokenList.get(index).operator).opcode << 16; 
-			code += getToken(index).nixbpe << 12;
-			if(tokenList.get(index).operand[0].contains("#")) {
-				code += Integer.parseInt(tokenList.get(index).operand[0].substring(1));
+		Token token = getToken(index);
+		boolean extended = token.operator.startsWith("+");
+		Instruction inst = instTab.instMap.get(extended ? token.operator.substring(1) : token.operator);
+		if(inst == null) {
+			return;
+		}
+		int format = extended ? 4 : inst.format;
+		int size = InstructionEncoder.SIZE[format];
+		int nixbpe = token.nixbpe;
+		if(format >= 3 && token.operand != null && token.operand.length > 1 && "X".equals(token.operand[1])) {
+			nixbpe |= xFlag;
+		}
+
+		int field = 0;
+		token.relocate = false;
+		if(format == 2) {
+			try {
+				field = InstructionEncoder.registerField(inst.opcode, token.operand);
 			}
-			for(int i = 0; i < symTab.label.size(); i++) {
-				if(tokenList.get(index).operand[0].contains(symTab.label.get(i))) {
-					int addr = symTab.locationList.get(i) - tokenList.get(index+1).location;
-					if(addr > 0) {
-						code += addr;
-					} 
-					else {
-						short ad = (short)addr;
-						short mask = 4095;
-						code += (ad & mask);
-					}
-				}
+			catch(IllegalArgumentException e) {
+				System.out.println("Error: line " + token.line + ": " + e.getMessage());
+				return;
 			}
-			for(int i = 0; i < literalTab.label.size(); i++) {
-				if(tokenList.get(index).operand[0].contains(literalTab.label.get(i))) {
-					int addr = literalTab.locationList.get(i) - tokenList.get(index+1).location;
-					code += addr;
-				}
-			}				
-			getToken(index).objectCode = String.format("%06X",code);
-	}
+		}
+		else if(format >= 3) {
+			field = operandField(token, nixbpe, size);
+		}
+		int code = InstructionEncoder.encode(format, inst.opcode, nixbpe, field);
+		token.byteSize = size;
+		token.codeOffset = putCode(code, size);
 	}
 
 	/**
-	 * index번호에 해당하는 object code를 리턴한다.
+	 * format 3, 4 명령어의 변위 또는 주소 필드를 구한다. format 4의 주소 필드에 이 section의 상대 주소(absolute가 아닌
+	 * symbol이나 literal의 주소)를 넣으면 token.relocate를 설정하여, 적재할 때 section 시작 주소를 더하는 M 레코드가
+	 * 만들어지게 한다.
 	 * 
-	 * @param index
-	 * @return : object code
+	 * @param token  : 명령어 Token
+	 * @param nixbpe : 명령어에 적용될 flag
+	 * @param size   : 명령어 길이
+	 * @return : format 3은 PC 또는 BASE 기준 변위, format 4는 주소. 이 section에서 찾을 수 없는 external symbol은 0
 	 */
-	public String getObjectCode(int index) {
-		return tokenList.get(index).objectCode;
+	int operandField(Token token, int nixbpe, int size) {
+		if(token.operand == null || token.operand[0] == null || token.operand[0].isEmpty()) {
+			return 0;
+		}
+		String operand = token.operand[0];
+		if(operand.charAt(0) == '#' || operand.charAt(0) == '@') {
+			operand = operand.substring(1);
+		}
+		int address = findAddress(operand);
+		if(address < 0) {
+			try {
+				return Integer.parseInt(operand); //상수 operand
+			}
+			catch(NumberFormatException e) {
+				return 0; //external symbol은 M 레코드로 수정된다
+			}
+		}
+		if((nixbpe & pFlag) != 0) {
+			return address - (token.location + size);
+		}
+		if((nixbpe & bFlag) != 0) {
+			return address - token.baseAddress;
+		}
+		if(size == 4 && !isAbsolute(operand)) {
+			token.relocate = true;
+		}
+		return address;
 	}
 
-}
-
-/**
- * 각 라인별로 저장된 코드를 단어 단위로 분할한 후 의미를 해석하는 데에 사용되는 변수와 연산을 정의한다. 의미 해석이 끝나면 pass2에서
- * object code로 변형되었을 때의 바이트 코드 역시 저장한다.
- */
-class Token {
-	// 의미 분석 단계에서 사용되는 변수들
-	int location;
-	String label;
-	String operator;
-	String[] operand;
-	String comment;
-	char nixbpe;
-
-	// object code 생성 단계에서 사용되는 변수들
-	String objectCode;
-	int byteSize;
+	/**
+	 * symbol이 absolute인지 확인한다. 숫자나 두 symbol의 차(예: BUFEND-BUFFER)로 정의된 EQU symbol이 absolute이며,
+	 * label과 literal, EQU *는 section 안의 상대 주소이다.
+	 */
+	boolean isAbsolute(String symbol) {
+		if(symbol.charAt(0) == '=') {
+			return false;
+		}
+		for(Token token : tokenList) {
+			if(symbol.equals(token.label)) {
+				if(!token.operator.equals("EQU") || token.operand == null || token.operand[0] == null) {
+					return false;
+				}
+				String value = token.operand[0];
+				return value.indexOf('-') > 0 || (!value.isEmpty() && Character.isDigit(value.charAt(0)));
+			}
+		}
+		return false;
+	}
 
 	/**
-	 * 클래스를 초기화 하면서 바로 line의 의미 분석을 수행한다.
+	 * symbol 또는 literal(=C'..', =X'..')이 가리키는 주소를 찾는다.
 	 * 
-	 * @param line 문장단위로 저장된 프로그램 코드
+	 * @return : 주소. symbol table, literal table에 없으면 -1
 	 */
-	public Token(String line) {
-		parsing(line);
+	int findAddress(String operand) {
+		if(operand.charAt(0) == '=') {
+			int idx = literalTab.label.indexOf(operand.split("'")[1]);
+			return idx < 0 ? -1 : literalTab.locationList.get(idx);
+		}
+		int idx = symTab.label.indexOf(operand);
+		return idx < 0 ? -1 : symTab.locationList.get(idx);
 	}
 
 	/**
-	 * line의 실질적인 분석을 수행하는 함수. Token의 각 변수에 분석한 결과를 저장한다.
+	 * literal table에 저장된 literal(따옴표 안의 내용)의 object code를 구한다. C와 X 중 어느 쪽인지는 section에서
+	 * 원래 표기를 찾아 정한다.
 	 * 
-	 * @param line 문장단위로 저장된 프로그램 코드.
+	 * @return : 16진수 문자열. section에 표기가 없으면 X'..'로 본다.
 	 */
-	public void parsing(@NotNull String line) {
-		if(line.charAt(0) == '.') {
-			label = ""; 
-			operator = "";
-			comment = line;
-		}
-		else if(line.contains("LTORG")) {
-			label = line.split("\t")[0];
-			operator = line.split("\t")[1];
-		}
-		else if(line.contains("CSECT")) {
-			label = line.split("\t")[0];
-			operator = line.split("\t")[1];
-		}
-		else { 
-			label = line.split("\t")[0];
-			operator = line.split("\t")[1];
-			if(line.split("\t")[2].contains(",")) { 
-				int idx = line.split("\t")[2].indexOf(","); 
-				String ifthree = line.split("\t")[2].substring(idx+1); 
-				if(ifthree.contains(",")) { 
-					operand = new String[3];
-					String[] array2 = line.split("\t")[2].split(",",3);
-					operand[0] = array2[0];
-					operand[1] = array2[1];
-					operand[2] = array2[2];
-					
-					int idx2 = line.split(",")[1].indexOf(",");
-					String ifcomment = line.split(",")[1].substring(idx2+1);
-					if(ifcomment.contains("\t")) { 
-						comment = line.split("\t")[3];
-					}
-				}
-				else { 
-					operand = new String[3];
-					String[] array2 = line.split("\t")[2].split(",",3);
-					operand[0] = array2[0];
-					operand[1] = array2[1];
-					int idx2 = line.split(",")[1].indexOf(",");
-					String ifcomment = line.split(",")[1].substring(idx2+1);
-					if(ifcomment.contains("\t")) { 
-						comment = line.split("\t")[3];
-					}
-				}
-			}
-			else {
-				operand = new String[1];
-				operand[0] = line.split("\t")[2];
-				
-				int idx = line.indexOf("\t");
-				String ifcomment = line.substring(idx+1);
-				int idx2 = ifcomment.indexOf("\t");
-				int idx3 = ifcomment.substring(idx2+1).indexOf("\t");
-				if(idx3 != -1) { 
-					comment = ifcomment.substring(idx2+1).substring(idx3+1);
-				}
+	String literalHex(String literal) {
+		for(Token token : tokenList) {
+			if(token.operand != null && token.operand[0] != null && token.operand[0].startsWith("=")
+					&& token.operand[0].split("'")[1].equals(literal)) {
+				return constantHex(token.operand[0].substring(1));
 			}
 		}
+		return literal;
 	}
 
 	/**
-	 * n,i,x,b,p,e flag를 설정한다.
-	 * 
+	 * C'..' 또는 X'..' 상수의 object code를 구한다. C'..'는 문자마다 1byte로 바꾼다. (예: C'EOF' -> 454F46)
 	 * 
-	 * 사용 예 : setFlag(nFlag, 1) 또는 setFlag(TokenTable.nFlag, 1)
-	 * 
-	 * @param flag  : 원하는 비트 위치
-	 * @param value : 집어넣고자 하는 값. 1또는 0으로 선언한다.
+	 * @return : 16진수 문자열
 	 */
-	public void setFlag(int flag, int value) {
-		if (value == 1 ) { 
-			nixbpe = (char) (nixbpe | flag);
+	static String constantHex(String constant) {
+		String value = constant.split("'")[1];
+		if(constant.charAt(0) != 'C') {
+			return value;
+		}
+		char[] chars = new char[value.length() * 2];
+		for(int i = 0; i < value.length(); i++) {
+			FieldFormat.putHex(chars, i * 2, value.charAt(i) & 0xFF, 2);
 		}
+		return new String(chars);
 	}
 
 	/**
-	 * 원하는 flag들의 값을 얻어올 수 있다. flag의 조합을 통해 동시에 여러개의 플래그를 얻는 것 역시 가능하다.
+	 * 명령어 코드를 codeBuffer에 기록한다.
 	 * 
-	 * 사용 예 : getFlag(nFlag) 또는 getFlag(nFlag|iFlag)
-	 * 
-	 * @param flags : 값을 확인하고자 하는 비트 위치
-	 * @return : 비트위치에 들어가 있는 값. 플래그별로 각각 32, 16, 8, 4, 2, 1의 값을 리턴할 것임.
+	 * @return : codeBuffer 안에서 코드가 시작하는 위치
 	 */
+	int putCode(int code, int size) {
+		if(codeLength + size > codeBuffer.length) {
+			codeBuffer = Arrays.copyOf(codeBuffer, Math.max(codeBuffer.length * 2, codeLength + size));
+		}
+		int offset = codeLength;
+		codeLength = InstructionEncoder.write(codeBuffer, codeLength, code, size);
+		return offset;
+	}
 
-	public int getFlag(int flags) {
-		return nixbpe & flags;
+	/**
+	 * index번호에 해당하는 object code를 리턴한다. codeBuffer에 조립된 코드는 이때 16진수 문자열로 만든다.
+	 * 
+	 * @param index
+	 * @return : object code. 코드가 없으면 null
+	 */
+	public String getObjectCode(int index) {
+		Token token = tokenList.get(index);
+		if(token.codeOffset < 0) {
+			return token.objectCode;
+		}
+		char[] chars = new char[token.byteSize * 2];
+		for(int i = 0; i < token.byteSize; i++) {
+			FieldFormat.putHex(chars, i * 2, codeBuffer[token.codeOffset + i] & 0xFF, 2);
+		}
+		return new String(chars);
 	}
+
 }
@@ -0,0 +1,250 @@
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 소스 파일과 inst.data를 감시하다가 바뀌면 같은 process 안에서 다시 어셈블하는 watch mode.
+ *
+ * InstTable은 inst.data가 바뀔 때만 다시 읽고, 연속된 저장은 debounce 시간 동안 모아서 한 번만 처리한다.
+ * 출력 파일은 listing과 cross-reference를 포함하여 모두 메모리에서 만든 뒤, 기존 파일과 내용이 다를 때만 다시 쓴다.
+ * 매 cycle마다 걸린 시간을 출력한다.
+ * -optimize, -tlen, -tboundary, -listing, -xref 옵션은 매 cycle의 Assembler에 그대로 적용된다. 한 cycle에서 발생한 오류(잘못된 소스나
+ * inst.data 등)는 출력만 하고 감시를 계속한다.
+ */
+public class WatchMode {
+	/** 마지막 변경 이후 이 시간(ms) 동안 변경이 없으면 다시 어셈블한다. */
+	static final long DEBOUNCE_MILLIS = 50;
+
+	String instFile;
+	String inputFile;
+	/** OutputStage.OBJECT, SYMBOL, LITERAL 순서의 출력 파일 이름 */
+	String[] outputFiles;
+	/** pass1 뒤에 AddressingOptimizer를 적용할지 여부 (-optimize) */
+	boolean optimize;
+	/** T 레코드 하나의 최대 길이 (-tlen) */
+	int textRecordLength = TextRecordPacker.DEFAULT_LENGTH;
+	/** T 레코드를 명령어 경계에서만 나눌지 여부 (-tboundary) */
+	boolean textRecordBoundary;
+	/** listing 파일 이름. listing을 만들지 않으면 null (-listing) */
+	String listingFile;
+	/** cross-reference 파일 이름. 만들지 않으면 null (-xref) */
+	String xrefFile;
+
+	/** 다시 어셈블할 때 재사용하는 instruction table. inst.data를 읽지 못했으면 null */
+	InstTable instTable;
+	WatchService watchService;
+	/** 감시 중인 디렉토리. WatchKey를 넣으면 디렉토리 경로를 리턴한다. */
+	HashMap<WatchKey, Path> dirMap;
+	/** 변경되면 다시 어셈블해야 하는 파일들의 절대 경로 */
+	HashSet<Path> watchedFiles;
+
+	public WatchMode(String instFile, String inputFile, String objectFile, String symbolFile, String literalFile) {
+		this.instFile = instFile;
+		this.inputFile = inputFile;
+		this.outputFiles = new String[] { objectFile, symbolFile, literalFile };
+		dirMap = new HashMap<WatchKey, Path>();
+		watchedFiles = new HashSet<Path>();
+	}
+
+	/**
+	 * 처음 한 번 어셈블한 뒤, 파일이 바뀔 때마다 다시 어셈블한다. 감시가 중단될 때까지 리턴하지 않는다.
+	 */
+	public void run() throws IOException, InterruptedException {
+		watchService = FileSystems.getDefault().newWatchService();
+		try {
+			watch(new File(instFile));
+			loadInstTable();
+			cycle();
+			while(true) {
+				HashSet<Path> changed = new HashSet<Path>();
+				collect(watchService.take(), changed);
+				WatchKey key;
+				while((key = watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+					collect(key, changed);
+				}
+				if(changed.isEmpty()) {
+					continue;
+				}
+				if(changed.contains(absolute(new File(instFile)))) {
+					loadInstTable();
+				}
+				cycle();
+			}
+		}
+		catch(ClosedWatchServiceException e) {
+			// close()로 감시가 중단된 경우
+		}
+		finally {
+			watchService.close();
+		}
+	}
+
+	/**
+	 * 감시를 중단한다.
+	 */
+	public void close() throws IOException {
+		watchService.close();
+	}
+
+	/**
+	 * WatchKey에 쌓인 이벤트 중 감시 대상 파일의 변경만 changed에 모은다.
+	 */
+	void collect(WatchKey key, HashSet<Path> changed) {
+		Path dir = dirMap.get(key);
+		for(WatchEvent<?> event : key.pollEvents()) {
+			if(dir != null && event.context() instanceof Path) {
+				Path file = dir.resolve((Path)event.context());
+				if(watchedFiles.contains(file)) {
+					changed.add(file);
+				}
+			}
+		}
+		key.reset();
+	}
+
+	/**
+	 * inst.data를 다시 읽는다. 읽지 못하면 오류를 출력하고, inst.data가 다시 바뀔 때까지 어셈블하지 않는다.
+	 */
+	void loadInstTable() {
+		try {
+			instTable = new InstTable(instFile);
+		}
+		catch(RuntimeException e) {
+			instTable = null;
+			System.out.println("Error: " + instFile + ": " + e);
+		}
+	}
+
+	/**
+	 * 한 번 어셈블한다. 오류가 발생하면 출력만 하고 리턴하므로 감시는 계속된다.
+	 *
+	 * @return : 어셈블하고 출력 파일까지 확인했으면 true
+	 */
+	boolean cycle() {
+		if(instTable == null) {
+			return false;
+		}
+		try {
+			assemble();
+			return true;
+		}
+		catch(IOException | RuntimeException e) {
+			System.out.println("Error: " + e);
+			return false;
+		}
+	}
+
+	/**
+	 * 옵션을 적용하여 한 번 어셈블하고, 내용이 바뀐 출력 파일만 다시 쓴다.
+	 */
+	void assemble() throws IOException {
+		long begin = System.nanoTime();
+		Assembler assembler = new Assembler(instTable);
+		assembler.optimize = optimize;
+		assembler.textRecordLength = textRecordLength;
+		assembler.textRecordBoundary = textRecordBoundary;
+		if(xrefFile != null) {
+			assembler.xref = new CrossReference(instTable);
+		}
+		watch(new File(inputFile));
+		ByteArrayOutputStream listing = new ByteArrayOutputStream();
+		if(listingFile != null) {
+			assembler.listing = new ListingWriter(Channels.newChannel(listing), Charset.defaultCharset());
+		}
+		try {
+			assembler.assemble(inputFile);
+		}
+		finally {
+			if(assembler.listing != null) {
+				assembler.listing.close();
+			}
+			for(File file : assembler.includeList) {
+				watch(file);
+			}
+		}
+
+		OutputStage stage = new OutputStage(assembler);
+		int written = 0;
+		for(int kind = 0; kind < outputFiles.length; kind++) {
+			written += update(outputFiles[kind], stage.encode(kind));
+		}
+		if(listingFile != null) {
+			written += update(listingFile, new ByteBuffer[] { ByteBuffer.wrap(listing.toByteArray()) });
+		}
+		if(assembler.xref != null) {
+			ByteArrayOutputStream xref = new ByteArrayOutputStream();
+			assembler.xref.write(xref);
+			written += update(xrefFile, new ByteBuffer[] { ByteBuffer.wrap(xref.toByteArray()) });
+		}
+		long elapsed = (System.nanoTime() - begin) / 1000;
+		System.out.println("reassembled " + inputFile + " in " + elapsed + " us, " + written + " file(s) written");
+	}
+
+	/**
+	 * 파일의 내용이 buffers와 다를 때만 파일을 다시 쓴다.
+	 *
+	 * @return : 파일을 다시 썼으면 1, 아니면 0
+	 */
+	static int update(String fileName, ByteBuffer[] buffers) throws IOException {
+		if(sameContent(new File(fileName), buffers)) {
+			return 0;
+		}
+		OutputStage.writeFile(fileName, buffers);
+		return 1;
+	}
+
+	/**
+	 * 파일과 그 디렉토리를 감시 대상에 추가한다.
+	 */
+	void watch(File file) throws IOException {
+		Path path = absolute(file);
+		if(watchedFiles.add(path)) {
+			Path dir = path.getParent();
+			if(!dirMap.containsValue(dir)) {
+				WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+				dirMap.put(key, dir);
+			}
+		}
+	}
+
+	static Path absolute(File file) {
+		return file.toPath().toAbsolutePath().normalize();
+	}
+
+	/**
+	 * 파일의 내용이 buffers를 이어붙인 내용과 같은지 확인한다.
+	 */
+	static boolean sameContent(File file, ByteBuffer[] buffers) throws IOException {
+		long total = 0;
+		for(ByteBuffer buffer : buffers) {
+			total += buffer.remaining();
+		}
+		if(!file.isFile() || file.length() != total) {
+			return false;
+		}
+		byte[] bytes = Files.readAllBytes(file.toPath());
+		int pos = 0;
+		for(ByteBuffer buffer : buffers) {
+			for(int i = buffer.position(); i < buffer.limit(); i++) {
+				if(bytes[pos++] != buffer.get(i)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,27 @@
+#!/bin/sh
+# Builds src/ and test/ into out/test and runs every test/*Test.java class from the project root
+# (the tests read inst.data and input.txt from here). Exits non-zero when any check fails.
+#
+# TokenTable uses org.jetbrains.annotations; point ANNOTATIONS_JAR at that jar
+# (default: lib/annotations.jar).
+# Usage: ./test.sh [TestName...]
+
+cd "$(dirname "$0")" || exit 1
+
+OUT=out/test
+ANNOTATIONS_JAR=${ANNOTATIONS_JAR:-lib/annotations.jar}
+JAVA=${JAVA:-java}
+JAVAC=${JAVAC:-javac}
+
+rm -rf "$OUT"
+mkdir -p "$OUT" || exit 1
+"$JAVAC" -nowarn -encoding UTF-8 -cp "$ANNOTATIONS_JAR" -d "$OUT" src/*.java test/*.java || exit 1
+
+if [ $# -eq 0 ]; then
+	set -- $(cd test && ls *Test.java | sed 's/\.java$//')
+fi
+status=0
+for name in "$@"; do
+	"$JAVA" -cp "$OUT" "$name" || status=1
+done
+exit $status
@@ -0,0 +1,71 @@
+/**
+ * AddressingOptimizer : PC-relative, BASE-relative, direct, format 4 선택과 format 4의 M 레코드를 검사한다.
+ */
+public class AddressingOptimizerTest {
+	static Assembler optimize(String... lines) throws Exception {
+		Assembler assembler = Fixture.assembler();
+		assembler.optimize = true;
+		assembler.assemble(Fixture.write(lines).getPath());
+		return assembler;
+	}
+
+	public static void main(String[] args) throws Exception {
+		Assembler assembler = optimize(
+				"PROG\tSTART\t0",
+				"FIRST\tLDB\t#TAB",
+				"\tLDA\tNEAR",
+				"\tLDT\t#MAXLEN",
+				"\tTD\t=X'F1'",
+				"\tRSUB",
+				"NEAR\tRESW\t1",
+				"BUF\tRESB\t4096",
+				"TAB\tRESW\t1",
+				"LAST\tEQU\t*",
+				"MAXLEN\tEQU\tLAST-TAB",
+				"\tEND\tFIRST");
+		TokenTable TT = assembler.TokenList.get(0);
+		Check.equal("far symbol is format 4", "+LDB", TT.getToken(1).operator);
+		Check.equal("+LDB #TAB", "69101014", TT.getObjectCode(1));
+		Check.equal("near symbol is PC-relative", "03200A", TT.getObjectCode(2));
+		Check.equal("absolute EQU is direct", "750003", TT.getObjectCode(3));
+		String text = Fixture.objectText(assembler);
+		Check.isTrue("promoted format 4 is relocated", text.contains("\nM00000105+PROG\n"));
+		Check.equal("far literal is format 4", "+TD", TT.getToken(4).operator);
+		Check.isTrue("promoted literal is relocated", text.contains("\nM00000B05+PROG\n"));
+
+		//BASE가 있으면 format 4 대신 BASE-relative를 사용한다
+		assembler = optimize(
+				"PROG\tSTART\t0",
+				"FIRST\tLDB\t#TAB",
+				"\tBASE\tTAB",
+				"\tLDA\tTAB",
+				"\tTD\t=X'F1'",
+				"\tRSUB",
+				"BUF\tRESB\t4096",
+				"TAB\tRESW\t1",
+				"\tEND\tFIRST");
+		TT = assembler.TokenList.get(0);
+		Check.equal("BASE-relative", "034000", TT.getObjectCode(3));
+
+		//최적화하지 않을 때도 x flag는 symbol 이름이 아니라 ",X"로 정해진다
+		for(boolean optimize : new boolean[] { false, true }) {
+			assembler = Fixture.assembler();
+			assembler.optimize = optimize;
+			assembler.assemble(Fixture.write(
+					"PROG\tSTART\t0",
+					"FIRST\t+STCH\tDATA,X",
+					"\t+LDA\tBUFFER",
+					"\tTD\t=X'05'",
+					"DATA\tRESW\t1",
+					"BUFFER\tRESB\t10",
+					"\tEND\tFIRST").getPath());
+			TT = assembler.TokenList.get(0);
+			String mode = optimize ? "optimized " : "default ";
+			Check.equal(mode + "indexed operand", optimize ? "57A006" : "5790000B", TT.getObjectCode(1));
+			Check.isTrue(mode + "indexed flag", TT.getToken(1).getFlag(TokenTable.xFlag) != 0);
+			Check.equal(mode + "BUFFER without ,X", optimize ? "032006" : "0310000E", TT.getObjectCode(2));
+			Check.isTrue(mode + "BUFFER flag", TT.getToken(2).getFlag(TokenTable.xFlag) == 0);
+		}
+		Check.done("AddressingOptimizerTest");
+	}
+}
@@ -0,0 +1,32 @@
+/**
+ * BinaryObjectFile : 메모리의 section에서 만든 binary object가 텍스트 object program과 같은 내용을 갖는지 검사한다.
+ */
+public class BinaryObjectFileTest {
+	public static void main(String[] args) throws Exception {
+		Assembler assembler = Fixture.assemble("input.txt");
+		ObjectProgram program = assembler.makeObjectProgram();
+		String text = program.toText();
+
+		BinaryObjectFile binary = new BinaryObjectFile(BinaryObjectFile.encode(program));
+		Check.equal("binary -> text round trip", text, binary.toObjectProgram().toText());
+
+		ObjectProgram parsed = new ObjectProgram();
+		for(String line : text.split("\n")) {
+			parsed.parseRecord(line);
+		}
+		Check.equal("text -> binary -> text", text,
+				new BinaryObjectFile(BinaryObjectFile.encode(parsed)).toObjectProgram().toText());
+
+		Check.equal("section count", 3, program.sectionList.size());
+		ObjectSection copy = program.sectionList.get(0);
+		Check.equal("H name", "COPY", copy.name);
+		Check.equal("first T address", 0, (int)copy.textAddrs.get(0));
+		TokenTable first = assembler.TokenList.get(0);
+		byte[] expected = new byte[3];
+		System.arraycopy(first.codeBuffer, 0, expected, 0, 3);
+		byte[] actual = new byte[3];
+		System.arraycopy(copy.textCodes.get(0), 0, actual, 0, 3);
+		Check.equal("T bytes come from codeBuffer", expected, actual);
+		Check.done("BinaryObjectFileTest");
+	}
+}
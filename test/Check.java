@@ -0,0 +1,59 @@
+import java.util.Arrays;
+
+/**
+ * test 클래스들이 사용하는 간단한 검사 도구. 실패한 검사를 출력하고 개수를 센다.
+ * 각 test 클래스의 main()은 검사를 모두 수행한 뒤 done()을 호출한다.
+ */
+public class Check {
+	static int checks;
+	static int failures;
+
+	/**
+	 * 두 값이 같은지 검사한다. 배열은 내용을 비교한다.
+	 */
+	static void equal(String what, Object expected, Object actual) {
+		checks++;
+		boolean same;
+		if(expected instanceof int[] && actual instanceof int[]) {
+			same = Arrays.equals((int[])expected, (int[])actual);
+		}
+		else if(expected instanceof byte[] && actual instanceof byte[]) {
+			same = Arrays.equals((byte[])expected, (byte[])actual);
+		}
+		else {
+			same = expected == null ? actual == null : expected.equals(actual);
+		}
+		if(!same) {
+			failures++;
+			System.out.println("FAIL " + what + "\n  expected: " + show(expected) + "\n  actual  : " + show(actual));
+		}
+	}
+
+	static void isTrue(String what, boolean condition) {
+		checks++;
+		if(!condition) {
+			failures++;
+			System.out.println("FAIL " + what);
+		}
+	}
+
+	static String show(Object value) {
+		if(value instanceof int[]) {
+			return Arrays.toString((int[])value);
+		}
+		if(value instanceof byte[]) {
+			return Arrays.toString((byte[])value);
+		}
+		return String.valueOf(value);
+	}
+
+	/**
+	 * 결과를 출력하고, 실패한 검사가 있으면 1로 종료한다.
+	 */
+	static void done(String name) {
+		System.out.println(name + ": " + (checks - failures) + "/" + checks + " passed");
+		if(failures > 0) {
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,47 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * CrossReference : input.txt의 section별 정의, 사용 줄 번호와 출력 파일을 검사한다.
+ */
+public class CrossReferenceTest {
+	public static void main(String[] args) throws IOException {
+		Assembler assembler = Fixture.assembler();
+		CrossReference xref = new CrossReference(assembler.instTable);
+		assembler.xref = xref;
+		assembler.assemble("input.txt");
+
+		Check.equal("sections", Arrays.asList("COPY", "RDREC", "WRREC"), xref.sectionNames);
+		Check.equal("BUFFER defs", new int[] { 20 }, xref.definitions("COPY", "BUFFER"));
+		Check.equal("BUFFER refs", new int[] { 2, 12, 22 }, xref.references("COPY", "BUFFER"));
+		Check.equal("literal defs at LTORG", new int[] { 19 }, xref.definitions("COPY", "=C'EOF'"));
+		Check.equal("literal refs", new int[] { 11 }, xref.references("COPY", "=C'EOF'"));
+		Check.equal("literal defs at END", new int[] { 58 }, xref.definitions("WRREC", "=X'05'"));
+		Check.equal("repeated literal refs", new int[] { 51, 54 }, xref.references("WRREC", "=X'05'"));
+		Check.equal("EXTREF and WORD expression", new int[] { 27, 43 }, xref.references("RDREC", "BUFEND"));
+		Check.equal("indexed operand", new int[] { 27, 37, 43 }, xref.references("RDREC", "BUFFER"));
+		Check.equal("external symbol has no defs", new int[0], xref.definitions("RDREC", "BUFFER"));
+		Check.equal("label defs", new int[] { 5 }, xref.definitions("COPY", "CLOOP"));
+		Check.equal("label refs", new int[] { 10 }, xref.references("COPY", "CLOOP"));
+		Check.isTrue("register operand is not a symbol", xref.find("RDREC", "X") == null);
+		Check.equal("unknown section", new int[0], xref.references("NONE", "BUFFER"));
+
+		Check.equal("sectionsOf BUFFER", Arrays.asList("COPY", "RDREC", "WRREC"), xref.sectionsOf("BUFFER"));
+		Check.equal("sectionsOf MAXLEN", Arrays.asList("COPY", "RDREC"), xref.sectionsOf("MAXLEN"));
+		Check.equal("sectionsOf unknown", Arrays.asList(), xref.sectionsOf("NOPE"));
+
+		File file = File.createTempFile("xref", ".txt");
+		file.deleteOnExit();
+		xref.print(file.getPath());
+		List<String> lines = Files.readAllLines(file.toPath());
+		Check.equal("first line", "COPY", lines.get(0));
+		Check.isTrue("BUFFER line", lines.contains("BUFFER\t20\t2,12,22"));
+		Check.isTrue("RETADR line", lines.contains("RETADR\t17\t4,16"));
+		Check.isTrue("external symbol line", lines.contains("LENGTH\t-\t48,50"));
+
+		Check.done("CrossReferenceTest");
+	}
+}
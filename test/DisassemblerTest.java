@@ -0,0 +1,43 @@
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+
+/**
+ * Disassembler : literal pool과 BYTE 상수는 data로, END는 E 레코드의 시작 주소로 출력되는지 검사한다.
+ */
+public class DisassemblerTest {
+	static String disassemble(String objectText) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new Disassembler(Fixture.instTable()).disassemble(new BufferedReader(new StringReader(objectText)), out);
+		return out.toString("UTF-8");
+	}
+
+	public static void main(String[] args) throws Exception {
+		String text = disassemble(Fixture.objectText(Fixture.assemble("input.txt")));
+		Check.isTrue("literal pool is data", text.contains("0030\t454F46\t\tBYTE\tX'454F46'\n"));
+		Check.isTrue("BYTE constant is data", text.contains("0027\tF1\t\tBYTE\tX'F1'\n"));
+		Check.isTrue("WRREC literal is data", text.contains("001B\t05\t\tBYTE\tX'05'\n"));
+		Check.isTrue("WORD with M records", text.contains("0028\t000000\t\tWORD\tBUFEND-BUFFER\n"));
+		Check.isTrue("code before the literal pool", text.contains("0027\t3E2000\t\tJ\t@002A\n"));
+		Check.isTrue("no decoded data", !text.contains("SIO") && !text.contains("(B)"));
+		Check.isTrue("END uses the E record", text.endsWith("\t\t\tEND\t0000\n"));
+
+		//E 레코드의 시작 주소가 D 레코드에 있으면 이름으로 표시한다
+		text = disassemble(Fixture.objectText(Fixture.assembleLines(
+				"PROG\tSTART\t0",
+				"\tEXTDEF\tFIRST,LAST",
+				"FIRST\tJ\tLOAD",
+				"DATA\tBYTE\tX'FF00'",
+				"LOAD\tLDA\t=C'AB'",
+				"LAST\tRSUB",
+				"\tEND\tFIRST")));
+		Check.isTrue("jump target ends data", text.contains("0003\tFF00\t\tBYTE\tX'FF00'\n0005\t032003\t\tLDA\t000B\n"));
+		Check.isTrue("entry label", text.endsWith("\t\t\tEND\tFIRST\n"));
+
+		//해석할 수 없는 opcode부터는 data로 출력한다
+		Disassembler disassembler = new Disassembler(Fixture.instTable());
+		String image = disassembler.disassembleImage(new byte[] { 0x4F, 0, 0, (byte)0xFF, 0x4F, 0, 0 }, 0, 7);
+		Check.equal("undecodable opcode", "0000\t4F0000\t\tRSUB\t\n0003\tFF4F0000\t\tBYTE\tX'FF4F0000'\n", image);
+		Check.done("DisassemblerTest");
+	}
+}
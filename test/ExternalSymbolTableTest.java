@@ -0,0 +1,44 @@
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ * ExternalSymbolTable : EXTREF 조회, 나중에 등록된 정의로 해결되는 참조, 중복 정의, 정의가 없는 EXTDEF를 검사한다.
+ */
+public class ExternalSymbolTableTest {
+	public static void main(String[] args) throws Exception {
+		ExternalSymbolTable estab = new ExternalSymbolTable();
+		Check.isTrue("reference before definition waits", !estab.reference("b.txt", "B", "BUF"));
+		Check.equal("waiting reference", 1, estab.getUnresolved().size());
+		estab.define("a.txt", "A", "BUF", 0x30);
+		Check.equal("definition resolves it", 0, estab.getUnresolved().size());
+		Check.isTrue("reference after definition", estab.reference("c.txt", "C", "BUF"));
+		estab.define("c.txt", "C", "BUF", 0x10);
+		Check.equal("duplicate", 1, estab.getDuplicates().size());
+		Check.equal("first definition kept", 0x30, estab.search("BUF").address);
+
+		//input.txt의 세 section은 서로의 EXTREF를 모두 해결한다
+		File dir = Files.createTempDirectory("batch").toFile();
+		File copy = new File(dir, "copy.txt");
+		Files.copy(new File("input.txt").toPath(), copy.toPath());
+		//EXTDEF의 NOPE는 정의가 없으므로 ESTAB에 등록하지 않는다
+		File bad = new File(dir, "bad.txt");
+		Files.write(bad.toPath(), Arrays.asList(
+				"PROG\tSTART\t0",
+				"\tEXTDEF\tFIRST,NOPE",
+				"\tEXTREF\tRDREC,MISSING",
+				"FIRST\tTD\t=X'F1'",
+				"\tRSUB",
+				"\tEND\tFIRST"));
+		Fixture.instTable();
+		BatchAssembler batch = new BatchAssembler(Fixture.instTable());
+		int problems = batch.run(Arrays.asList(copy.getPath(), bad.getPath()), new File(dir, "estab.txt").getPath());
+		Check.equal("problems", 2, problems);
+		Check.equal("unresolved", "MISSING", batch.estab.getUnresolved().get(0).name);
+		Check.equal("undefined EXTDEF", "NOPE", batch.estab.getUndefined().get(0).name);
+		Check.isTrue("undefined EXTDEF is not published", batch.estab.search("NOPE") == null);
+		Check.equal("EXTDEF address", 0, batch.estab.search("FIRST").address);
+		Check.equal("COPY EXTDEF", 0x33, batch.estab.search("BUFFER").address);
+		Check.done("ExternalSymbolTableTest");
+	}
+}
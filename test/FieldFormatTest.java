@@ -0,0 +1,37 @@
+/**
+ * FieldFormat, RecordBuffer : String.format과 같은 결과를 내는지, buffer가 넘치지 않는지 검사한다.
+ */
+public class FieldFormatTest {
+	public static void main(String[] args) throws Exception {
+		int[] values = { 0, 1, 0xF, 0x10, 0x1E, 0xFFF, 0x1000, 0xABCDE, 0x7FFFFFFF, -1 };
+		int[] widths = { 1, 2, 4, 6, 8, 12 };
+		for(int value : values) {
+			for(int width : widths) {
+				String expected = String.format("%0" + width + "X", value);
+				Check.equal("hex " + value + " width " + width, expected, FieldFormat.hex(value, width));
+				RecordBuffer rb = new RecordBuffer(1);
+				rb.append('T').appendHex(value, width);
+				Check.equal("appendHex " + value + " width " + width, "T" + expected, rb.toString());
+			}
+		}
+
+		RecordBuffer rb = new RecordBuffer(1);
+		rb.appendPadded("ABC", 6).appendPadded("LONGNAME", 6).append('|');
+		Check.equal("appendPadded", String.format("%-6s%-6s|", "ABC", "LONGNAME"), rb.toString());
+
+		//codeBuffer에 조립된 코드는 getObjectCode()로 요청할 때만 문자열이 된다
+		Assembler assembler = Fixture.assemble("input.txt");
+		TokenTable copy = assembler.TokenList.get(0);
+		Token stl = copy.getToken(3);
+		Check.equal("instruction keeps no hex string", null, stl.objectCode);
+		Check.equal("getObjectCode STL RETADR", "172027", copy.getObjectCode(3));
+		int ltorg = -1;
+		for(int i = 0; i < copy.tokenList.size(); i++) {
+			if(copy.getToken(i).operator.equals("LTORG")) {
+				ltorg = i;
+			}
+		}
+		Check.equal("getObjectCode LTORG", "454F46", copy.getObjectCode(ltorg));
+		Check.done("FieldFormatTest");
+	}
+}
@@ -0,0 +1,67 @@
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * test에서 소스 문자열을 어셈블하기 위한 도구. inst.data는 한 번만 읽어 공유하며, snapshot 파일은 만들지 않는다.
+ */
+public class Fixture {
+	static InstTable instTable;
+
+	static InstTable instTable() {
+		if(instTable == null) {
+			instTable = new InstTable("inst.data");
+		}
+		return instTable;
+	}
+
+	/**
+	 * 줄들을 임시 파일에 기록한다. 각 줄 끝에 줄바꿈을 붙인다.
+	 */
+	static File write(String... lines) throws IOException {
+		File file = File.createTempFile("sic", ".txt");
+		file.deleteOnExit();
+		StringBuilder sb = new StringBuilder();
+		for(String line : lines) {
+			sb.append(line).append('\n');
+		}
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(sb.toString().getBytes("UTF-8"));
+		}
+		finally {
+			out.close();
+		}
+		return file;
+	}
+
+	/**
+	 * 새 Assembler를 만든다.
+	 */
+	static Assembler assembler() {
+		return new Assembler(instTable());
+	}
+
+	/**
+	 * 파일을 pass2까지 어셈블한다.
+	 */
+	static Assembler assemble(String fileName) {
+		Assembler assembler = assembler();
+		assembler.assemble(fileName);
+		return assembler;
+	}
+
+	/**
+	 * 줄들을 pass2까지 어셈블한다.
+	 */
+	static Assembler assembleLines(String... lines) throws IOException {
+		return assemble(write(lines).getPath());
+	}
+
+	/**
+	 * 어셈블된 프로그램의 텍스트 object program
+	 */
+	static String objectText(Assembler assembler) {
+		return assembler.makeObjectProgram().toText();
+	}
+}
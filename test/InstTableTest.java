@@ -0,0 +1,104 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * InstTable : snapshot이 inst.data와 맞을 때만 사용되고, 길이나 CRC가 다르거나 inst.data가 바뀌면 다시 만들어지는지
+ * 검사한다.
+ */
+public class InstTableTest {
+	/**
+	 * snapshot 안의 header 값을 바꾼다.
+	 *
+	 * @param offset : header 안의 위치 (8 : 원본 길이, 16 : CRC32)
+	 */
+	static void patchHeader(File snapshot, int offset, long value) throws IOException {
+		byte[] bytes = Files.readAllBytes(snapshot.toPath());
+		ByteBuffer.wrap(bytes).putLong(offset, value);
+		Files.write(snapshot.toPath(), bytes);
+	}
+
+	/**
+	 * snapshot에서 ADD의 opcode를 바꾼다. 이 값이 보이면 텍스트가 아니라 snapshot에서 읽은 것이다.
+	 */
+	static void patchAddOpcode(File snapshot, int opcode) throws IOException {
+		byte[] bytes = Files.readAllBytes(snapshot.toPath());
+		ByteBuffer buf = ByteBuffer.wrap(bytes);
+		buf.position(28);
+		while(buf.hasRemaining()) {
+			int length = buf.get() & 0xFF;
+			byte[] name = new byte[length];
+			buf.get(name);
+			if(new String(name, "US-ASCII").equals("ADD")) {
+				bytes[buf.position() + 1] = (byte)opcode;
+				break;
+			}
+			buf.position(buf.position() + 3);
+		}
+		Files.write(snapshot.toPath(), bytes);
+	}
+
+	static int addOpcode(String instFile) {
+		return new InstTable(instFile, true).instMap.get("ADD").opcode;
+	}
+
+	public static void main(String[] args) throws IOException {
+		File dir = Files.createTempDirectory("inst").toFile();
+		File inst = new File(dir, "inst.data");
+		Files.copy(new File("inst.data").toPath(), inst.toPath());
+		File snapshot = new File(InstTable.snapshotName(inst.getPath()));
+
+		//기본 생성자는 snapshot을 읽거나 쓰지 않는다
+		InstTable parsed = new InstTable(inst.getPath());
+		Check.isTrue("no snapshot by default", !snapshot.exists());
+
+		InstTable saved = new InstTable(inst.getPath(), true);
+		Check.isTrue("snapshot written", snapshot.isFile());
+		Check.equal("same size", parsed.instMap.size(), saved.instMap.size());
+		InstTable loaded = new InstTable(inst.getPath());
+		loaded.instMap.clear();
+		Check.isTrue("valid snapshot loads", loaded.loadSnapshot(inst.getPath()));
+		boolean same = loaded.instMap.size() == parsed.instMap.size();
+		for(Instruction expected : parsed.instMap.values()) {
+			Instruction actual = loaded.instMap.get(expected.inst);
+			same &= actual != null && actual.format == expected.format && actual.opcode == expected.opcode
+					&& actual.numberOfOperand == expected.numberOfOperand;
+		}
+		Check.isTrue("snapshot matches inst.data", same);
+		Check.equal("opcode index", "LDA", new InstTable(inst.getPath(), true).search(0x03).inst);
+
+		patchAddOpcode(snapshot, 0x1C);
+		Check.equal("snapshot is used", 0x1C, addOpcode(inst.getPath()));
+
+		//원본 길이나 CRC가 맞지 않으면 inst.data를 다시 파싱하고 snapshot을 새로 만든다
+		patchHeader(snapshot, 8, inst.length() + 1);
+		Check.equal("wrong length rejected", 0x18, addOpcode(inst.getPath()));
+		patchAddOpcode(snapshot, 0x1C);
+		patchHeader(snapshot, 16, 0);
+		Check.equal("wrong CRC rejected", 0x18, addOpcode(inst.getPath()));
+		patchAddOpcode(snapshot, 0x1C);
+		Check.equal("rebuilt snapshot is used", 0x1C, addOpcode(inst.getPath()));
+
+		//깨진 snapshot도 다시 만든다
+		Files.write(snapshot.toPath(), new byte[] { 1, 2, 3 });
+		Check.equal("broken snapshot rejected", 0x18, addOpcode(inst.getPath()));
+
+		//inst.data가 바뀌면 snapshot을 다시 만든다
+		Files.write(inst.toPath(), "\nNEWOP 3 0xFC 1".getBytes("US-ASCII"), StandardOpenOption.APPEND);
+		InstTable changed = new InstTable(inst.getPath(), true);
+		Check.isTrue("changed inst.data is parsed", changed.instMap.containsKey("NEWOP"));
+		InstTable reloaded = new InstTable(inst.getPath());
+		reloaded.instMap.clear();
+		Check.isTrue("snapshot follows inst.data", reloaded.loadSnapshot(inst.getPath())
+				&& reloaded.instMap.containsKey("NEWOP"));
+
+		for(File file : dir.listFiles()) {
+			file.delete();
+		}
+		dir.delete();
+
+		Check.done("InstTableTest");
+	}
+}
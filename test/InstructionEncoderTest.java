@@ -0,0 +1,48 @@
+/**
+ * InstructionEncoder, TokenTable.makeObjectCode : format 1/2/3/4 조립과 format 4의 M 레코드, 잘못된 레지스터를 검사한다.
+ */
+public class InstructionEncoderTest {
+	public static void main(String[] args) throws Exception {
+		Check.equal("format 1", 0xC4, InstructionEncoder.encode(1, 0xC4, 0, 0));
+		Check.equal("format 2", 0xB410, InstructionEncoder.encode(2, 0xB4, 0, InstructionEncoder.registerField(0xB4, new String[] { "X" })));
+		Check.equal("format 2 two registers", 0xA004, InstructionEncoder.encode(2, 0xA0, 0, InstructionEncoder.registerField(0xA0, new String[] { "A", "S" })));
+		Check.equal("SHIFTL count is n-1", 0xA453, InstructionEncoder.encode(2, 0xA4, 0, InstructionEncoder.registerField(0xA4, new String[] { "T", "4" })));
+		Check.equal("format 3", 0x17202D, InstructionEncoder.encode(3, 0x14, 0x32, 0x02D));
+		Check.equal("format 4", 0x4B101036, InstructionEncoder.encode(4, 0x48, 0x31, 0x01036));
+		boolean thrown = false;
+		try {
+			InstructionEncoder.registerField(0xB4, new String[] { "Q" });
+		}
+		catch(IllegalArgumentException e) {
+			thrown = true;
+		}
+		Check.isTrue("unknown register throws", thrown);
+
+		Assembler assembler = Fixture.assembleLines(
+				"PROG\tSTART\t0",
+				"\tEXTREF\tEXT1,EXT2",
+				"FIRST\tFIX",
+				"\tCLEAR\tQ",
+				"\tCOMPR\tA,S",
+				"\t+JSUB\tLOCAL",
+				"\t+LDT\t#MAXLEN",
+				"\t+JSUB\tEXT1",
+				"\t+LDA\t=X'05'",
+				"LOCAL\tRSUB",
+				"LAST\tEQU\t*",
+				"MAXLEN\tEQU\tLAST-FIRST",
+				"\tEND\tFIRST");
+		TokenTable TT = assembler.TokenList.get(0);
+		Check.equal("FIX", "C4", TT.getObjectCode(2));
+		Check.equal("bad register has no code", null, TT.getObjectCode(3));
+		Check.equal("COMPR", "A004", TT.getObjectCode(4));
+		Check.equal("+JSUB LOCAL", "4B100015", TT.getObjectCode(5));
+		Check.equal("+LDT #MAXLEN", "75100018", TT.getObjectCode(6));
+		String text = Fixture.objectText(assembler);
+		Check.isTrue("local format 4 is relocated", text.contains("\nM00000605+PROG\n"));
+		Check.isTrue("absolute EQU is not relocated", !text.contains("M00000A05"));
+		Check.isTrue("external format 4", text.contains("\nM00000E05+EXT1\n"));
+		Check.isTrue("literal format 4 is relocated", text.contains("\nM00001205+PROG\n"));
+		Check.done("InstructionEncoderTest");
+	}
+}
@@ -0,0 +1,51 @@
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * ListingWriter : 주소와 object code, 그리고 한글 주석이 charset에 맞게 기록되는지 검사한다.
+ */
+public class ListingWriterTest {
+	static Token token(String label, String operator, String comment) {
+		Token token = new Token();
+		token.label = label;
+		token.operator = operator;
+		token.comment = comment;
+		return token;
+	}
+
+	public static void main(String[] args) throws Exception {
+		Charset utf8 = Charset.forName("UTF-8");
+		StringBuilder longComment = new StringBuilder();
+		for(int i = 0; i < 30000; i++) { //buffer보다 긴 encode 결과
+			longComment.append('가');
+		}
+
+		File file = File.createTempFile("listing", ".txt");
+		file.deleteOnExit();
+		ListingWriter writer = new ListingWriter(file.getPath(), utf8);
+		writer.write(null, token("", "", ". 입력 장치에서 읽는다"));
+		Token rsub = token("EXIT", "RSUB", "돌아간다 (return)");
+		rsub.location = 0x24;
+		rsub.objectCode = "4F0000";
+		writer.write(null, rsub);
+		writer.write(null, token("", "", longComment.toString()));
+		writer.close();
+
+		List<String> lines = Files.readAllLines(file.toPath(), utf8);
+		Check.equal("comment line", "\t. 입력 장치에서 읽는다", lines.get(0));
+		Check.equal("instruction line", "0024\tEXIT\tRSUB\t\t4F0000\t돌아간다 (return)", lines.get(1));
+		Check.equal("long comment", "\t" + longComment, lines.get(2));
+
+		//input.txt의 listing은 기본 charset으로 기록된다
+		File listing = File.createTempFile("listing", ".txt");
+		listing.deleteOnExit();
+		Assembler assembler = Fixture.assembler();
+		assembler.listing = new ListingWriter(listing.getPath());
+		assembler.assemble("input.txt");
+		assembler.listing.close();
+		Check.equal("default charset", "0000\tCOPY\tSTART\t0\t\tCOPY FILE FROM IN TO OUTPUT", Files.readAllLines(listing.toPath(), Charset.defaultCharset()).get(0));
+		Check.done("ListingWriterTest");
+	}
+}
@@ -0,0 +1,99 @@
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * MacroProcessor : macro 펼치기, 인자 연결, 다시 정의했을 때의 expansion cache를 검사한다.
+ */
+public class MacroProcessorTest {
+	static ArrayList<String> run(MacroProcessor mp, String... lines) {
+		ArrayList<String> out = new ArrayList<String>();
+		for(String line : lines) {
+			mp.processLine(line, out);
+		}
+		return out;
+	}
+
+	public static void main(String[] args) {
+		//위치 인자와 keyword 기본값
+		MacroProcessor mp = new MacroProcessor();
+		ArrayList<String> out = run(mp,
+				"RDBUF\tMACRO\t&INDEV,&BUFADR=BUFFER",
+				"\tTD\t=X'&INDEV'",
+				"\tSTCH\t&BUFADR,X",
+				"\tMEND",
+				"\tRDBUF\tF1");
+		Check.equal("positional and default", Arrays.asList("\tTD\t=X'F1'", "\tSTCH\tBUFFER,X"), out);
+
+		//keyword 인자 뒤의 위치 인자는 keyword로 정해진 parameter를 덮어쓰지 않는다
+		MacroDefinition def = new MacroDefinition("M", "&A,&B=2,&C");
+		Check.equal("positional after keyword", Arrays.asList("1", "K", "3"), Arrays.asList(def.bind("B=K,1,3")));
+		Check.equal("keyword after positional", Arrays.asList("1", "K", ""), Arrays.asList(def.bind("1,&B=K")));
+
+		//다시 정의하면 cache된 결과가 아니라 새 body를 사용한다
+		mp = new MacroProcessor();
+		out = run(mp,
+				"INNER\tMACRO",
+				"\tLDA\tOLD",
+				"\tMEND",
+				"OUTER\tMACRO",
+				"\tINNER",
+				"\tSTA\tX",
+				"\tMEND",
+				"\tINNER",
+				"\tOUTER",
+				"INNER\tMACRO",
+				"\tLDA\tNEW",
+				"\tMEND",
+				"\tINNER",
+				"\tOUTER");
+		Check.equal("redefinition", Arrays.asList("\tLDA\tOLD", "\tLDA\tOLD", "\tSTA\tX", "\tLDA\tNEW", "\tLDA\tNEW", "\tSTA\tX"), out);
+
+		//'$' label은 호출마다 바뀌고, 주석의 '$'는 바뀌지 않으며 cache를 막지 않는다
+		mp = new MacroProcessor();
+		out = run(mp,
+				"LOOP\tMACRO",
+				"$L\tTD\t$L\tcost $5",
+				"\tMEND",
+				"PLAIN\tMACRO",
+				"\tRSUB\t\tsaves $1",
+				"\tMEND",
+				"\tLOOP",
+				"\tLOOP",
+				"\tPLAIN");
+		Check.equal("unique labels", Arrays.asList("$AAL\tTD\t$AAL\tcost $5", "$ABL\tTD\t$ABL\tcost $5", "\tRSUB\t\tsaves $1"), out);
+		Check.isTrue("'$' in a comment is cacheable", mp.expansionCache.containsKey("\tPLAIN\t"));
+
+		//cache된 호출은 처음 펼칠 때 분석한 Token 원본을 다시 사용한다
+		mp = new MacroProcessor();
+		out = new ArrayList<String>();
+		ArrayList<Token> prototypes = new ArrayList<Token>();
+		String[] source = {
+				"RDBUF\tMACRO\t&INDEV",
+				"\tTD\t=X'&INDEV'",
+				"$W\tJEQ\t$W",
+				"\tMEND",
+				"\tLDA\tZERO",
+				"\tRDBUF\tF1",
+				"\tRDBUF\tF1" };
+		for(String line : source) {
+			mp.processLine(line, out, prototypes);
+		}
+		Check.equal("prototype per line", out.size(), prototypes.size());
+		Check.isTrue("plain line has no prototype", prototypes.get(0) == null);
+		Check.equal("expanded prototype", "=X'F1'", prototypes.get(1).operand[0]);
+		Check.isTrue("cached expansion is not lexed again", prototypes.get(1) == prototypes.get(3));
+		Check.isTrue("unique label is lexed on use", prototypes.get(2) == null && prototypes.get(4) == null);
+
+		Assembler assembler = Fixture.assembler();
+		for(String line : source) {
+			assembler.loadLine(line, null, new File("input.txt"), new ArrayList<String>());
+		}
+		Token first = assembler.lexLine(1);
+		Token second = assembler.lexLine(3);
+		Check.isTrue("lexLine copies the prototype", first != prototypes.get(1) && first != second);
+		Check.equal("copied line numbers", Arrays.asList(2, 4), Arrays.asList(first.line, second.line));
+		Check.equal("unique label lexed", "$ABW", assembler.lexLine(4).label);
+		Check.done("MacroProcessorTest");
+	}
+}
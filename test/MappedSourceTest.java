@@ -0,0 +1,98 @@
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * MappedSource : memory-map 한 입력을 String으로 읽었을 때와 같이 분석하는지, MACRO와 INCLUDE는 operator 필드만
+ * 보는지, 형식이 잘못된 줄은 오류로 보고하는지 검사한다.
+ */
+public class MappedSourceTest {
+	static void same(String what, Token expected, Token actual) {
+		Check.equal(what + " label", expected.label, actual.label);
+		Check.equal(what + " operator", expected.operator, actual.operator);
+		Check.equal(what + " operand", expected.operand == null ? null : Arrays.asList(expected.operand),
+				actual.operand == null ? null : Arrays.asList(actual.operand));
+		Check.equal(what + " comment", expected.comment, actual.comment);
+		Check.equal(what + " line", expected.line, actual.line);
+	}
+
+	/**
+	 * 파일을 memory-map 하여 분석한 Token과 String으로 읽어 분석한 Token이 같은지 검사한다.
+	 */
+	static void parity(String what, String... lines) throws IOException {
+		MappedSource source = MappedSource.open(Fixture.write(lines).getPath());
+		Check.isTrue(what + " mapped", source != null);
+		source.charset = StandardCharsets.UTF_8; //Fixture.write()는 UTF-8로 기록한다
+		List<Token> mapped = ParallelLexer.lex(source);
+		List<Token> read = ParallelLexer.lex(Arrays.asList(lines));
+		Check.equal(what + " count", read.size(), mapped.size());
+		for(int i = 0; i < read.size(); i++) {
+			same(what + " line " + (i + 1), read.get(i), mapped.get(i));
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		List<String> input = Files.readAllLines(new File("input.txt").toPath());
+		parity("input.txt", input.toArray(new String[0]));
+		parity("fields",
+				"COPY\tSTART\t0",
+				"\tLDA\tBUFFER,X\tindexed",
+				"\tCOMPR\tA,S\t비교 주석",
+				"\tLDA\tA,B,C\tthree\textra",
+				"\tLDA\tALPHA\tcomment\twith\ttabs",
+				"\tRSUB",
+				"\tRSUB\t\t",
+				"\tLTORG",
+				"\tSTA\tX\tafter LTORG",
+				"SUB\tCSECT",
+				".comment line",
+				"\tEND\tFIRST");
+
+		//주석과 label에 있는 MACRO, INCLUDE는 memory-map을 막지 않는다
+		Check.isTrue("MACRO in comment", MappedSource.open(Fixture.write(
+				"COPY\tSTART\t0", ". MACRO INCLUDE", "MACRO\tRSUB", "\tLDA\tX\tno INCLUDE here").getPath()) != null);
+		Check.isTrue("MACRO operator", MappedSource.open(Fixture.write(
+				"COPY\tSTART\t0", "NAME\tMACRO\t&A", "\tMEND").getPath()) == null);
+		Check.isTrue("INCLUDE operator", MappedSource.open(Fixture.write(
+				"COPY\tSTART\t0", "\tINCLUDE\tother.txt").getPath()) == null);
+
+		//형식이 잘못된 줄은 예외 대신 오류를 출력하고 주석 줄로 분석한다
+		PrintStream out = System.out;
+		ByteArrayOutputStream printed = new ByteArrayOutputStream();
+		System.setOut(new PrintStream(printed, true, "UTF-8"));
+		List<Token> tokens;
+		Token read;
+		try {
+			tokens = ParallelLexer.lex(MappedSource.open(Fixture.write(
+					"COPY\tSTART\t0", "", "\tLDA\tA,", "\tLDA\tA,B\t", "\tRSUB").getPath()));
+			read = Token.lex("\tLDA\tA,", 0, 7, 3);
+		}
+		finally {
+			System.setOut(out);
+		}
+		String errors = printed.toString("UTF-8");
+		Check.isTrue("empty line reported", errors.contains("Error: line 2: empty line"));
+		Check.isTrue("trailing comma reported", errors.contains("Error: line 3: missing operand after ','"));
+		Check.isTrue("missing comment reported", errors.contains("Error: line 4: missing comment after operand"));
+		Check.equal("malformed line is a comment", "", tokens.get(2).operator);
+		Check.equal("malformed line text", "\tLDA\tA,", tokens.get(2).comment);
+		same("mapped and read errors", read, tokens.get(2));
+		Check.equal("lexing continues", "RSUB", tokens.get(4).operator);
+
+		boolean thrown = false;
+		try {
+			new Token("");
+		}
+		catch(IllegalArgumentException e) {
+			thrown = true;
+		}
+		Check.isTrue("Token(String) rejects empty line", thrown);
+
+		Check.done("MappedSourceTest");
+	}
+}
@@ -0,0 +1,61 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * OutputStage : section을 병렬로 인코딩하고 gathering write로 기록해도 section 순서대로 같은 내용이 출력되는지 검사한다.
+ */
+public class OutputStageTest {
+	static String text(ByteBuffer[] buffers) {
+		StringBuilder sb = new StringBuilder();
+		for(ByteBuffer buffer : buffers) {
+			byte[] bytes = new byte[buffer.remaining()];
+			buffer.duplicate().get(bytes);
+			sb.append(new String(bytes, StandardCharsets.UTF_8));
+		}
+		return sb.toString();
+	}
+
+	static String read(File file) throws IOException {
+		return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+	}
+
+	public static void main(String[] args) throws IOException {
+		Assembler assembler = Fixture.assemble("input.txt");
+		//현재 thread에서 한 section씩 인코딩한 결과를 기준으로 한다
+		OutputStage inline = new OutputStage(assembler, Runnable::run);
+		String object = text(inline.encode(OutputStage.OBJECT));
+		String symbols = text(inline.encode(OutputStage.SYMBOL));
+		String literals = text(inline.encode(OutputStage.LITERAL));
+		Check.equal("object program", Fixture.objectText(assembler), object);
+		Check.isTrue("symtab", symbols.startsWith("COPY\t0\nFIRST\t0\n"));
+
+		OutputStage parallel = new OutputStage(assembler);
+		Check.equal("sections", assembler.TokenList.size(), parallel.encode(OutputStage.OBJECT).length);
+		Check.equal("parallel object", object, text(parallel.encode(OutputStage.OBJECT)));
+		Check.equal("parallel symtab", symbols, text(parallel.encode(OutputStage.SYMBOL)));
+		Check.equal("parallel literaltab", literals, text(parallel.encode(OutputStage.LITERAL)));
+
+		File dir = Files.createTempDirectory("output").toFile();
+		File objectFile = new File(dir, "output.txt");
+		File symbolFile = new File(dir, "symtab.txt");
+		File literalFile = new File(dir, "literaltab.txt");
+		parallel.printAll(objectFile.getPath(), symbolFile.getPath(), literalFile.getPath());
+		Check.equal("printAll object", object, read(objectFile));
+		Check.equal("printAll symtab", symbols, read(symbolFile));
+		Check.equal("printAll literaltab", literals, read(literalFile));
+
+		//기존 파일보다 짧은 내용을 기록하면 남은 부분은 지워진다
+		Files.write(objectFile.toPath(), new byte[object.length() * 2]);
+		parallel.print(OutputStage.OBJECT, objectFile.getPath());
+		Check.equal("print truncates", object, read(objectFile));
+		for(File file : dir.listFiles()) {
+			file.delete();
+		}
+		dir.delete();
+
+		Check.done("OutputStageTest");
+	}
+}
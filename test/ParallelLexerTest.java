@@ -0,0 +1,52 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * ParallelLexer : 여러 구간으로 나누어 분석한 결과가 한 줄씩 순서대로 분석한 결과와 같은지 검사한다.
+ */
+public class ParallelLexerTest {
+	/**
+	 * 두 Token의 분석 결과가 같은지 검사한다.
+	 */
+	static void same(String what, Token expected, Token actual) {
+		Check.equal(what + " label", expected.label, actual.label);
+		Check.equal(what + " operator", expected.operator, actual.operator);
+		Check.equal(what + " operand", expected.operand == null ? null : Arrays.asList(expected.operand),
+				actual.operand == null ? null : Arrays.asList(actual.operand));
+		Check.equal(what + " comment", expected.comment, actual.comment);
+	}
+
+	public static void main(String[] args) throws IOException {
+		//CHUNK_SIZE보다 많은 줄은 여러 구간으로 나뉘어도 순서와 줄 번호가 유지된다
+		List<String> source = new ArrayList<String>();
+		for(String line : Files.readAllLines(new File("input.txt").toPath())) {
+			if(!line.isEmpty()) {
+				source.add(line);
+			}
+		}
+		List<String> lines = new ArrayList<String>();
+		while(lines.size() <= ParallelLexer.CHUNK_SIZE * 2) {
+			lines.addAll(source);
+		}
+		List<Token> tokens = ParallelLexer.lex(lines);
+		Check.equal("token count", lines.size(), tokens.size());
+		int mismatched = 0;
+		for(int i = 0; i < lines.size(); i++) {
+			Token token = tokens.get(i);
+			if(token.line != i + 1) {
+				mismatched++;
+			}
+			if(i % 997 == 0 || i == ParallelLexer.CHUNK_SIZE - 1 || i == ParallelLexer.CHUNK_SIZE) {
+				same("line " + (i + 1), new Token(lines.get(i)), token);
+			}
+		}
+		Check.equal("line numbers", 0, mismatched);
+		same("last line", new Token(lines.get(lines.size() - 1)), tokens.get(tokens.size() - 1));
+
+		Check.done("ParallelLexerTest");
+	}
+}
@@ -0,0 +1,67 @@
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * PipelineAssembler : 단계별 thread로 실행해도 순서대로 실행했을 때와 같은 출력 파일과 section이 만들어지는지,
+ * 오류가 나면 모든 단계가 끝난 뒤 실패를 리턴하는지 검사한다.
+ */
+public class PipelineAssemblerTest {
+	static String text(ByteBuffer[] buffers) {
+		StringBuilder sb = new StringBuilder();
+		for(ByteBuffer buffer : buffers) {
+			byte[] bytes = new byte[buffer.remaining()];
+			buffer.duplicate().get(bytes);
+			sb.append(new String(bytes, StandardCharsets.UTF_8));
+		}
+		return sb.toString();
+	}
+
+	static String read(File file) throws IOException {
+		return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		Assembler sequential = Fixture.assemble("input.txt");
+		OutputStage stage = new OutputStage(sequential, Runnable::run);
+
+		File dir = Files.createTempDirectory("pipeline").toFile();
+		File objectFile = new File(dir, "output.txt");
+		File symbolFile = new File(dir, "symtab.txt");
+		File literalFile = new File(dir, "literaltab.txt");
+		Assembler piped = Fixture.assembler();
+		Check.isTrue("pipeline run", new PipelineAssembler(piped).run("input.txt", objectFile.getPath(),
+				symbolFile.getPath(), literalFile.getPath()));
+		Check.equal("object", text(stage.encode(OutputStage.OBJECT)), read(objectFile));
+		Check.equal("symtab", text(stage.encode(OutputStage.SYMBOL)), read(symbolFile));
+		Check.equal("literaltab", text(stage.encode(OutputStage.LITERAL)), read(literalFile));
+		Check.equal("sections", sequential.TokenList.size(), piped.TokenList.size());
+		Check.equal("object program", Fixture.objectText(sequential), Fixture.objectText(piped));
+
+		//읽기 단계의 오류는 뒤 단계를 멈추지 않고 run()이 끝난 뒤 보고된다
+		PrintStream out = System.out;
+		ByteArrayOutputStream printed = new ByteArrayOutputStream();
+		System.setOut(new PrintStream(printed, true, "UTF-8"));
+		boolean ok;
+		try {
+			ok = new PipelineAssembler(Fixture.assembler()).run(new File(dir, "missing.txt").getPath(),
+					objectFile.getPath(), symbolFile.getPath(), literalFile.getPath());
+		}
+		finally {
+			System.setOut(out);
+		}
+		Check.isTrue("missing input fails", !ok);
+		Check.isTrue("error reported", printed.toString("UTF-8").startsWith("Error: "));
+
+		for(File file : dir.listFiles()) {
+			file.delete();
+		}
+		dir.delete();
+
+		Check.done("PipelineAssemblerTest");
+	}
+}
@@ -0,0 +1,49 @@
+import java.nio.charset.StandardCharsets;
+
+/**
+ * SicSimulator : 어셈블한 COPY 프로그램(input.txt)이 장치 F1의 record들을 장치 05로 복사하는지, 적재할 때 코드가
+ * 미리 해석되는지, 실행 중에 바뀐 명령어는 다시 해석되는지 검사한다.
+ */
+public class SicSimulatorTest {
+	static SicSimulator load(Assembler assembler) {
+		SicSimulator simulator = new SicSimulator(Fixture.instTable());
+		simulator.load(assembler.makeObjectProgram(), 0);
+		return simulator;
+	}
+
+	public static void main(String[] args) throws Exception {
+		//COPY : record 끝(X'00')마다 WRREC로 쓰고, 입력이 끝나면 EOF를 쓰고 돌아온다
+		SicSimulator simulator = load(Fixture.assemble("input.txt"));
+		Check.isTrue("FIRST predecoded", simulator.decodedOp[0] != 0);
+		Check.equal("FIRST is STL", 0x14, simulator.decodedOp[0] & 0xFF);
+		simulator.attach(0xF1, "HELLO\0WORLD".getBytes(StandardCharsets.ISO_8859_1));
+		simulator.run(100000);
+		Check.equal("halt reason", "halt", simulator.haltReason);
+		Check.equal("device 05", "HELLOWORLDEOF", new String(simulator.getOutput(0x05), StandardCharsets.ISO_8859_1));
+		Check.equal("registers", "A=000046 X=000003 L=000027 B=000000 S=000000 T=000003 PC=0FFFFF SW=000000 F=0.0",
+				simulator.registerDump());
+		Check.equal("LENGTH", 3, simulator.word(simulator.estab.get("LENGTH")));
+
+		//입력이 없으면 EOF만 쓴다
+		simulator = load(Fixture.assemble("input.txt"));
+		simulator.attach(0xF1, null);
+		simulator.run(100000);
+		Check.equal("empty input", "EOF", new String(simulator.getOutput(0x05), StandardCharsets.ISO_8859_1));
+
+		//미리 해석된 명령어에 값을 저장하면 다시 해석된다 (LDA #1 -> LDA #2)
+		simulator = load(Fixture.assembleLines(
+				"PROG\tSTART\t0",
+				"FIRST\tLDA\t=X'010002'",
+				"\tSTA\tPATCH",
+				"PATCH\tLDA\t#1",
+				"\tRSUB",
+				"\tEND\tFIRST"));
+		Check.equal("PATCH predecoded", 1, simulator.decodedArg[6]);
+		simulator.run(100);
+		Check.equal("patched halt", "halt", simulator.haltReason);
+		Check.equal("patched A", 2, simulator.reg[SicSimulator.A]);
+		Check.equal("patched steps", 4L, simulator.steps);
+
+		Check.done("SicSimulatorTest");
+	}
+}
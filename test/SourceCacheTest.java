@@ -0,0 +1,52 @@
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * SourceCache : INCLUDE된 파일은 한 번만 읽고 분석하며, Token 원본은 복사해서 사용하는지 검사한다.
+ */
+public class SourceCacheTest {
+	static void overwrite(File file, String text) throws IOException {
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(text.getBytes("UTF-8"));
+		}
+		finally {
+			out.close();
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		File header = Fixture.write("\tLDA\t#3", "\tSTA\tVAL");
+		File source = Fixture.write(
+				"COPY\tSTART\t0",
+				"\tINCLUDE\t" + header.getName(),
+				"FIRST\tTD\t=X'F1'",
+				"\tRSUB",
+				"VAL\tRESW\t1",
+				"\tEND\tFIRST");
+
+		Assembler first = Fixture.assemble(source.getPath());
+		SourceEntry entry = SourceCache.shared().getEntry(header);
+		Token[] prototypes = entry.tokens;
+		Check.equal("included lines", 2, prototypes.length);
+		Check.isTrue("included line uses the prototype", first.prototypeList.get(1) == prototypes[0]);
+		Check.isTrue("main file line has no prototype", first.prototypeList.get(0) == null);
+		Token lexed = first.TokenList.get(0).getToken(1);
+		Check.isTrue("prototype is copied", lexed != prototypes[0]);
+		Check.equal("copy is assembled", "010003", first.TokenList.get(0).getObjectCode(1));
+		Check.equal("prototype is untouched", -1, prototypes[0].codeOffset);
+		Check.equal("copy keeps its line", 2, lexed.line);
+
+		Assembler second = Fixture.assemble(source.getPath());
+		Check.isTrue("header is not lexed again", SourceCache.shared().getEntry(header).tokens == prototypes);
+		Check.equal("same object program", Fixture.objectText(first), Fixture.objectText(second));
+
+		overwrite(header, "\tLDA\t#5\n\tSTA\tVAL\n");
+		header.setLastModified(header.lastModified() + 2000);
+		Assembler third = Fixture.assemble(source.getPath());
+		Check.isTrue("changed header is lexed again", SourceCache.shared().getEntry(header).tokens != prototypes);
+		Check.equal("changed header is assembled", "010005", third.TokenList.get(0).getObjectCode(1));
+		Check.done("SourceCacheTest");
+	}
+}
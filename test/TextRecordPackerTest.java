@@ -0,0 +1,98 @@
+/**
+ * TextRecordPacker : 기본으로는 T 레코드를 최대 길이까지 채우고, breakAtBoundary이면 조각 경계에서만 나누며, 두 경우 모두
+ * 최대 길이와 주소 간격을 지키는지 검사한다.
+ */
+public class TextRecordPackerTest {
+	static int[] lengths(ObjectSection section) {
+		int[] lengths = new int[section.textCodes.size()];
+		for(int i = 0; i < lengths.length; i++) {
+			lengths[i] = section.textCodes.get(i).length;
+		}
+		return lengths;
+	}
+
+	public static void main(String[] args) throws Exception {
+		byte[] code = new byte[64];
+		//기본 : 레코드를 최대 길이까지 채우고, 남은 자리에 들어가지 않는 조각은 두 레코드에 나눈다
+		ObjectSection section = new ObjectSection();
+		TextRecordPacker packer = new TextRecordPacker(section);
+		int address = 0;
+		for(int i = 0; i < 9; i++) { //27 byte
+			packer.add(address, code, 0, 3);
+			address += 3;
+		}
+		packer.add(address, code, 0, 4); //3 byte와 1 byte로 나뉜다
+		address += 4;
+		packer.add(address + 10, code, 0, 3); //주소가 끊긴다
+		packer.flush();
+		Check.equal("full record lengths", new int[] { 30, 1, 3 }, lengths(section));
+		Check.equal("full record addresses", 30, (int)section.textAddrs.get(1));
+		Check.equal("full after gap", 41, (int)section.textAddrs.get(2));
+
+		//breakAtBoundary : 남은 자리에 들어가지 않는 조각 앞에서 새 레코드를 시작한다
+		section = new ObjectSection();
+		packer = new TextRecordPacker(section, TextRecordPacker.DEFAULT_LENGTH, true);
+		address = 0;
+		for(int i = 0; i < 9; i++) {
+			packer.add(address, code, 0, 3);
+			address += 3;
+		}
+		packer.add(address, code, 0, 4);
+		address += 4;
+		packer.add(address + 10, code, 0, 3);
+		packer.flush();
+		Check.equal("boundary record lengths", new int[] { 27, 4, 3 }, lengths(section));
+		Check.equal("boundary record addresses", 27, (int)section.textAddrs.get(1));
+		Check.equal("boundary after gap", 41, (int)section.textAddrs.get(2));
+
+		//최대 길이보다 긴 조각은 breakAtBoundary여도 나뉜다
+		section = new ObjectSection();
+		packer = new TextRecordPacker(section, 4);
+		packer.add(0, code, 0, 3);
+		packer.add(3, code, 0, 10);
+		packer.flush();
+		Check.equal("full oversized piece", new int[] { 4, 4, 4, 1 }, lengths(section));
+		section = new ObjectSection();
+		packer = new TextRecordPacker(section, 4, true);
+		packer.add(0, code, 0, 3);
+		packer.add(3, code, 0, 10);
+		packer.flush();
+		Check.equal("boundary oversized piece", new int[] { 3, 4, 4, 2 }, lengths(section));
+
+		//16진수가 아닌 object code는 받지 않는다
+		boolean thrown = false;
+		try {
+			new TextRecordPacker(new ObjectSection()).addHex(0, "EOF");
+		}
+		catch(IllegalArgumentException e) {
+			thrown = true;
+		}
+		Check.isTrue("non-hex object code", thrown);
+
+		//input.txt : 기본으로는 주소가 이어지는 동안 30 byte를 채운다
+		Assembler assembler = Fixture.assemble("input.txt");
+		String text = Fixture.objectText(assembler);
+		Check.isTrue("COPY first full record", text.contains("\nT0000001E1720274B1000000320232900003320074B1000003F2FEC0320160F201601\n"));
+		Check.isTrue("COPY second full record", text.contains("\nT00001E0C00030F200A4B1000003E2000\n"));
+		Check.isTrue("RDREC first full record", text.contains("\nT0000001EB410B400B44077201FE3201B332FFADB2015A00433200957900000B8503B\n"));
+
+		//input.txt, breakAtBoundary : 모든 T 레코드는 명령어 경계에서 나뉜다
+		assembler = Fixture.assembler();
+		assembler.textRecordBoundary = true;
+		assembler.assemble("input.txt");
+		text = Fixture.objectText(assembler);
+		Check.isTrue("COPY first record", text.contains("\nT0000001D1720274B1000000320232900003320074B1000003F2FEC0320160F2016\n"));
+		Check.isTrue("COPY second record", text.contains("\nT00001D0D0100030F200A4B1000003E2000\n"));
+		Check.isTrue("RDREC first record", text.contains("\nT0000001DB410B400B44077201FE3201B332FFADB2015A00433200957900000B850\n"));
+
+		//BYTE C'..'와 END에 놓이는 C literal은 문자 코드로 기록된다
+		assembler = Fixture.assembleLines(
+				"PROG\tSTART\t0",
+				"FIRST\tLDA\t=C'AB'",
+				"EOF\tBYTE\tC'EOF'",
+				"\tEND\tFIRST");
+		text = Fixture.objectText(assembler);
+		Check.isTrue("character constants", text.contains("\nT00000008032003454F464142\n"));
+		Check.done("TextRecordPackerTest");
+	}
+}
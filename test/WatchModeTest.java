@@ -0,0 +1,92 @@
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+/**
+ * WatchMode : cycle마다 옵션이 적용되는지, 한 cycle의 오류가 감시를 끝내지 않는지 검사한다.
+ */
+public class WatchModeTest {
+	static void write(File file, String text) throws IOException {
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(text.getBytes("UTF-8"));
+		}
+		finally {
+			out.close();
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		File dir = Files.createTempDirectory("watch").toFile();
+		File inst = new File(dir, "inst.data");
+		Files.copy(new File("inst.data").toPath(), inst.toPath());
+		File input = new File(dir, "input.txt");
+		Files.copy(new File("input.txt").toPath(), input.toPath());
+		File object = new File(dir, "output.txt");
+		File listing = new File(dir, "listing.txt");
+		File xref = new File(dir, "xref.txt");
+
+		WatchMode watch = new WatchMode(inst.getPath(), input.getPath(), object.getPath(),
+				new File(dir, "symtab.txt").getPath(), new File(dir, "literaltab.txt").getPath());
+		watch.optimize = true;
+		watch.textRecordLength = 7;
+		watch.listingFile = listing.getPath();
+		watch.xrefFile = xref.getPath();
+		watch.watchService = FileSystems.getDefault().newWatchService();
+		try {
+			watch.loadInstTable();
+			Check.isTrue("first cycle", watch.cycle());
+			Check.isTrue("listing written", listing.length() > 0);
+			Check.isTrue("xref written", xref.length() > 0);
+			int longest = 0;
+			for(String line : Files.readAllLines(object.toPath())) {
+				if(line.startsWith("T")) {
+					longest = Math.max(longest, Integer.parseInt(line.substring(7, 9), 16));
+				}
+			}
+			Check.isTrue("-tlen applied", longest > 0 && longest <= 7);
+
+			//내용이 같으면 listing과 xref를 포함한 어떤 출력 파일도 다시 쓰지 않는다
+			File[] outputs = dir.listFiles((d, name) -> !name.equals("inst.data") && !name.equals("input.txt"));
+			for(File file : outputs) {
+				file.setLastModified(1000000L);
+			}
+			Check.isTrue("unchanged cycle", watch.cycle());
+			int rewritten = 0;
+			for(File file : outputs) {
+				if(file.lastModified() != 1000000L) {
+					rewritten++;
+				}
+			}
+			Check.equal("outputs checked", 5, outputs.length);
+			Check.equal("nothing rewritten", 0, rewritten);
+			Files.write(listing.toPath(), new byte[] { 'x' });
+			Check.isTrue("changed listing cycle", watch.cycle());
+			Check.isTrue("changed listing is replaced", listing.length() > 1);
+
+			//잘못된 inst.data는 오류만 출력하고, 고쳐지면 다시 어셈블한다
+			write(inst, "ADD 3\n");
+			watch.loadInstTable();
+			Check.isTrue("broken inst.data is reported", watch.instTable == null);
+			Check.isTrue("no cycle without inst.data", !watch.cycle());
+			Files.copy(new File("inst.data").toPath(), inst.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			watch.loadInstTable();
+			Check.isTrue("fixed inst.data", watch.cycle());
+
+			//잘못된 소스도 감시를 끝내지 않는다
+			List<String> lines = Files.readAllLines(input.toPath());
+			write(input, "COPY\tSTART\t0\n\tLDA\t\n");
+			Check.isTrue("broken source is reported", !watch.cycle());
+			write(input, String.join("\n", lines) + "\n");
+			Check.isTrue("fixed source", watch.cycle());
+		}
+		finally {
+			watch.close();
+		}
+		Check.done("WatchModeTest");
+	}
+}